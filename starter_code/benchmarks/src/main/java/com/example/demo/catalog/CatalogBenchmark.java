@@ -0,0 +1,125 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The catalog served from a {@link CatalogSnapshot} against the same items read through Hibernate, over H2 in memory
+ * as the application runs in tests. {@code load*} and {@code map*} are the startup cost of each, one shot per
+ * iteration; {@code find*} look up random items once both are up, the Hibernate side from a session that already holds
+ * every item, its best case.
+ * <p>
+ * Run with {@code -prof gc}: {@code gc.alloc.rate.norm} of {@code loadThroughHibernate} is the heap the entities and
+ * their persistence context take per load, against what mapping the snapshot allocates.
+ */
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private Session loaded;
+    private Path snapshotFile;
+    private CatalogSnapshot snapshot;
+    private long[] lookups;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.URL, "jdbc:h2:mem:catalog-benchmark-" + catalogSize + ";DB_CLOSE_DELAY=-1")
+                .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+                .build();
+        sessionFactory = new MetadataSources(registry).addAnnotatedClass(Item.class).buildMetadata().buildSessionFactory();
+
+        List<Item> items = new ArrayList<>(catalogSize);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            Transaction transaction = session.beginTransaction();
+            for (int i = 0; i < catalogSize; i++) {
+                // A handful of descriptions shared by many items, as in a real catalog
+                Item item = new Item(null, "Widget " + i, new BigDecimal(i % 5000).movePointLeft(2), "A widget of kind " + (i % 50));
+                session.insert(item);
+                items.add(item);
+            }
+            transaction.commit();
+        }
+
+        snapshotFile = Files.createTempFile("catalog", ".bin");
+        CatalogSnapshotWriter.write(snapshotFile, items, 1);
+        snapshot = CatalogSnapshot.map(snapshotFile);
+        loaded = sessionFactory.openSession();
+        loaded.createQuery("from Item", Item.class).list();
+
+        Random random = new Random(42);
+        lookups = new long[1024];
+        for (int i = 0; i < lookups.length; i++) {
+            lookups[i] = items.get(random.nextInt(catalogSize)).getId();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        loaded.close();
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public List<Item> loadThroughHibernate() {
+        try (Session session = sessionFactory.openSession()) {
+            return session.createQuery("from Item", Item.class).list();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public CatalogSnapshot mapSnapshot() throws IOException {
+        return CatalogSnapshot.map(snapshotFile);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Item findInSession() {
+        return loaded.get(Item.class, lookups[next++ & (lookups.length - 1)]);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Item findInSnapshot() {
+        return snapshot.find(lookups[next++ & (lookups.length - 1)]);
+    }
+}
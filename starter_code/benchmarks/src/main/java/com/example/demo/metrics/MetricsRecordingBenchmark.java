@@ -0,0 +1,63 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the instrumentation adds to a request: recording endpoint latency in {@link EndpointLatencyMetrics}, timing a
+ * repository call and incrementing a pre-registered counter. {@code micrometerPercentileTimer} is a Micrometer timer
+ * publishing the same quantiles, for comparison. Run with several threads ({@code -t 4}) to see the recording under
+ * contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsRecordingBenchmark {
+
+    private EndpointLatencyMetrics endpointLatency;
+    private Timer percentileTimer;
+    private Timer repositoryTimer;
+    private Counter counter;
+    private long latency;
+
+    @Setup
+    public void setUp() {
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        endpointLatency = new EndpointLatencyMetrics(Duration.ofMinutes(1)).register(registry.getPrometheusRegistry());
+        percentileTimer = Timer.builder("http.server.requests")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .register(registry);
+        repositoryTimer = Timer.builder(RepositoryMetricsAspect.METRIC_NAME).register(registry);
+        counter = Counter.builder("auth.token.verification").tag("outcome", "valid").register(registry);
+        latency = TimeUnit.MILLISECONDS.toNanos(12);
+    }
+
+    @Benchmark
+    public void recordEndpointLatency() {
+        endpointLatency.record("GET", "/api/item/{id}", 200, latency);
+    }
+
+    @Benchmark
+    public void micrometerPercentileTimer() {
+        percentileTimer.record(latency, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void recordRepositoryCall() {
+        repositoryTimer.record(latency, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void incrementCounter() {
+        counter.increment();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.model.persistence;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Cart#addItem} and {@link Cart#removeItem} on carts of different sizes. Each operation puts the list back to
+ * its original size with a constant time list operation, so every invocation sees a cart of {@code cartSize} items.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CartBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int cartSize;
+
+    private Cart cart;
+    private Item item;
+    private Item lastItem;
+
+    @Setup
+    public void setUp() {
+        cart = ModelFixtures.cart(cartSize);
+        lastItem = cart.getItems().get(cartSize - 1);
+        item = ModelFixtures.item(cartSize + 1L);
+    }
+
+    @Benchmark
+    public Cart addItem() {
+        cart.addItem(item);
+        cart.getItems().remove(cart.getItems().size() - 1);
+        return cart;
+    }
+
+    @Benchmark
+    public Cart removeItem() {
+        // The last item is the worst case, removeItem searches the list from the front
+        cart.removeItem(lastItem);
+        cart.getItems().add(lastItem);
+        return cart;
+    }
+
+    @TearDown
+    public void checkSize() {
+        if (cart.getItems().size() != cartSize) {
+            throw new IllegalStateException("Cart size drifted to " + cart.getItems().size());
+        }
+    }
+}
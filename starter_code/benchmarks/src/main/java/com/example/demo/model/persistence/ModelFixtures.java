@@ -0,0 +1,31 @@
+package com.example.demo.model.persistence;
+
+import java.math.BigDecimal;
+
+/**
+ * Detached carts and orders shaped like the ones the controllers work with: a user owning a cart of distinct items.
+ */
+final class ModelFixtures {
+
+    private ModelFixtures() {
+    }
+
+    static Item item(long id) {
+        return new Item(id, "Widget " + id, new BigDecimal("2.99"), "A benchmark widget");
+    }
+
+    static Cart cart(int size) {
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("benchmarkUser");
+
+        Cart cart = new Cart();
+        cart.setId(1L);
+        cart.setUser(user);
+        user.setCart(cart);
+        for (long id = 1; id <= size; id++) {
+            cart.addItem(item(id));
+        }
+        return cart;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.security;
+
+import com.example.demo.guestcart.GuestCartTokens;
+import com.example.demo.model.persistence.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link JWTAuthenticationFilter#attemptAuthentication} without BCrypt: the AuthenticationManager accepts
+ * every credential. {@code legacyObjectMapperBinding} is the previous implementation, a new ObjectMapper per login
+ * binding into the User entity. {@link #main} runs it with the GC profiler, which reports
+ * {@code gc.alloc.rate.norm}, the bytes allocated per login.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JWTAuthenticationFilterBenchmark {
+
+    private static final byte[] BODY = "{\"username\":\"benchmarkUser\",\"password\":\"benchmarkPassword\"}".getBytes(StandardCharsets.UTF_8);
+
+    // Accepts everything, the benchmark is about the request handling around BCrypt
+    private final AuthenticationManager authenticationManager = authentication -> authentication;
+
+    private TokenBucketRateLimiter userRateLimiter;
+    private JWTAuthenticationFilter filter;
+
+    @Setup
+    public void setUp() {
+        // Never rejects at benchmark speed
+        userRateLimiter = new TokenBucketRateLimiter("user", 1_000_000, Duration.ofNanos(1), 10, new SimpleMeterRegistry());
+        // Logins without a guest cart, which never reach the merge service
+        filter = new JWTAuthenticationFilter(authenticationManager, userRateLimiter, new GuestCartTokens(), null,
+                new SimpleMeterRegistry());
+    }
+
+    private static MockHttpServletRequest loginRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", SecurityConstants.LOGIN_URL);
+        request.setContent(BODY);
+        return request;
+    }
+
+    @Benchmark
+    public Authentication sharedObjectReader() {
+        return filter.attemptAuthentication(loginRequest(), new MockHttpServletResponse());
+    }
+
+    @Benchmark
+    public Authentication legacyObjectMapperBinding() throws IOException {
+        MockHttpServletRequest request = loginRequest();
+        new MockHttpServletResponse();
+        User userCredentials = new ObjectMapper().readValue(request.getInputStream(), User.class);
+        if (!userRateLimiter.tryAcquire(userCredentials.getUsername())) {
+            return null;
+        }
+        return authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(userCredentials.getUsername(), userCredentials.getPassword(), new ArrayList<>()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(JWTAuthenticationFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
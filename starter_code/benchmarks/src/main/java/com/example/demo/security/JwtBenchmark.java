@@ -0,0 +1,76 @@
+package com.example.demo.security;
+
+import com.example.demo.guestcart.GuestCartTokens;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issuing in {@link JWTAuthenticationFilter#successfulAuthentication} and token verification in
+ * {@link JWTAuthenticationVerificationFilter#doFilterInternal}, called on the filters themselves so the numbers
+ * follow any change to how they sign or verify.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class JwtBenchmark {
+
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> {
+    };
+
+    private final AuthenticationManager authenticationManager = authentication -> authentication;
+
+    private JWTAuthenticationFilter authenticationFilter;
+    private JWTAuthenticationVerificationFilter verificationFilter;
+    private Authentication login;
+    private String token;
+
+    @Setup
+    public void setUp() throws IOException, ServletException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // Logins without a guest cart, which never reach the merge service
+        authenticationFilter = new JWTAuthenticationFilter(authenticationManager,
+                new TokenBucketRateLimiter("user", 1_000_000, Duration.ofNanos(1), 10, meterRegistry),
+                new GuestCartTokens(), null, meterRegistry);
+        verificationFilter = new JWTAuthenticationVerificationFilter(authenticationManager, Collections.emptySet(), meterRegistry);
+
+        UserAccountDetails account = new UserAccountDetails(1L, 1L, "benchmarkUser", "hash", Collections.emptyList());
+        login = new UsernamePasswordAuthenticationToken(account, null, account.getAuthorities());
+        token = createToken();
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public String createToken() throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        authenticationFilter.successfulAuthentication(new MockHttpServletRequest(), response, NO_OP_CHAIN, login);
+        return response.getHeader(SecurityConstants.HEADER_STRING);
+    }
+
+    @Benchmark
+    public Authentication verifyToken() throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/cart");
+        request.addHeader(SecurityConstants.HEADER_STRING, token);
+        verificationFilter.doFilterInternal(request, new MockHttpServletResponse(), NO_OP_CHAIN);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+}
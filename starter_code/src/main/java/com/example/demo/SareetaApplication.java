@@ -1,20 +1,24 @@
 package com.example.demo;
 
+import com.example.demo.security.BCryptWorkFactorCalibrator;
+import com.example.demo.security.CalibratedBCryptPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
-import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
-@EnableJpaRepositories("com.example.demo.model.persistence.repositories")
-@EntityScan("com.example.demo.model.persistence")
+import java.time.Duration;
+
 @SpringBootApplication
 public class SareetaApplication {
 
 	@Bean
-	public BCryptPasswordEncoder bCryptPasswordEncoder() {
-		return new BCryptPasswordEncoder();
+	public BCryptPasswordEncoder bCryptPasswordEncoder(@Value("${security.bcrypt.target-hash-time:250ms}") Duration targetHashTime,
+													   @Value("${security.bcrypt.min-strength:10}") int minStrength,
+													   @Value("${security.bcrypt.max-strength:16}") int maxStrength) {
+		// Pick the work factor for this machine, stored hashes with another cost are rehashed on login
+		return new CalibratedBCryptPasswordEncoder(BCryptWorkFactorCalibrator.calibrate(targetHashTime, minStrength, maxStrength));
 	}
 	public static void main(String[] args) {
 		SpringApplication.run(SareetaApplication.class, args);
@@ -0,0 +1,23 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Serves {@code /api/item} from a memory-mapped catalog snapshot, on unless {@code app.catalog.enabled} is false, in
+ * which case the items are read through Hibernate. A new snapshot is published through
+ * {@code POST /api/admin/catalog/snapshot}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.catalog", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(CatalogProperties.class)
+public class CatalogConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public CatalogStore catalogStore(ItemRepository itemRepository, CatalogProperties properties) {
+        return new CatalogStore(itemRepository, properties.getSnapshot(), properties.getRefreshInterval());
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.catalog;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.catalog")
+public class CatalogProperties {
+
+    private boolean enabled = true;
+    // The snapshot file, shared by the nodes that should serve the same catalog
+    private Path snapshot = Paths.get("data", "catalog.bin");
+    // How often the file is checked for a snapshot published by another node
+    private Duration refreshInterval = Duration.ofSeconds(10);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Path snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Duration getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only, memory-mapped catalog file written by {@link CatalogSnapshotWriter}. Lookups read the mapped pages in
+ * place: nothing of the catalog is kept on the heap, and an {@link Item} is only built, detached, for the entry a
+ * request returns. Safe for any number of concurrent readers.
+ * <p>
+ * Layout, big endian:
+ * <pre>
+ * header   magic, version, count (ints), a reserved int, generation, strings offset, names offset (longs), reserved long
+ * records  count entries sorted by id: id, unscaled price (longs), price scale, name offset, name length,
+ *          description offset, description length, padding (ints)
+ * names    count entries sorted by name hash: hash, record number (ints)
+ * strings  UTF-8 bytes, each distinct string once; record offsets are relative to the start of the table
+ * </pre>
+ */
+public final class CatalogSnapshot {
+
+    static final int MAGIC = 0x43544C47;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 48;
+    static final int RECORD_BYTES = 40;
+    static final int NAME_ENTRY_BYTES = 8;
+
+    static final int COUNT_AT = 8;
+    static final int GENERATION_AT = 16;
+    static final int STRINGS_AT = 24;
+    static final int NAMES_AT = 32;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final long generation;
+    private final int strings;
+    private final int names;
+
+    private CatalogSnapshot(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a catalog snapshot");
+        }
+        this.count = buffer.getInt(COUNT_AT);
+        this.generation = buffer.getLong(GENERATION_AT);
+        this.strings = Math.toIntExact(buffer.getLong(STRINGS_AT));
+        this.names = Math.toIntExact(buffer.getLong(NAMES_AT));
+        if (count < 0 || HEADER_BYTES + (long) count * RECORD_BYTES > names
+                || names + (long) count * NAME_ENTRY_BYTES > strings || strings > buffer.capacity()) {
+            throw new IOException("Truncated catalog snapshot");
+        }
+    }
+
+    /**
+     * Maps the file. The mapping outlives the channel and stays valid when the file is replaced, until the snapshot is
+     * no longer referenced.
+     */
+    public static CatalogSnapshot map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new CatalogSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return the generation written in the header of the file, without mapping it
+     */
+    public static long readGeneration(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Until the header is read or the file ends
+            }
+            if (header.hasRemaining() || header.getInt(0) != MAGIC) {
+                throw new IOException("Not a catalog snapshot");
+            }
+            return header.getLong(GENERATION_AT);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return when the snapshot was published, telling it apart from the ones before
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return the item, or null when the catalog does not have it
+     */
+    public Item find(long id) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = buffer.getLong(record(mid));
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return item(mid);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the items with exactly the name, in id order
+     */
+    public List<Item> findByName(String name) {
+        byte[] wanted = name.getBytes(StandardCharsets.UTF_8);
+        int hash = CatalogSnapshotWriter.hash(wanted);
+        // The first entry with the hash
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(names + mid * NAME_ENTRY_BYTES) < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<Item> items = new ArrayList<>();
+        for (int entry = low; entry < count && buffer.getInt(names + entry * NAME_ENTRY_BYTES) == hash; entry++) {
+            int record = buffer.getInt(names + entry * NAME_ENTRY_BYTES + 4);
+            int at = record(record);
+            if (bytesEqual(buffer.getInt(at + 20), buffer.getInt(at + 24), wanted)) {
+                items.add(item(record));
+            }
+        }
+        return items.isEmpty() ? Collections.emptyList() : items;
+    }
+
+    /**
+     * @return every item, in id order
+     */
+    public List<Item> findAll() {
+        List<Item> items = new ArrayList<>(count);
+        for (int record = 0; record < count; record++) {
+            items.add(item(record));
+        }
+        return items;
+    }
+
+    /**
+     * @return whether the snapshot has the number of items, highest id and sum of the prices given, as a cheap check
+     * that it was written from the current catalog
+     */
+    public boolean matches(long itemCount, Long maxId, BigDecimal priceSum) {
+        if (itemCount != count) {
+            return false;
+        }
+        if (count == 0) {
+            return true;
+        }
+        BigDecimal sum = BigDecimal.ZERO;
+        for (int record = 0; record < count; record++) {
+            sum = sum.add(price(record(record)));
+        }
+        return maxId != null && maxId == buffer.getLong(record(count - 1)) && priceSum != null && sum.compareTo(priceSum) == 0;
+    }
+
+    private Item item(int record) {
+        int at = record(record);
+        return new Item(buffer.getLong(at), string(buffer.getInt(at + 20), buffer.getInt(at + 24)), price(at),
+                string(buffer.getInt(at + 28), buffer.getInt(at + 32)));
+    }
+
+    private BigDecimal price(int at) {
+        return new BigDecimal(BigInteger.valueOf(buffer.getLong(at + 8)), buffer.getInt(at + 16));
+    }
+
+    private String string(int offset, int length) {
+        ByteBuffer bytes = buffer.duplicate();
+        bytes.position(strings + offset).limit(strings + offset + length);
+        return StandardCharsets.UTF_8.decode(bytes).toString();
+    }
+
+    private boolean bytesEqual(int offset, int length, byte[] wanted) {
+        if (length != wanted.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(strings + offset + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int record(int record) {
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.demo.catalog.CatalogSnapshot.*;
+
+/**
+ * Writes the catalog in the format read by {@link CatalogSnapshot}.
+ */
+final class CatalogSnapshotWriter {
+
+    private CatalogSnapshotWriter() {
+    }
+
+    /**
+     * Writes the items next to the file and renames the result over it, so that a reader maps either the previous
+     * snapshot or this one, never a partial file.
+     *
+     * @return the size of the file
+     */
+    static long write(Path file, List<Item> items, long generation) throws IOException {
+        ByteBuffer snapshot = encode(items, generation);
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (snapshot.hasRemaining()) {
+                    channel.write(snapshot);
+                }
+                // On disk before the rename publishes it
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return snapshot.capacity();
+    }
+
+    static ByteBuffer encode(List<Item> items, long generation) {
+        List<Item> sorted = new ArrayList<>(items);
+        sorted.sort(Comparator.comparing(Item::getId));
+
+        // Descriptions are often shared between items, each distinct string is stored once
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        Map<String, Integer> offsets = new HashMap<>();
+        int[][] stringRefs = new int[sorted.size()][4];
+        long[][] nameEntries = new long[sorted.size()][];
+        for (int i = 0; i < sorted.size(); i++) {
+            Item item = sorted.get(i);
+            byte[] name = item.getName().getBytes(StandardCharsets.UTF_8);
+            byte[] description = item.getDescription().getBytes(StandardCharsets.UTF_8);
+            stringRefs[i][0] = intern(item.getName(), name, strings, offsets);
+            stringRefs[i][1] = name.length;
+            stringRefs[i][2] = intern(item.getDescription(), description, strings, offsets);
+            stringRefs[i][3] = description.length;
+            nameEntries[i] = new long[]{hash(name), i};
+        }
+        Arrays.sort(nameEntries, Comparator.<long[]>comparingLong(entry -> entry[0]).thenComparingLong(entry -> entry[1]));
+
+        int names = HEADER_BYTES + sorted.size() * RECORD_BYTES;
+        int stringsAt = names + sorted.size() * NAME_ENTRY_BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(Math.addExact(stringsAt, strings.size()));
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(sorted.size()).putInt(0)
+                .putLong(generation).putLong(stringsAt).putLong(names).putLong(0);
+        for (int i = 0; i < sorted.size(); i++) {
+            Item item = sorted.get(i);
+            buffer.putLong(item.getId())
+                    .putLong(item.getPrice().unscaledValue().longValueExact())
+                    .putInt(item.getPrice().scale())
+                    .putInt(stringRefs[i][0]).putInt(stringRefs[i][1])
+                    .putInt(stringRefs[i][2]).putInt(stringRefs[i][3])
+                    .putInt(0);
+        }
+        for (long[] entry : nameEntries) {
+            buffer.putInt((int) entry[0]).putInt((int) entry[1]);
+        }
+        buffer.put(strings.toByteArray());
+        buffer.flip();
+        return buffer;
+    }
+
+    static int hash(byte[] bytes) {
+        return Arrays.hashCode(bytes);
+    }
+
+    private static int intern(String value, byte[] bytes, ByteArrayOutputStream strings, Map<String, Integer> offsets) {
+        Integer offset = offsets.get(value);
+        if (offset == null) {
+            offset = strings.size();
+            strings.write(bytes, 0, bytes.length);
+            offsets.put(value, offset);
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * The catalog served to {@code /api/item}, from a {@link CatalogSnapshot} rather than from Hibernate. The current
+ * snapshot is held in an {@link AtomicReference}: {@link #publish()} writes a new file from the items, maps it and
+ * swaps it in, and requests already reading the previous one finish with it.
+ * <p>
+ * At startup the existing file is mapped when its item count, highest id and price sum match the database, which is
+ * one aggregate query instead of loading every item; otherwise it is published anew. Every {@code refresh-interval}
+ * the file's generation is checked, so a snapshot published by another node sharing the file is picked up too.
+ * Changes made other than through the price endpoint, such as a renamed item, are only served after a publish.
+ */
+public class CatalogStore {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogStore.class);
+
+    private final ItemRepository itemRepository;
+    private final Path snapshotFile;
+    private final long refreshMillis;
+    private final LongSupplier millisClock;
+    private final AtomicReference<CatalogSnapshot> current = new AtomicReference<>();
+
+    private ScheduledExecutorService scheduler;
+
+    public CatalogStore(ItemRepository itemRepository, Path snapshotFile, Duration refreshInterval) {
+        this(itemRepository, snapshotFile, refreshInterval, System::currentTimeMillis);
+    }
+
+    CatalogStore(ItemRepository itemRepository, Path snapshotFile, Duration refreshInterval, LongSupplier millisClock) {
+        this.itemRepository = itemRepository;
+        this.snapshotFile = snapshotFile;
+        this.refreshMillis = refreshInterval.toMillis();
+        this.millisClock = millisClock;
+    }
+
+    public synchronized void start() {
+        long start = System.nanoTime();
+        CatalogSnapshot existing = mapExisting();
+        boolean reused = existing != null && isCurrent(existing);
+        if (reused) {
+            current.set(existing);
+        } else {
+            publish(existing == null ? 0 : existing.getGeneration());
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "catalog-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::refresh, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        log.info("event=catalog.start outcome=success reused={} items={} elapsedMillis={}",
+                reused, current.get().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            scheduler = null;
+        }
+    }
+
+    /**
+     * @return the snapshot to read from; a caller doing several lookups should keep it rather than ask again, to see
+     * one consistent catalog
+     */
+    public CatalogSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Writes the items to a new snapshot and serves it.
+     *
+     * @return the published snapshot
+     */
+    public synchronized CatalogSnapshot publish() {
+        return publish(current.get().getGeneration());
+    }
+
+    private CatalogSnapshot publish(long previousGeneration) {
+        long start = System.nanoTime();
+        List<Item> items = itemRepository.findAll(Sort.by("id"));
+        // Newer than the snapshot it replaces even if the clock went back
+        long generation = Math.max(millisClock.getAsLong(), previousGeneration + 1);
+        try {
+            long bytes = CatalogSnapshotWriter.write(snapshotFile, items, generation);
+            current.set(CatalogSnapshot.map(snapshotFile));
+            log.info("event=catalog.publish outcome=success items={} bytes={} generation={} elapsedMillis={}",
+                    items.size(), bytes, generation, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot publish the catalog to " + snapshotFile, e);
+        }
+        return current.get();
+    }
+
+    // Swaps in the file when another node published a newer one
+    synchronized void refresh() {
+        try {
+            if (CatalogSnapshot.readGeneration(snapshotFile) != current.get().getGeneration()) {
+                current.set(CatalogSnapshot.map(snapshotFile));
+                log.info("event=catalog.refresh outcome=success generation={}", current.get().getGeneration());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("event=catalog.refresh outcome=failed file={}", snapshotFile, e);
+        }
+    }
+
+    private CatalogSnapshot mapExisting() {
+        try {
+            return CatalogSnapshot.map(snapshotFile);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            log.warn("event=catalog.map outcome=failed file={}", snapshotFile, e);
+            return null;
+        }
+    }
+
+    private boolean isCurrent(CatalogSnapshot snapshot) {
+        Object[] summary = itemRepository.summarize().get(0);
+        return snapshot.matches((Long) summary[0], (Long) summary[1], (BigDecimal) summary[2]);
+    }
+}
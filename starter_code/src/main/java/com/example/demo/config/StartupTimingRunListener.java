@@ -0,0 +1,155 @@
+package com.example.demo.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringApplicationRunListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Breaks the startup time down into the phases of {@link SpringApplication#run} and names the beans whose
+ * initialization took longest. The breakdown is logged once the application is ready and published as
+ * {@code application.startup.phase} gauges.
+ */
+public class StartupTimingRunListener implements SpringApplicationRunListener {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupTimingRunListener.class);
+
+    private static final int SLOWEST_BEANS = 10;
+
+    // Held by the bean factory once registered, which keeps it reachable for the gauges
+    private final StartupTimings timings = new StartupTimings();
+    private long phaseStart;
+
+    public StartupTimingRunListener(SpringApplication application, String[] args) {
+    }
+
+    @Override
+    public void starting() {
+        // Everything before SpringApplication.run: JVM start and loading the main class
+        phaseStart = System.currentTimeMillis();
+        timings.phases.put("jvm", phaseStart - ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    @Override
+    public void environmentPrepared(ConfigurableEnvironment environment) {
+        endPhase("environment");
+    }
+
+    @Override
+    public void contextPrepared(ConfigurableApplicationContext context) {
+        endPhase("context-create");
+        context.getBeanFactory().addBeanPostProcessor(timings);
+    }
+
+    @Override
+    public void contextLoaded(ConfigurableApplicationContext context) {
+        endPhase("context-load");
+    }
+
+    @Override
+    public void started(ConfigurableApplicationContext context) {
+        endPhase("refresh");
+    }
+
+    @Override
+    public void running(ConfigurableApplicationContext context) {
+        endPhase("runners");
+        report(context);
+    }
+
+    @Override
+    public void failed(ConfigurableApplicationContext context, Throwable exception) {
+    }
+
+    private void endPhase(String phase) {
+        long now = System.currentTimeMillis();
+        timings.phases.put(phase, now - phaseStart);
+        phaseStart = now;
+    }
+
+    private void report(ConfigurableApplicationContext context) {
+        long total = timings.phases.values().stream().mapToLong(Long::longValue).sum();
+        String breakdown = timings.phases.entrySet().stream()
+                .map(phase -> phase.getKey() + "=" + phase.getValue() + "ms")
+                .collect(Collectors.joining(" "));
+        String slowest = timings.beanDurations.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(SLOWEST_BEANS)
+                .map(bean -> bean.getKey() + "=" + TimeUnit.NANOSECONDS.toMillis(bean.getValue()) + "ms")
+                .collect(Collectors.joining(" "));
+        log.info("event=startup totalMs={} {} slowestBeans=[{}]", total, breakdown, slowest);
+
+        MeterRegistry meterRegistry = context.getBeanProvider(MeterRegistry.class).getIfAvailable();
+        if (meterRegistry != null) {
+            timings.phases.keySet().forEach(phase -> TimeGauge.builder("application.startup.phase", timings,
+                    TimeUnit.MILLISECONDS, startup -> startup.phases.get(phase))
+                    .tag("phase", phase)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Phase durations, plus the time each bean took from instantiation to the end of its initialization callbacks.
+     * Beans created as dependencies along the way are subtracted from their dependent, so a bean is charged only for
+     * its own work such as building the persistence unit, running the migrations or calibrating the password encoder.
+     */
+    private static class StartupTimings implements InstantiationAwareBeanPostProcessor {
+
+        private final Map<String, Long> phases = new LinkedHashMap<>();
+        private final Map<String, Long> beanDurations = new ConcurrentHashMap<>();
+        private final ThreadLocal<Deque<BeanCreation>> creations = ThreadLocal.withInitial(ArrayDeque::new);
+
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+            creations.get().push(new BeanCreation(beanName, System.nanoTime()));
+            return null;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            Deque<BeanCreation> stack = creations.get();
+            // Objects exposed by factory beans come through here without a matching creation
+            if (stack.stream().noneMatch(creation -> creation.beanName.equals(beanName))) {
+                return bean;
+            }
+            BeanCreation creation;
+            do {
+                creation = stack.pop();
+            } while (!creation.beanName.equals(beanName));
+
+            long total = System.nanoTime() - creation.start;
+            beanDurations.put(beanName, total - creation.nested);
+            if (!stack.isEmpty()) {
+                stack.peek().nested += total;
+            }
+            return bean;
+        }
+    }
+
+    private static class BeanCreation {
+
+        private final String beanName;
+        private final long start;
+        private long nested;
+
+        private BeanCreation(String beanName, long start) {
+            this.beanName = beanName;
+            this.start = start;
+        }
+    }
+}
@@ -1,17 +1,20 @@
 package com.example.demo.controllers;
 
+import com.example.demo.inventory.InventoryService;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
-import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.ItemRepository;
-import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.profiling.CartUpdateEvent;
+import com.example.demo.security.JwtPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -26,59 +29,100 @@ public class CartController {
 
     private static final Logger log = LoggerFactory.getLogger(CartController.class);
 
-    @Autowired
-    private UserRepository userRepository;
-
     @Autowired
     private CartRepository cartRepository;
 
     @Autowired
     private ItemRepository itemRepository;
 
+    // Absent when app.inventory.enabled is false
+    @Autowired(required = false)
+    private InventoryService inventoryService;
+
     @PostMapping("/addToCart")
-    public ResponseEntity<Cart> addTocart(@RequestBody ModifyCartRequest request) {
-        User user = userRepository.findByUsername(request.getUsername());
-        if (user == null) {
-            log.error("Add to cart operation failed. User: " + request.getUsername() + " not found!");
+    @Transactional
+    public ResponseEntity<Cart> addTocart(@AuthenticationPrincipal JwtPrincipal principal, @RequestBody ModifyCartRequest request) {
+        CartUpdateEvent event = CartUpdateEvent.start("add", request.getQuantity());
+        return event.end(add(principal, request));
+    }
+
+    private ResponseEntity<Cart> add(JwtPrincipal principal, ModifyCartRequest request) {
+        // The username in the body is optional, when present it has to be the caller
+        if (request.getUsername() != null && !principal.owns(request.getUsername())) {
+            log.error("event=cart.add outcome=forbidden user={} target={}", principal.getUsername(), request.getUsername());
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (request.getQuantity() <= 0) {
+            log.warn("event=cart.add outcome=refused user={} itemId={} quantity={}", principal.getUsername(), request.getItemId(), request.getQuantity());
+
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Cart> cart = cartRepository.findWithItemsById(principal.getCartId());
+        if (!cart.isPresent()) {
+            log.error("event=cart.add outcome=cart_not_found user={} cartId={}", principal.getUsername(), principal.getCartId());
 
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
         Optional<Item> item = itemRepository.findById(request.getItemId());
         if (!item.isPresent()) {
-            log.error("Add to cart operation failed. Item with id: " + request.getItemId() + " not found!");
+            log.error("event=cart.add outcome=item_not_found user={} itemId={}", principal.getUsername(), request.getItemId());
 
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        Cart cart = user.getCart();
+        if (inventoryService != null && !inventoryService.reserve(principal.getCartId(), request.getItemId(), request.getQuantity())) {
+            log.warn("event=cart.add outcome=out_of_stock user={} itemId={}", principal.getUsername(), request.getItemId());
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
         IntStream.range(0, request.getQuantity())
-                .forEach(i -> cart.addItem(item.get()));
-        cartRepository.save(cart);
-        log.info("Add to cart operation success. Item : " + request.getItemId() + " added in the cart for user: " + request.getUsername());
+                .forEach(i -> cart.get().addItem(item.get()));
+        cartRepository.save(cart.get());
+        log.info("event=cart.add outcome=success user={} itemId={}", principal.getUsername(), request.getItemId());
 
-        return ResponseEntity.ok(cart);
+        return ResponseEntity.ok(cart.get());
     }
 
     @PostMapping("/removeFromCart")
-    public ResponseEntity<Cart> removeFromcart(@RequestBody ModifyCartRequest request) {
-        User user = userRepository.findByUsername(request.getUsername());
-        if (user == null) {
-            log.error("Removed from cart operation failed. User: " + request.getUsername() + " not found!");
+    @Transactional
+    public ResponseEntity<Cart> removeFromcart(@AuthenticationPrincipal JwtPrincipal principal, @RequestBody ModifyCartRequest request) {
+        CartUpdateEvent event = CartUpdateEvent.start("remove", request.getQuantity());
+        return event.end(remove(principal, request));
+    }
+
+    private ResponseEntity<Cart> remove(JwtPrincipal principal, ModifyCartRequest request) {
+        // The username in the body is optional, when present it has to be the caller
+        if (request.getUsername() != null && !principal.owns(request.getUsername())) {
+            log.error("event=cart.remove outcome=forbidden user={} target={}", principal.getUsername(), request.getUsername());
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (request.getQuantity() <= 0) {
+            log.warn("event=cart.remove outcome=refused user={} itemId={} quantity={}", principal.getUsername(), request.getItemId(), request.getQuantity());
+
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Cart> cart = cartRepository.findWithItemsById(principal.getCartId());
+        if (!cart.isPresent()) {
+            log.error("event=cart.remove outcome=cart_not_found user={} cartId={}", principal.getUsername(), principal.getCartId());
 
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
         Optional<Item> item = itemRepository.findById(request.getItemId());
         if (!item.isPresent()) {
-            log.error("Removed from cart operation failed. Item with id: " + request.getItemId() + " not found!");
+            log.error("event=cart.remove outcome=item_not_found user={} itemId={}", principal.getUsername(), request.getItemId());
 
             return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
         }
-        Cart cart = user.getCart();
         IntStream.range(0, request.getQuantity())
-                .forEach(i -> cart.removeItem(item.get()));
-        cartRepository.save(cart);
-        log.info("Remove from cart operation success. Item : " + request.getItemId() + " removed from cart for user: " + request.getUsername());
+                .forEach(i -> cart.get().removeItem(item.get()));
+        cartRepository.save(cart.get());
+        if (inventoryService != null) {
+            inventoryService.release(principal.getCartId(), request.getItemId(), request.getQuantity());
+        }
+        log.info("event=cart.remove outcome=success user={} itemId={}", principal.getUsername(), request.getItemId());
 
-        return ResponseEntity.ok(cart);
+        return ResponseEntity.ok(cart.get());
     }
 
 }
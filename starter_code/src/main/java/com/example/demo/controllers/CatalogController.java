@@ -0,0 +1,39 @@
+package com.example.demo.controllers;
+
+import com.example.demo.catalog.CatalogSnapshot;
+import com.example.demo.catalog.CatalogStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Catalog snapshots, for admins only (see {@code security.admin-users}).
+ */
+@RestController
+@RequestMapping("/api/admin/catalog")
+public class CatalogController {
+
+    // Absent when app.catalog.enabled is false
+    @Autowired(required = false)
+    private CatalogStore catalogStore;
+
+    /**
+     * Publishes a snapshot of the items as they are in the database, for changes made other than through the API.
+     */
+    @PostMapping("/snapshot")
+    public ResponseEntity<Map<String, Object>> publish() {
+        if (catalogStore == null) {
+            return ResponseEntity.notFound().build();
+        }
+        CatalogSnapshot snapshot = catalogStore.publish();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("items", snapshot.size());
+        result.put("generation", snapshot.getGeneration());
+        return ResponseEntity.ok(result);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.controllers;
+
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.guestcart.GuestCart;
+import com.example.demo.guestcart.GuestCartService;
+import com.example.demo.guestcart.GuestCartTokens;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.security.SecurityConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Carts for shoppers who have not logged in, open to anyone. The cart travels in the {@code X-Guest-Cart} header:
+ * every change answers with the updated token in the same header, and sending it to {@code /login} moves the cart
+ * into the user's. Nothing is written to the database.
+ */
+@RestController
+@RequestMapping("/api/guest-cart")
+public class GuestCartController {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestCartController.class);
+
+    @Autowired
+    private GuestCartTokens guestCartTokens;
+
+    @Autowired
+    private GuestCartService guestCartService;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @GetMapping
+    public ResponseEntity<GuestCart> getCart(@RequestHeader(name = SecurityConstants.GUEST_CART_HEADER, required = false) String token) {
+        GuestCart cart = read(token);
+        if (cart == null) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(guestCartService.price(cart));
+    }
+
+    @PostMapping("/addToCart")
+    public ResponseEntity<GuestCart> addToCart(@RequestHeader(name = SecurityConstants.GUEST_CART_HEADER, required = false) String token,
+                                               @RequestBody ModifyCartRequest request) {
+        GuestCart cart = read(token);
+        if (cart == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!itemRepository.existsById(request.getItemId())) {
+            log.error("event=guest_cart.add outcome=item_not_found itemId={}", request.getItemId());
+
+            return ResponseEntity.notFound().build();
+        }
+        if (!cart.add(request.getItemId(), request.getQuantity())) {
+            log.warn("event=guest_cart.add outcome=refused itemId={} quantity={}", request.getItemId(), request.getQuantity());
+
+            return ResponseEntity.badRequest().build();
+        }
+
+        return updated(cart);
+    }
+
+    @PostMapping("/removeFromCart")
+    public ResponseEntity<GuestCart> removeFromCart(@RequestHeader(name = SecurityConstants.GUEST_CART_HEADER, required = false) String token,
+                                                    @RequestBody ModifyCartRequest request) {
+        GuestCart cart = read(token);
+        if (cart == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!cart.remove(request.getItemId(), request.getQuantity())) {
+            log.warn("event=guest_cart.remove outcome=refused itemId={} quantity={}", request.getItemId(), request.getQuantity());
+
+            return ResponseEntity.badRequest().build();
+        }
+
+        return updated(cart);
+    }
+
+    private ResponseEntity<GuestCart> updated(GuestCart cart) {
+        return ResponseEntity.ok()
+                .header(SecurityConstants.GUEST_CART_HEADER, guestCartTokens.sign(cart))
+                .body(guestCartService.price(cart));
+    }
+
+    // An empty cart without a token, null when the token is not valid
+    private GuestCart read(String token) {
+        if (token == null || token.isEmpty()) {
+            return new GuestCart();
+        }
+        try {
+            return guestCartTokens.verify(token);
+        } catch (JWTVerificationException e) {
+            log.warn("event=guest_cart.read outcome=invalid_token");
+            return null;
+        }
+    }
+}
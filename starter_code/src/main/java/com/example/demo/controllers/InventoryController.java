@@ -0,0 +1,71 @@
+package com.example.demo.controllers;
+
+import com.example.demo.inventory.InventoryService;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.requests.RestockRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Item stock, for admins only (see {@code security.admin-users}).
+ */
+@RestController
+@RequestMapping("/api/admin/inventory")
+public class InventoryController {
+    private static final Logger log = LoggerFactory.getLogger(InventoryController.class);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    // Absent when app.inventory.enabled is false
+    @Autowired(required = false)
+    private InventoryService inventoryService;
+
+    /**
+     * Units free to reserve, or -1 for an item that is not stock tracked and can always be ordered.
+     */
+    @GetMapping("/{itemId}")
+    public ResponseEntity<Map<String, Object>> getStock(@PathVariable long itemId) {
+        if (inventoryService == null || !itemRepository.existsById(itemId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(stockLevel(itemId));
+    }
+
+    /**
+     * Adds units of the item; the first restock of an item starts tracking its stock.
+     */
+    @PostMapping("/{itemId}/restock")
+    public ResponseEntity<Map<String, Object>> restock(@PathVariable long itemId, @RequestBody RestockRequest request) {
+        if (inventoryService == null || !itemRepository.existsById(itemId)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (request.getQuantity() <= 0) {
+            log.error("event=inventory.restock outcome=bad_quantity itemId={} quantity={}", itemId, request.getQuantity());
+
+            return ResponseEntity.badRequest().build();
+        }
+        inventoryService.restock(itemId, request.getQuantity());
+
+        return ResponseEntity.ok(stockLevel(itemId));
+    }
+
+    private Map<String, Object> stockLevel(long itemId) {
+        Map<String, Object> stock = new LinkedHashMap<>();
+        stock.put("itemId", itemId);
+        stock.put("available", inventoryService.getAvailable(itemId));
+        return stock;
+    }
+}
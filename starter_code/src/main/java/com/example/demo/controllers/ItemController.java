@@ -1,5 +1,6 @@
 package com.example.demo.controllers;
 
+import com.example.demo.catalog.CatalogStore;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.repositories.ItemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/item")
@@ -18,19 +20,23 @@ public class ItemController {
     @Autowired
     private ItemRepository itemRepository;
 
+    // Absent when app.catalog.enabled is false, the items are then read through Hibernate
+    @Autowired(required = false)
+    private CatalogStore catalogStore;
+
     @GetMapping
     public ResponseEntity<List<Item>> getItems() {
-        return ResponseEntity.ok(itemRepository.findAll());
+        return ResponseEntity.ok(catalogStore != null ? catalogStore.current().findAll() : itemRepository.findAll());
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Item> getItemById(@PathVariable Long id) {
-        return ResponseEntity.of(itemRepository.findById(id));
+        return ResponseEntity.of(catalogStore != null ? Optional.ofNullable(catalogStore.current().find(id)) : itemRepository.findById(id));
     }
 
     @GetMapping("/name/{name}")
     public ResponseEntity<List<Item>> getItemsByName(@PathVariable String name) {
-        List<Item> items = itemRepository.findByName(name);
+        List<Item> items = catalogStore != null ? catalogStore.current().findByName(name) : itemRepository.findByName(name);
         return items == null || items.isEmpty() ? ResponseEntity.notFound().build()
                 : ResponseEntity.ok(items);
 
@@ -0,0 +1,65 @@
+package com.example.demo.controllers;
+
+import com.example.demo.catalog.CatalogStore;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.requests.UpdatePriceRequest;
+import com.example.demo.pricing.CartRepricer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Item prices, for admins only (see {@code security.admin-users}).
+ */
+@RestController
+@RequestMapping("/api/admin/items")
+public class ItemPriceController {
+    private static final Logger log = LoggerFactory.getLogger(ItemPriceController.class);
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CartRepricer cartRepricer;
+
+    // Absent when app.catalog.enabled is false
+    @Autowired(required = false)
+    private CatalogStore catalogStore;
+
+    /**
+     * Changes the price, queues the open carts holding the item for repricing and publishes the catalog. Not
+     * transactional: both only happen once the new price is committed.
+     */
+    @PutMapping("/{id}/price")
+    public ResponseEntity<Item> updatePrice(@PathVariable long id, @RequestBody UpdatePriceRequest request) {
+        if (request.getPrice() == null || request.getPrice().signum() < 0 || request.getPrice().scale() > 2) {
+            log.error("event=item.price outcome=bad_price itemId={} price={}", id, request.getPrice());
+
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<Item> item = itemRepository.findById(id);
+        if (!item.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        BigDecimal previous = item.get().getPrice();
+        item.get().setPrice(request.getPrice());
+        Item saved = itemRepository.save(item.get());
+        cartRepricer.priceChanged(id);
+        if (catalogStore != null) {
+            catalogStore.publish();
+        }
+        log.info("event=item.price outcome=success itemId={} previous={} price={}", id, previous, request.getPrice());
+
+        return ResponseEntity.ok(saved);
+    }
+}
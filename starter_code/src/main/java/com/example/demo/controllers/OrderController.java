@@ -1,16 +1,32 @@
 package com.example.demo.controllers;
 
-import com.example.demo.model.persistence.User;
+import com.example.demo.inventory.InventoryService;
+import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.UserOrderSummary;
+import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.OrderRepository;
-import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.orders.OrderSubmission;
+import com.example.demo.orders.OrderSubmissionQueue;
+import com.example.demo.orders.OrderSummaryService;
+import com.example.demo.pricing.CartRepricer;
+import com.example.demo.profiling.OrderSubmitEvent;
+import com.example.demo.recommendations.CoOccurrenceIndex;
+import com.example.demo.sales.SalesAggregator;
+import com.example.demo.security.JwtPrincipal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/order")
@@ -18,38 +34,163 @@ public class OrderController {
     private static final Logger log = LoggerFactory.getLogger(OrderController.class);
 
     @Autowired
-    private UserRepository userRepository;
+    private CartRepository cartRepository;
 
     @Autowired
     private OrderRepository orderRepository;
 
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private CartRepricer cartRepricer;
+
+    // Absent when app.orders.submission.enabled is false
+    @Autowired(required = false)
+    private OrderSubmissionQueue submissionQueue;
+
+    // Absent when app.sales.enabled is false
+    @Autowired(required = false)
+    private SalesAggregator salesAggregator;
+
+    // Absent when app.inventory.enabled is false
+    @Autowired(required = false)
+    private InventoryService inventoryService;
+
+    // Absent when app.recommendations.enabled is false
+    @Autowired(required = false)
+    private CoOccurrenceIndex coOccurrenceIndex;
 
     @PostMapping("/submit/{username}")
-    public ResponseEntity<UserOrder> submit(@PathVariable String username) {
-        User user = userRepository.findByUsername(username);
-        if ((user == null) || (user.getCart() == null) || (user.getCart().getItems() == null) || (user.getCart().getItems().isEmpty())) {
-            log.error("Submit order operation failed. Invalid details for user: " + username);
+    @Transactional
+    public ResponseEntity<UserOrder> submit(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable String username) {
+        OrderSubmitEvent event = OrderSubmitEvent.start();
+        return event.end(submitCart(principal, username));
+    }
+
+    private ResponseEntity<UserOrder> submitCart(JwtPrincipal principal, String username) {
+        if (!principal.owns(username)) {
+            log.error("event=order.submit outcome=forbidden user={} target={}", principal.getUsername(), username);
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Optional<Cart> cart = findNonEmptyCart(principal);
+        if (!cart.isPresent()) {
+            log.error("event=order.submit outcome=empty_cart user={}", username);
 
             return ResponseEntity.notFound().build();
         }
+        if (inventoryService != null && !inventoryService.commit(principal.getCartId(), cart.get().getItems())) {
+            log.warn("event=order.submit outcome=out_of_stock user={}", username);
 
-        UserOrder order = UserOrder.createFromCart(user.getCart());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        // The total is charged as is, it must not predate a price change the repricer has not reached yet
+        cartRepricer.verify(cart.get());
+
+        UserOrder order = UserOrder.createFromCart(cart.get());
         orderRepository.save(order);
-        log.info("Submit order operation success. Order added for user: " + username);
+        orderSummaryService.recordOrder(order);
+        if (salesAggregator != null) {
+            salesAggregator.record(order);
+        }
+        if (coOccurrenceIndex != null) {
+            coOccurrenceIndex.record(order);
+        }
+        log.info("event=order.submit outcome=success user={} orderId={}", username, order.getId());
 
         return ResponseEntity.ok(order);
     }
 
-    @GetMapping("/history/{username}")
-    public ResponseEntity<List<UserOrder>> getOrdersForUser(@PathVariable String username) {
-        User user = userRepository.findByUsername(username);
-        if (user == null) {
-            log.error("Get orders for user operation failed. User: " + username + " not found!");
+    /**
+     * Accepts the cart as an order that {@link OrderSubmissionQueue} writes shortly after. Answers 202 with the
+     * submission to poll at the Location header, or 503 with Retry-After when the queue is full.
+     */
+    @PostMapping("/submissions/{username}")
+    @Transactional
+    public ResponseEntity<OrderSubmission> submitAsync(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable String username) {
+        if (submissionQueue == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!principal.owns(username)) {
+            log.error("event=order.submit_async outcome=forbidden user={} target={}", principal.getUsername(), username);
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Optional<Cart> cart = findNonEmptyCart(principal);
+        if (!cart.isPresent()) {
+            log.error("event=order.submit_async outcome=empty_cart user={}", username);
 
             return ResponseEntity.notFound().build();
         }
-        log.info("Get orders for user operation success. User: " + username);
+        if (inventoryService != null && !inventoryService.commit(principal.getCartId(), cart.get().getItems())) {
+            log.warn("event=order.submit_async outcome=out_of_stock user={}", username);
+
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        cartRepricer.verify(cart.get());
+
+        OrderSubmission submission = submissionQueue.submit(UserOrder.createFromCart(cart.get()));
+        if (submission == null) {
+            if (inventoryService != null) {
+                inventoryService.restore(cart.get().getItems());
+            }
+            log.warn("event=order.submit_async outcome=rejected user={} reason=queue_full", username);
+
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(submissionQueue.getRetryAfterSeconds()))
+                    .build();
+        }
+        log.info("event=order.submit_async outcome=accepted user={} handle={}", username, submission.getHandle());
+
+        return ResponseEntity.accepted()
+                .location(UriComponentsBuilder.fromPath("/api/order/submissions/{username}/{handle}")
+                        .buildAndExpand(username, submission.getHandle()).toUri())
+                .body(submission);
+    }
+
+    @GetMapping("/submissions/{username}/{handle}")
+    public ResponseEntity<OrderSubmission> getSubmission(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable String username,
+                                                         @PathVariable String handle) {
+        if (!principal.owns(username)) {
+            log.error("event=order.submission outcome=forbidden user={} target={}", principal.getUsername(), username);
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        OrderSubmission submission = submissionQueue == null ? null : submissionQueue.get(handle);
+        // Someone else's submission is reported as missing, like an unknown or expired one
+        if (submission == null || !submission.belongsTo(principal.getUserId())) {
+            return ResponseEntity.notFound().build();
+        }
+
+        return ResponseEntity.ok(submission);
+    }
+
+    private Optional<Cart> findNonEmptyCart(JwtPrincipal principal) {
+        return cartRepository.findWithItemsById(principal.getCartId())
+                .filter(cart -> cart.getItems() != null && !cart.getItems().isEmpty());
+    }
+
+    @GetMapping("/summary/{username}")
+    public ResponseEntity<UserOrderSummary> getSummary(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable String username) {
+        if (!principal.owns(username)) {
+            log.error("event=order.summary outcome=forbidden user={} target={}", principal.getUsername(), username);
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        return ResponseEntity.ok(orderSummaryService.getSummary(principal.getUserId()));
+    }
+
+    @GetMapping("/history/{username}")
+    public ResponseEntity<List<UserOrder>> getOrdersForUser(@AuthenticationPrincipal JwtPrincipal principal, @PathVariable String username) {
+        if (!principal.owns(username)) {
+            log.error("event=order.history outcome=forbidden user={} target={}", principal.getUsername(), username);
+
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        log.info("event=order.history outcome=success user={}", username);
 
-        return ResponseEntity.ok(orderRepository.findByUser(user));
+        return ResponseEntity.ok(orderRepository.findWithItemsByUserId(principal.getUserId()));
     }
 }
@@ -0,0 +1,82 @@
+package com.example.demo.controllers;
+
+import com.example.demo.orders.OrderExporter;
+import com.example.demo.security.JwtPrincipal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Order dumps for analytics, for admins only (see {@code security.admin-users}).
+ */
+@RestController
+@RequestMapping("/api/admin/orders")
+public class OrderExportController {
+    private static final Logger log = LoggerFactory.getLogger(OrderExportController.class);
+
+    static final String NDJSON = "application/x-ndjson";
+
+    @Autowired
+    private OrderExporter orderExporter;
+
+    /**
+     * Streams the orders as newline-delimited JSON, gzipped when the client accepts it. Every filter is optional:
+     * {@code afterId} and {@code upToId} bound the order ids, {@code from} (inclusive) and {@code to} (exclusive) the
+     * ISO-8601 time the orders were placed. An incremental export passes the last id of the previous one as afterId.
+     */
+    @GetMapping("/export")
+    @Transactional(readOnly = true)
+    public void export(@AuthenticationPrincipal JwtPrincipal principal,
+                       @RequestParam(defaultValue = "0") long afterId,
+                       @RequestParam(required = false) Long upToId,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                       @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       HttpServletResponse response) throws IOException {
+        if ((upToId != null && upToId <= afterId) || (from != null && to != null && !from.isBefore(to))) {
+            log.error("event=order.export outcome=bad_range user={}", principal.getUsername());
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return;
+        }
+
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"orders.ndjson\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        long start = System.nanoTime();
+        long orders;
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192) : response.getOutputStream();
+        try {
+            orders = orderExporter.export(afterId, upToId, from, to, out);
+            if (gzip) {
+                ((GZIPOutputStream) out).finish();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.error("event=order.export outcome=failed user={} afterId={}", principal.getUsername(), afterId, e);
+            throw e;
+        }
+        log.info("event=order.export outcome=success user={} orders={} gzip={} elapsedMillis={}",
+                principal.getUsername(), orders, gzip, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.controllers;
+
+import com.example.demo.recommendations.CoOccurrenceIndex;
+import com.example.demo.recommendations.RecommendationProperties;
+import com.example.demo.recommendations.RelatedItem;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/item")
+public class RecommendationController {
+
+    // Absent when app.recommendations.enabled is false
+    @Autowired(required = false)
+    private CoOccurrenceIndex coOccurrenceIndex;
+
+    @Autowired(required = false)
+    private RecommendationProperties recommendationProperties;
+
+    /**
+     * The items most often bought together with the item, from memory. An item never ordered has none.
+     */
+    @GetMapping("/{id}/related")
+    public ResponseEntity<List<RelatedItem>> getRelatedItems(@PathVariable long id, @RequestParam(required = false) Integer limit) {
+        if (coOccurrenceIndex == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (limit != null && (limit < 1 || limit > recommendationProperties.getMaxItems())) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(coOccurrenceIndex.related(id, limit == null ? recommendationProperties.getTopItems() : limit));
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.controllers;
+
+import com.example.demo.sales.SalesAggregator;
+import com.example.demo.sales.SalesProperties;
+import com.example.demo.sales.SalesWindow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Sales dashboards, for admins only (see {@code security.admin-users}).
+ */
+@RestController
+@RequestMapping("/api/admin/sales")
+public class SalesController {
+
+    // Absent when app.sales.enabled is false
+    @Autowired(required = false)
+    private SalesAggregator salesAggregator;
+
+    @Autowired(required = false)
+    private SalesProperties salesProperties;
+
+    /**
+     * Revenue per minute, totals, basket averages and the best selling items of the last {@code minutes}, the current
+     * one included.
+     */
+    @GetMapping
+    public ResponseEntity<SalesWindow> getSales(@RequestParam(defaultValue = "60") int minutes,
+                                                @RequestParam(required = false) Integer top) {
+        if (salesAggregator == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (minutes < 1 || minutes > salesAggregator.getRetentionMinutes() || (top != null && top < 0)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        return ResponseEntity.ok(salesAggregator.query(minutes, top == null ? salesProperties.getTopItems() : top));
+    }
+}
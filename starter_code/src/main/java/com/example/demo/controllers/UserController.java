@@ -2,7 +2,9 @@ package com.example.demo.controllers;
 
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrderSummary;
 import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.UserOrderSummaryRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.CreateUserRequest;
 import org.slf4j.Logger;
@@ -23,6 +25,8 @@ public class UserController {
     @Autowired
     private CartRepository cartRepository;
     @Autowired
+    private UserOrderSummaryRepository userOrderSummaryRepository;
+    @Autowired
     private BCryptPasswordEncoder passwordEncoder;
 
     @GetMapping("/id/{id}")
@@ -46,7 +50,8 @@ public class UserController {
                 (createUserRequest.getPassword().length() < 7) ||
                 (!createUserRequest.getPassword().equals(createUserRequest.getConfirmPassword()))) {
 
-            log.error("Create user operation failed. Invalid password. Password = " + createUserRequest.getPassword() + ". Confirm password = " + createUserRequest.getConfirmPassword());
+            // Never log the submitted passwords
+            log.error("event=user.create outcome=invalid_password user={}", createUserRequest.getUsername());
             return ResponseEntity.badRequest().build();
         }
         // Store the encoded password
@@ -57,7 +62,9 @@ public class UserController {
         cartRepository.save(cart);
         user.setCart(cart);
         userRepository.save(user);
-        log.info("Create user operation success. User: " + createUserRequest.getUsername() + " created!");
+        // Orders then only ever update the user's summary row
+        userOrderSummaryRepository.save(new UserOrderSummary(user.getId()));
+        log.info("event=user.create outcome=success user={} userId={}", user.getUsername(), user.getId());
 
         return ResponseEntity.ok(user);
     }
@@ -0,0 +1,95 @@
+package com.example.demo.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.metrics.jdbc.DataSourcePoolMetrics;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.metadata.DataSourcePoolMetadataProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.JpaVendorAdapter;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the single datasource with a primary and a replica pool when {@code app.datasource.routing.enabled} is set.
+ * Each pool reports its own {@code hikaricp.*} and {@code jdbc.connections.*} metrics as {@code primary} and
+ * {@code replica}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+public class DataSourceRoutingConfiguration {
+
+    @Bean
+    public DataSourcePools dataSourcePools(DataSourceProperties dataSourceProperties, DataSourceRoutingProperties properties,
+                                           Environment environment, MeterRegistry meterRegistry,
+                                           ObjectProvider<DataSourcePoolMetadataProvider> metadataProviders) {
+        Binder binder = Binder.get(environment);
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+
+        DataSourceRoutingProperties.Replica replicaProperties = properties.getReplica();
+        HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(replicaProperties.getUrl()).username(replicaProperties.getUsername())
+                .password(replicaProperties.getPassword()).build();
+        binder.bind("app.datasource.routing.replica.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("replica");
+        replica.setReadOnly(true);
+
+        List<DataSourcePoolMetadataProvider> providers = metadataProviders.orderedStream().collect(Collectors.toList());
+        for (HikariDataSource pool : new HikariDataSource[]{primary, replica}) {
+            pool.setMetricRegistry(meterRegistry);
+            new DataSourcePoolMetrics(pool, providers, pool.getPoolName(), Tags.empty()).bindTo(meterRegistry);
+        }
+        return new DataSourcePools(primary, replica);
+    }
+
+    @Bean
+    public ReplicaConsistencyTracker replicaConsistencyTracker(DataSourceRoutingProperties properties, MeterRegistry meterRegistry) {
+        return new ReplicaConsistencyTracker(properties.isReadYourWrites(), meterRegistry);
+    }
+
+    @Bean
+    public ReplicaSynchronizer replicaSynchronizer(DataSourcePools dataSourcePools, ReplicaConsistencyTracker tracker,
+                                                   DataSourceRoutingProperties properties, MeterRegistry meterRegistry) {
+        return new ReplicaSynchronizer(dataSourcePools.getPrimary(), dataSourcePools.getReplica(), tracker,
+                properties.getReplicationInterval(), meterRegistry);
+    }
+
+    @Bean
+    public DataSource dataSource(DataSourcePools dataSourcePools, ReplicaConsistencyTracker tracker, MeterRegistry meterRegistry) {
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(dataSourcePools.getPrimary(),
+                dataSourcePools.getReplica(), tracker, meterRegistry);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+
+    @Bean
+    public JpaVendorAdapter jpaVendorAdapter(JpaProperties jpaProperties, DataSource dataSource) {
+        HibernateJpaVendorAdapter adapter = new HibernateJpaVendorAdapter();
+        adapter.setShowSql(jpaProperties.isShowSql());
+        adapter.setDatabase(jpaProperties.determineDatabase(dataSource));
+        adapter.setDatabasePlatform(jpaProperties.getDatabasePlatform());
+        adapter.setGenerateDdl(jpaProperties.isGenerateDdl());
+        // Hibernate then releases the connection after each transaction instead of holding it for the session, so a
+        // request that read from the replica cannot write through the same connection
+        adapter.setPrepareConnection(false);
+        return adapter;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public class DataSourceRoutingProperties {
+
+    private boolean enabled;
+    // Send a user's reads to the primary until the replica has caught up with their last write
+    private boolean readYourWrites = true;
+    // Delay between two runs of the replication stand-in
+    private Duration replicationInterval = Duration.ofMillis(500);
+    private final Replica replica = new Replica();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isReadYourWrites() {
+        return readYourWrites;
+    }
+
+    public void setReadYourWrites(boolean readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    public Duration getReplicationInterval() {
+        return replicationInterval;
+    }
+
+    public void setReplicationInterval(Duration replicationInterval) {
+        this.replicationInterval = replicationInterval;
+    }
+
+    public Replica getReplica() {
+        return replica;
+    }
+
+    public static class Replica {
+
+        private String url = "jdbc:h2:mem:bootapp-replica;DB_CLOSE_DELAY=-1";
+        private String username = "sa";
+        private String password = "";
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+    }
+}
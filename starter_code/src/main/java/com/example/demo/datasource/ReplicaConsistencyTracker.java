@@ -0,0 +1,86 @@
+package com.example.demo.datasource;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numbers every committed write to the primary and remembers which number the replica has applied, so the router can
+ * tell whether a user's last write is visible on the replica yet. Users whose writes have all been replicated are
+ * forgotten, which keeps the map as small as the set of users who wrote during the current replication lag.
+ */
+public class ReplicaConsistencyTracker {
+
+    private final AtomicLong writeVersion = new AtomicLong();
+    // The replica starts empty, the first synchronization has to run even without a recorded write
+    private final AtomicBoolean dirty = new AtomicBoolean(true);
+    private final ConcurrentHashMap<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final boolean readYourWrites;
+
+    private volatile long replicatedVersion = -1;
+    private volatile boolean replicaAvailable;
+
+    public ReplicaConsistencyTracker(boolean readYourWrites, MeterRegistry meterRegistry) {
+        this.readYourWrites = readYourWrites;
+        Gauge.builder("datasource.replication.lag", this, tracker -> tracker.writeVersion.get() - Math.max(tracker.replicatedVersion, 0))
+                .description("Writes committed on the primary and not yet applied to the replica")
+                .register(meterRegistry);
+        Gauge.builder("datasource.replication.pending.users", lastWriteByUser, ConcurrentHashMap::size)
+                .register(meterRegistry);
+    }
+
+    public void recordWrite(String username) {
+        long version = writeVersion.incrementAndGet();
+        if (readYourWrites && username != null) {
+            lastWriteByUser.merge(username, version, Math::max);
+        }
+        // Set after the version so a synchronization that clears the flag first always sees this write next time
+        dirty.set(true);
+    }
+
+    public boolean canReadFromReplica(String username) {
+        if (!replicaAvailable) {
+            return false;
+        }
+        if (!readYourWrites || username == null) {
+            return true;
+        }
+        Long lastWrite = lastWriteByUser.get(username);
+        return lastWrite == null || lastWrite <= replicatedVersion;
+    }
+
+    /**
+     * Starts a synchronization and takes the replica out of rotation.
+     *
+     * @return the write version the copy will include, or -1 when nothing was written since the last one
+     */
+    long beginReplication() {
+        if (!dirty.getAndSet(false)) {
+            return -1;
+        }
+        replicaAvailable = false;
+        return writeVersion.get();
+    }
+
+    void replicated(long version) {
+        replicatedVersion = version;
+        lastWriteByUser.values().removeIf(lastWrite -> lastWrite <= version);
+        replicaAvailable = true;
+    }
+
+    void replicationFailed() {
+        // Reads stay on the primary until a later run succeeds
+        dirty.set(true);
+    }
+
+    long getReplicatedVersion() {
+        return replicatedVersion;
+    }
+
+    boolean isReplicaAvailable() {
+        return replicaAvailable;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import javax.annotation.PreDestroy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in for database replication when both sides are local H2 databases: whenever the primary was written to, its
+ * {@code SCRIPT} is replayed into the emptied replica. The replica is out of rotation while it is rebuilt, so reads fall
+ * back to the primary instead of seeing a half-copied database.
+ */
+public class ReplicaSynchronizer {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSynchronizer.class);
+
+    private static final long DRAIN_TIMEOUT_MILLIS = 2_000;
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final ReplicaConsistencyTracker tracker;
+    private final Duration interval;
+    private final ScheduledExecutorService executor;
+
+    private final Timer duration;
+    private final Counter failures;
+
+    public ReplicaSynchronizer(HikariDataSource primary, HikariDataSource replica, ReplicaConsistencyTracker tracker,
+                               Duration interval, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.tracker = tracker;
+        this.interval = interval;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.duration = Timer.builder("datasource.replication").register(meterRegistry);
+        this.failures = Counter.builder("datasource.replication.failures").register(meterRegistry);
+    }
+
+    // Schema creation and data.sql are done by now, the first copy makes the replica usable
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor.execute(this::replicate);
+        executor.scheduleWithFixedDelay(this::replicate, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void replicate() {
+        long version = tracker.beginReplication();
+        if (version < 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        awaitIdleReplica();
+        try (Connection source = primary.getConnection();
+             Connection target = DriverManager.getConnection(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword());
+             Statement apply = target.createStatement()) {
+            apply.execute("DROP ALL OBJECTS");
+            try (Statement script = source.createStatement(); ResultSet statements = script.executeQuery("SCRIPT")) {
+                while (statements.next()) {
+                    apply.execute(statements.getString(1));
+                }
+            }
+            tracker.replicated(version);
+            duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        } catch (SQLException e) {
+            log.error("event=replica.sync outcome=failure error={}", e.getMessage());
+            failures.increment();
+            tracker.replicationFailed();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void awaitIdleReplica() {
+        // Reads already running on the replica finish before its tables are dropped
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        long deadline = System.currentTimeMillis() + DRAIN_TIMEOUT_MILLIS;
+        while (pool != null && pool.getActiveConnections() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
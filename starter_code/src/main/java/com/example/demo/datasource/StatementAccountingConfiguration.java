@@ -0,0 +1,43 @@
+package com.example.demo.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Per-request statement accounting, on unless {@code app.jdbc.accounting.enabled} is false. Every datasource bean is
+ * wrapped in a {@link StatementAccountingDataSource}; pool metrics still find the pool behind it.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.jdbc.accounting", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(StatementAccountingProperties.class)
+public class StatementAccountingConfiguration {
+
+    @Bean
+    public static BeanPostProcessor statementAccountingDataSourceWrapper() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource && !(bean instanceof StatementAccountingDataSource)
+                        ? new StatementAccountingDataSource((DataSource) bean) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<StatementAccountingFilter> statementAccountingFilter(StatementAccountingProperties properties,
+                                                                                       MeterRegistry meterRegistry) {
+        FilterRegistrationBean<StatementAccountingFilter> registration = new FilterRegistrationBean<>(
+                new StatementAccountingFilter(meterRegistry, properties.getRepeatThreshold(), properties.isResponseHeader()));
+        // Right after the latency filter, so the user lookup of a login is accounted as well
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.demo.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Pattern;
+
+/**
+ * Counts the statements, rows and execution time of connections taken while a {@link StatementStatistics} is bound
+ * to the thread. Connections taken outside a request, at startup or by background jobs, are returned as they are.
+ * Rows are the rows read through {@link ResultSet#next()} plus the update counts.
+ */
+public class StatementAccountingDataSource extends DelegatingDataSource {
+
+    // Literals of plain statements, replaced so that executions differing only by their values share one entry
+    private static final Pattern LITERALS = Pattern.compile("'(?:[^']|'')*'|\\b\\d+(?:\\.\\d+)?\\b");
+    // Hibernate runs inserts and updates through a batch, which carries no SQL of its own
+    private static final String BATCH = "(batch)";
+
+    public StatementAccountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return account(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return account(super.getConnection(username, password));
+    }
+
+    private static Connection account(Connection connection) {
+        StatementStatistics statistics = StatementStatistics.current();
+        return statistics == null ? connection : proxy(Connection.class, new ConnectionHandler(connection, statistics));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(StatementAccountingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private abstract static class AccountingHandler implements InvocationHandler {
+
+        final Object target;
+        final StatementStatistics statistics;
+
+        AccountingHandler(Object target, StatementStatistics statistics) {
+            this.target = target;
+            this.statistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                // Hibernate keys its statement and result set registries by these
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return handle(method, args);
+            }
+        }
+
+        abstract Object handle(Method method, Object[] args) throws Throwable;
+
+        Object delegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static class ConnectionHandler extends AccountingHandler {
+
+        ConnectionHandler(Connection target, StatementStatistics statistics) {
+            super(target, statistics);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class, new StatementHandler(delegate(method, args), null, statistics));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, new StatementHandler(delegate(method, args), (String) args[0], statistics));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, new StatementHandler(delegate(method, args), (String) args[0], statistics));
+                default:
+                    return delegate(method, args);
+            }
+        }
+    }
+
+    private static class StatementHandler extends AccountingHandler {
+
+        // Null for plain statements, which receive their SQL on execution
+        private final String sql;
+
+        StatementHandler(Object target, String sql, StatementStatistics statistics) {
+            super(target, statistics);
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "executeQuery":
+                    return proxy(ResultSet.class, new ResultSetHandler(execute(method, args), statistics));
+                case "execute":
+                    return execute(method, args);
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                    Number updated = (Number) execute(method, args);
+                    statistics.rows(updated.longValue());
+                    return updated;
+                case "executeBatch":
+                    int[] counts = (int[]) execute(method, args);
+                    for (int count : counts) {
+                        // Skips SUCCESS_NO_INFO and EXECUTE_FAILED
+                        statistics.rows(Math.max(count, 0));
+                    }
+                    return counts;
+                case "executeLargeBatch":
+                    long[] largeCounts = (long[]) execute(method, args);
+                    for (long count : largeCounts) {
+                        statistics.rows(Math.max(count, 0));
+                    }
+                    return largeCounts;
+                case "getResultSet":
+                    Object resultSet = delegate(method, args);
+                    return resultSet == null ? null : proxy(ResultSet.class, new ResultSetHandler(resultSet, statistics));
+                default:
+                    return delegate(method, args);
+            }
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                return delegate(method, args);
+            } finally {
+                statistics.executed(shape(args), System.nanoTime() - start);
+            }
+        }
+
+        private String shape(Object[] args) {
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                return LITERALS.matcher((String) args[0]).replaceAll("?");
+            }
+            return sql == null ? BATCH : sql;
+        }
+    }
+
+    private static class ResultSetHandler extends AccountingHandler {
+
+        ResultSetHandler(Object target, StatementStatistics statistics) {
+            super(target, statistics);
+        }
+
+        @Override
+        Object handle(Method method, Object[] args) throws Throwable {
+            Object result = delegate(method, args);
+            if (result == Boolean.TRUE && "next".equals(method.getName())) {
+                statistics.rows(1);
+            }
+            return result;
+        }
+    }
+}
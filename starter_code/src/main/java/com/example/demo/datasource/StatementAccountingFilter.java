@@ -0,0 +1,127 @@
+package com.example.demo.datasource;
+
+import com.example.demo.metrics.EndpointLatencyMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accounts the JDBC work of each request and records it per URI template as {@code http.server.requests.jdbc.*}.
+ * A statement run {@code repeat-threshold} times or more in one request is counted as
+ * {@code jdbc.statements.repeated} and logged the first time it is seen for an endpoint, as a likely N+1 query.
+ * When enabled, the {@value #HEADER} response header carries the numbers up to the moment the response is committed.
+ */
+public class StatementAccountingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "X-Sql-Statistics";
+
+    private static final Logger log = LoggerFactory.getLogger(StatementAccountingFilter.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatThreshold;
+    private final boolean responseHeader;
+    private final ConcurrentMap<String, EndpointMeters> meters = new ConcurrentHashMap<>();
+    private final Set<String> reportedRepeats = ConcurrentHashMap.newKeySet();
+
+    public StatementAccountingFilter(MeterRegistry meterRegistry, int repeatThreshold, boolean responseHeader) {
+        this.meterRegistry = meterRegistry;
+        this.repeatThreshold = repeatThreshold;
+        this.responseHeader = responseHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        StatementStatistics statistics = StatementStatistics.start();
+        HeaderWritingResponse headerWriting = responseHeader ? new HeaderWritingResponse(response, statistics) : null;
+        try {
+            chain.doFilter(request, headerWriting == null ? response : headerWriting);
+        } finally {
+            StatementStatistics.stop();
+            if (headerWriting != null) {
+                // Responses without a body are committed by the container after the filters
+                headerWriting.writeHeader();
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            record(pattern == null ? EndpointLatencyMetrics.UNKNOWN_URI : pattern.toString(), statistics);
+        }
+    }
+
+    private void record(String uri, StatementStatistics statistics) {
+        EndpointMeters endpoint = meters.computeIfAbsent(uri, key -> new EndpointMeters(meterRegistry, key));
+        endpoint.statements.record(statistics.getStatements());
+        endpoint.rows.record(statistics.getRows());
+        endpoint.time.record(statistics.getNanos(), TimeUnit.NANOSECONDS);
+
+        if (statistics.getStatements() < repeatThreshold) {
+            return;
+        }
+        for (Map.Entry<String, Integer> repeated : statistics.getRepeatedStatements(repeatThreshold).entrySet()) {
+            endpoint.repeated.increment();
+            if (reportedRepeats.add(uri + '\n' + repeated.getKey())) {
+                log.warn("event=jdbc.repeated_statement uri={} executions={} sql=\"{}\" hint=\"likely N+1 query\"",
+                        uri, repeated.getValue(), repeated.getKey());
+            }
+        }
+    }
+
+    static String format(StatementStatistics statistics) {
+        return String.format(Locale.ROOT, "statements=%d, rows=%d, time-ms=%.3f",
+                statistics.getStatements(), statistics.getRows(), statistics.getNanos() / 1e6);
+    }
+
+    private static final class EndpointMeters {
+
+        final DistributionSummary statements;
+        final DistributionSummary rows;
+        final Timer time;
+        final Counter repeated;
+
+        EndpointMeters(MeterRegistry registry, String uri) {
+            statements = DistributionSummary.builder("http.server.requests.jdbc.statements").tag("uri", uri).register(registry);
+            rows = DistributionSummary.builder("http.server.requests.jdbc.rows").tag("uri", uri).register(registry);
+            time = Timer.builder("http.server.requests.jdbc.time").tag("uri", uri).register(registry);
+            repeated = Counter.builder("jdbc.statements.repeated").tag("uri", uri).register(registry);
+        }
+    }
+
+    private static final class HeaderWritingResponse extends OnCommittedResponseWrapper {
+
+        private final StatementStatistics statistics;
+        private boolean written;
+
+        HeaderWritingResponse(HttpServletResponse response, StatementStatistics statistics) {
+            super(response);
+            this.statistics = statistics;
+        }
+
+        @Override
+        protected void onResponseCommitted() {
+            writeHeader();
+        }
+
+        void writeHeader() {
+            if (!written && !isCommitted()) {
+                written = true;
+                setHeader(HEADER, format(statistics));
+            }
+        }
+    }
+}
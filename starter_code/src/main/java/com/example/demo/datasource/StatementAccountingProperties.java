@@ -0,0 +1,37 @@
+package com.example.demo.datasource;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.jdbc.accounting")
+public class StatementAccountingProperties {
+
+    private boolean enabled = true;
+    // Executions of the same statement in one request from which it is reported as a likely N+1 query
+    private int repeatThreshold = 10;
+    // Adds the X-Sql-Statistics header to every response, meant for development
+    private boolean responseHeader;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRepeatThreshold() {
+        return repeatThreshold;
+    }
+
+    public void setRepeatThreshold(int repeatThreshold) {
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    public boolean isResponseHeader() {
+        return responseHeader;
+    }
+
+    public void setResponseHeader(boolean responseHeader) {
+        this.responseHeader = responseHeader;
+    }
+}
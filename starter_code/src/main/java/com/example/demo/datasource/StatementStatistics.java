@@ -0,0 +1,70 @@
+package com.example.demo.datasource;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The JDBC work done for one HTTP request: statements executed, rows read or updated, time spent executing and how
+ * many times each statement was run. Bound to the request thread by {@link StatementAccountingFilter} and filled in
+ * by {@link StatementAccountingDataSource}, so it is not thread-safe.
+ */
+public class StatementStatistics {
+
+    private static final ThreadLocal<StatementStatistics> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, int[]> executionsBySql = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long nanos;
+
+    static StatementStatistics start() {
+        StatementStatistics statistics = new StatementStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    static StatementStatistics current() {
+        return CURRENT.get();
+    }
+
+    static void stop() {
+        CURRENT.remove();
+    }
+
+    void executed(String sql, long elapsedNanos) {
+        statements++;
+        nanos += elapsedNanos;
+        executionsBySql.computeIfAbsent(sql, key -> new int[1])[0]++;
+    }
+
+    void rows(long count) {
+        rows += count;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Statements run at least {@code threshold} times, with their execution count. The SQL is the prepared statement
+     * text, or the statement text with its literals replaced by {@code ?}.
+     */
+    public Map<String, Integer> getRepeatedStatements(int threshold) {
+        Map<String, Integer> repeated = new LinkedHashMap<>();
+        executionsBySql.forEach((sql, executions) -> {
+            if (executions[0] >= threshold) {
+                repeated.put(sql, executions[0]);
+            }
+        });
+        return repeated;
+    }
+}
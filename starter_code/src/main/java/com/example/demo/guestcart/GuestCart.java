@@ -0,0 +1,121 @@
+package com.example.demo.guestcart;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The cart of a shopper who has not logged in, carried by the client in a signed token (see {@link GuestCartTokens})
+ * rather than stored. Holds item ids and quantities only; prices are looked up when the cart is shown.
+ */
+public class GuestCart {
+
+    // The token grows with every line, and every unit becomes a cart row when the cart is merged
+    public static final int MAX_LINES = 50;
+    public static final int MAX_QUANTITY = 100;
+
+    private final Map<Long, Integer> quantities = new LinkedHashMap<>();
+
+    @JsonProperty
+    private BigDecimal total;
+
+    // Set on carts read from a token: its id and expiry, in epoch millis
+    private String tokenId;
+    private long tokenExpiresAt;
+
+    /**
+     * @return false, changing nothing, when the cart would exceed {@link #MAX_LINES} or {@link #MAX_QUANTITY}
+     */
+    public boolean add(long itemId, int quantity) {
+        int current = quantities.getOrDefault(itemId, 0);
+        if (quantity <= 0 || current + quantity > MAX_QUANTITY || (current == 0 && quantities.size() >= MAX_LINES)) {
+            return false;
+        }
+        quantities.put(itemId, current + quantity);
+        return true;
+    }
+
+    /**
+     * Removes up to the quantity of the item.
+     *
+     * @return false, changing nothing, when the quantity is not positive
+     */
+    public boolean remove(long itemId, int quantity) {
+        if (quantity <= 0) {
+            return false;
+        }
+        int left = quantities.getOrDefault(itemId, 0) - quantity;
+        if (left <= 0) {
+            quantities.remove(itemId);
+        } else {
+            quantities.put(itemId, left);
+        }
+        return true;
+    }
+
+    public Map<Long, Integer> getQuantities() {
+        return Collections.unmodifiableMap(quantities);
+    }
+
+    public boolean isEmpty() {
+        return quantities.isEmpty();
+    }
+
+    @JsonProperty
+    public List<Line> getItems() {
+        List<Line> lines = new ArrayList<>(quantities.size());
+        quantities.forEach((itemId, quantity) -> lines.add(new Line(itemId, quantity)));
+        return lines;
+    }
+
+    public BigDecimal getTotal() {
+        return total;
+    }
+
+    public void setTotal(BigDecimal total) {
+        this.total = total;
+    }
+
+    @JsonIgnore
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    @JsonIgnore
+    public long getTokenExpiresAt() {
+        return tokenExpiresAt;
+    }
+
+    void setToken(String tokenId, long tokenExpiresAt) {
+        this.tokenId = tokenId;
+        this.tokenExpiresAt = tokenExpiresAt;
+    }
+
+    public static class Line {
+
+        @JsonProperty
+        private final long itemId;
+
+        @JsonProperty
+        private final int quantity;
+
+        Line(long itemId, int quantity) {
+            this.itemId = itemId;
+            this.quantity = quantity;
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
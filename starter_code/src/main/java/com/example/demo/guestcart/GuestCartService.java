@@ -0,0 +1,105 @@
+package com.example.demo.guestcart;
+
+import com.example.demo.inventory.InventoryService;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.GuestCartMerge;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.GuestCartMergeRepository;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Prices guest carts and moves them into a user's cart at login. Only the merge writes to the database.
+ */
+@Service
+public class GuestCartService {
+
+    private static final Logger log = LoggerFactory.getLogger(GuestCartService.class);
+
+    private final CartRepository cartRepository;
+    private final ItemRepository itemRepository;
+    private final GuestCartMergeRepository guestCartMergeRepository;
+    private final TransactionTemplate transactions;
+    // Absent when app.inventory.enabled is false
+    private final InventoryService inventoryService;
+
+    public GuestCartService(CartRepository cartRepository, ItemRepository itemRepository,
+                            GuestCartMergeRepository guestCartMergeRepository, PlatformTransactionManager transactionManager,
+                            ObjectProvider<InventoryService> inventoryService) {
+        this.cartRepository = cartRepository;
+        this.itemRepository = itemRepository;
+        this.guestCartMergeRepository = guestCartMergeRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.inventoryService = inventoryService.getIfAvailable();
+    }
+
+    /**
+     * Sets the total of the cart from the current prices, leaving out items that no longer exist.
+     */
+    public GuestCart price(GuestCart cart) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Item item : itemRepository.findAllById(cart.getQuantities().keySet())) {
+            total = total.add(item.getPrice().multiply(BigDecimal.valueOf(cart.getQuantities().get(item.getId()))));
+        }
+        cart.setTotal(total);
+        return cart;
+    }
+
+    /**
+     * Adds the guest cart to the user's cart in one transaction. Items deleted since they were added, and items out of
+     * stock, are left out. A cart token is merged once: presenting it again, with a retried login or from another
+     * device, adds nothing. Two logins merging the same token at the same time conflict on its record, and the second
+     * one fails and rolls back.
+     *
+     * @return the number of units added
+     */
+    public int merge(long cartId, GuestCart guestCart) {
+        if (guestCart.isEmpty()) {
+            return 0;
+        }
+        Integer merged = transactions.execute(status -> {
+            Optional<Cart> cart = cartRepository.findWithItemsById(cartId);
+            if (!cart.isPresent()) {
+                return 0;
+            }
+            if (guestCart.getTokenId() != null) {
+                guestCartMergeRepository.deleteExpired(System.currentTimeMillis());
+                if (guestCartMergeRepository.existsById(guestCart.getTokenId())) {
+                    log.info("event=guest_cart.merge outcome=already_merged cartId={}", cartId);
+                    return 0;
+                }
+                guestCartMergeRepository.save(new GuestCartMerge(guestCart.getTokenId(), cartId, guestCart.getTokenExpiresAt()));
+            }
+            Map<Long, Item> items = itemRepository.findAllById(guestCart.getQuantities().keySet()).stream()
+                    .collect(Collectors.toMap(Item::getId, Function.identity()));
+            int units = 0;
+            for (Map.Entry<Long, Integer> line : guestCart.getQuantities().entrySet()) {
+                Item item = items.get(line.getKey());
+                if (item == null || (inventoryService != null && !inventoryService.reserve(cartId, item.getId(), line.getValue()))) {
+                    log.warn("event=guest_cart.merge outcome=item_skipped cartId={} itemId={}", cartId, line.getKey());
+                    continue;
+                }
+                for (int i = 0; i < line.getValue(); i++) {
+                    cart.get().addItem(item);
+                }
+                units += line.getValue();
+            }
+            cartRepository.save(cart.get());
+            return units;
+        });
+        log.info("event=guest_cart.merge outcome=success cartId={} units={}", cartId, merged);
+        return merged;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.guestcart;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.Clock;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.demo.security.SecurityConstants;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Signs guest carts into compact JWTs, HMAC512 like the login tokens: the item ids and the quantities are two parallel
+ * array claims. The key is derived from the login secret but differs from it, so a cart token can never pass for a
+ * login token or the other way round. Every token gets its own id, so that a merged token is recognised when it is
+ * presented again.
+ */
+@Component
+public class GuestCartTokens {
+
+    private static final String ITEMS_CLAIM = "i";
+    private static final String QUANTITIES_CLAIM = "q";
+
+    private final Algorithm algorithm;
+    private final long expirationMillis;
+    private final LongSupplier millisClock;
+    private final JWTVerifier verifier;
+
+    public GuestCartTokens() {
+        this(SecurityConstants.GUEST_CART_EXPIRATION_TIME, System::currentTimeMillis);
+    }
+
+    GuestCartTokens(long expirationMillis, LongSupplier millisClock) {
+        this.algorithm = Algorithm.HMAC512((SecurityConstants.SECRET + "/guest-cart").getBytes());
+        this.expirationMillis = expirationMillis;
+        this.millisClock = millisClock;
+        Clock clock = () -> new Date(millisClock.getAsLong());
+        this.verifier = ((JWTVerifier.BaseVerification) JWT.require(algorithm)).build(clock);
+    }
+
+    /**
+     * @return the signed cart, valid for {@link SecurityConstants#GUEST_CART_EXPIRATION_TIME} from now
+     */
+    public String sign(GuestCart cart) {
+        Map<Long, Integer> quantities = cart.getQuantities();
+        Long[] itemIds = new Long[quantities.size()];
+        Integer[] counts = new Integer[quantities.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            itemIds[i] = line.getKey();
+            counts[i++] = line.getValue();
+        }
+        return JWT.create()
+                .withArrayClaim(ITEMS_CLAIM, itemIds)
+                .withArrayClaim(QUANTITIES_CLAIM, counts)
+                .withJWTId(UUID.randomUUID().toString())
+                .withExpiresAt(new Date(millisClock.getAsLong() + expirationMillis))
+                .sign(algorithm);
+    }
+
+    /**
+     * @throws JWTVerificationException when the token is forged, expired or does not hold a valid cart
+     */
+    public GuestCart verify(String token) {
+        DecodedJWT jwt = verifier.verify(token);
+        Long[] itemIds = jwt.getClaim(ITEMS_CLAIM).asArray(Long.class);
+        Integer[] counts = jwt.getClaim(QUANTITIES_CLAIM).asArray(Integer.class);
+        if (itemIds == null || counts == null || itemIds.length != counts.length) {
+            throw new JWTVerificationException("Not a guest cart");
+        }
+        GuestCart cart = new GuestCart();
+        for (int i = 0; i < itemIds.length; i++) {
+            if (itemIds[i] == null || counts[i] == null || !cart.add(itemIds[i], counts[i])) {
+                throw new JWTVerificationException("Not a guest cart");
+            }
+        }
+        // Tokens signed before ids were added are told apart by their signature
+        cart.setToken(jwt.getId() != null ? jwt.getId() : jwt.getSignature(), jwt.getExpiresAt().getTime());
+        return cart;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.demo.inventory;
+
+import com.example.demo.model.persistence.repositories.ItemStockRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stock tracking for the items that have an {@code item_stock} row, on unless {@code app.inventory.enabled} is false.
+ * Stock is added through {@code POST /api/admin/inventory/{itemId}/restock}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.inventory", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(InventoryProperties.class)
+public class InventoryConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public InventoryService inventoryService(ItemStockRepository itemStockRepository, PlatformTransactionManager transactionManager,
+                                             InventoryProperties properties, MeterRegistry meterRegistry) {
+        return new InventoryService(itemStockRepository, new TransactionTemplate(transactionManager), properties, meterRegistry);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.inventory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.inventory")
+public class InventoryProperties {
+
+    private boolean enabled = true;
+    // How long units added to a cart stay reserved without the cart being touched
+    private Duration reservationTtl = Duration.ofMinutes(15);
+    // Counters per stock tracked item, more spread the buyers of a hot item over more cache lines
+    private int shards = 8;
+    // How often sold units are written to item_stock and expired reservations are released
+    private Duration reconcileInterval = Duration.ofSeconds(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getReservationTtl() {
+        return reservationTtl;
+    }
+
+    public void setReservationTtl(Duration reservationTtl) {
+        this.reservationTtl = reservationTtl;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public Duration getReconcileInterval() {
+        return reconcileInterval;
+    }
+
+    public void setReconcileInterval(Duration reconcileInterval) {
+        this.reconcileInterval = reconcileInterval;
+    }
+}
@@ -0,0 +1,356 @@
+package com.example.demo.inventory;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.ItemStock;
+import com.example.demo.model.persistence.repositories.ItemStockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Stock of the items that have an {@link ItemStock} row. The units free to reserve live in memory, in a
+ * {@link StockCounter} per item, so reserving a hot item takes no database lock. Adding an item to a cart reserves
+ * units for the cart; submitting the cart sells them, and the sales are subtracted from {@code item_stock} every
+ * {@code reconcile-interval} and at shutdown. Reservations of a cart untouched for {@code reservation-ttl} are given
+ * back to the counters.
+ * <p>
+ * The counters are loaded from {@code item_stock} at startup and are authoritative for this instance; stock is added
+ * through {@link #restock(long, long)}, which writes both. Sales not reconciled before a crash are lost from
+ * {@code item_stock}, at most one interval's worth.
+ */
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private final ItemStockRepository itemStockRepository;
+    private final TransactionTemplate transactions;
+    private final int shards;
+    private final long ttlMillis;
+    private final long reconcileMillis;
+    private final LongSupplier millisClock;
+    private final ConcurrentMap<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    // Sold units not yet subtracted from item_stock
+    private final ConcurrentMap<Long, LongAdder> unreconciled = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, CartReservation> reservations = new ConcurrentHashMap<>();
+
+    private final Counter reserved;
+    private final Counter rejected;
+    private final Counter expired;
+
+    private ScheduledExecutorService scheduler;
+
+    public InventoryService(ItemStockRepository itemStockRepository, TransactionTemplate transactions,
+                            InventoryProperties properties, MeterRegistry meterRegistry) {
+        this(itemStockRepository, transactions, properties, meterRegistry, System::currentTimeMillis);
+    }
+
+    InventoryService(ItemStockRepository itemStockRepository, TransactionTemplate transactions,
+                     InventoryProperties properties, MeterRegistry meterRegistry, LongSupplier millisClock) {
+        this.itemStockRepository = itemStockRepository;
+        this.transactions = transactions;
+        this.shards = properties.getShards();
+        this.ttlMillis = properties.getReservationTtl().toMillis();
+        this.reconcileMillis = properties.getReconcileInterval().toMillis();
+        this.millisClock = millisClock;
+        this.reserved = Counter.builder("inventory.reservations").tag("outcome", "reserved").register(meterRegistry);
+        this.rejected = Counter.builder("inventory.reservations").tag("outcome", "out_of_stock").register(meterRegistry);
+        this.expired = Counter.builder("inventory.reservations").tag("outcome", "expired").register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        for (ItemStock stock : itemStockRepository.findAll()) {
+            counter(stock.getItemId()).put(stock.getQuantity());
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::maintain, reconcileMillis, reconcileMillis, TimeUnit.MILLISECONDS);
+        log.info("event=inventory.start outcome=success items={}", counters.size());
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            scheduler = null;
+        }
+        reconcile();
+    }
+
+    /**
+     * Reserves units of the item for the cart and extends the cart's reservations.
+     *
+     * @return false when the item is out of stock; an item that is not stock tracked is always available
+     */
+    public boolean reserve(long cartId, long itemId, int quantity) {
+        StockCounter counter = counters.get(itemId);
+        if (counter == null || quantity <= 0) {
+            return true;
+        }
+        if (!counter.tryTake(quantity)) {
+            rejected.increment();
+            return false;
+        }
+        while (true) {
+            CartReservation reservation = reservations.computeIfAbsent(cartId, id -> new CartReservation());
+            synchronized (reservation) {
+                if (!reservation.released) {
+                    reservation.units.merge(itemId, (long) quantity, Long::sum);
+                    reservation.expiresAt = millisClock.getAsLong() + ttlMillis;
+                    break;
+                }
+            }
+            // Expired meanwhile, replaced by a fresh one
+            reservations.remove(cartId, reservation);
+        }
+        reserved.increment();
+        // A cart update that rolls back does not keep the units
+        onRollback(() -> releaseNow(cartId, itemId, quantity));
+        return true;
+    }
+
+    /**
+     * Gives back up to the quantity of the cart's reserved units of the item once the current transaction commits, so
+     * that a cart update that rolls back keeps them. A quantity that is not positive releases nothing.
+     */
+    public void release(long cartId, long itemId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+        afterCommit(() -> releaseNow(cartId, itemId, quantity));
+    }
+
+    private void releaseNow(long cartId, long itemId, int quantity) {
+        CartReservation reservation = reservations.get(cartId);
+        StockCounter counter = counters.get(itemId);
+        if (reservation == null || counter == null || quantity <= 0) {
+            return;
+        }
+        synchronized (reservation) {
+            if (reservation.released) {
+                return;
+            }
+            counter.put(reservation.take(itemId, quantity));
+        }
+    }
+
+    /**
+     * Sells the items, which are the cart's, using the units reserved for the cart and taking more where they expired
+     * or were never reserved. Sold units are given back if the current transaction rolls back.
+     *
+     * @return false, selling nothing, when an item is out of stock
+     */
+    public boolean commit(long cartId, List<Item> items) {
+        Map<Long, Long> wanted = trackedUnits(ids(items));
+        if (wanted.isEmpty()) {
+            return true;
+        }
+        CartReservation reservation = reservations.get(cartId);
+        if (reservation == null) {
+            reservation = new CartReservation();
+        }
+        synchronized (reservation) {
+            Map<Long, Long> fromCounters = new HashMap<>();
+            for (Map.Entry<Long, Long> item : wanted.entrySet()) {
+                long missing = item.getValue() - (reservation.released ? 0 : reservation.units.getOrDefault(item.getKey(), 0L));
+                if (missing > 0) {
+                    if (!counters.get(item.getKey()).tryTake(missing)) {
+                        fromCounters.forEach((itemId, units) -> counters.get(itemId).put(units));
+                        rejected.increment();
+                        return false;
+                    }
+                    fromCounters.put(item.getKey(), missing);
+                }
+            }
+            if (!reservation.released) {
+                wanted.forEach(reservation::take);
+            }
+        }
+
+        afterCommit(() -> addSold(wanted, 1));
+        onRollback(() -> wanted.forEach((itemId, units) -> counters.get(itemId).put(units)));
+        return true;
+    }
+
+    /**
+     * Gives back the units of items sold by {@link #commit(long, List)} whose order was not placed after all.
+     */
+    public void restore(List<Item> items) {
+        restoreItemIds(ids(items));
+    }
+
+    /**
+     * Same as {@link #restore(List)} for an order known by its item ids, such as one that failed to be written after
+     * it was accepted.
+     */
+    public void restoreItemIds(List<Long> itemIds) {
+        Map<Long, Long> units = trackedUnits(itemIds);
+        units.forEach((itemId, count) -> counters.get(itemId).put(count));
+        addSold(units, -1);
+    }
+
+    /**
+     * Adds units of the item, which becomes stock tracked if it was not.
+     */
+    public void restock(long itemId, long quantity) {
+        transactions.execute(status -> {
+            if (itemStockRepository.addQuantity(itemId, quantity) == 0) {
+                itemStockRepository.save(new ItemStock(itemId, quantity));
+            }
+            return null;
+        });
+        counter(itemId).put(quantity);
+        log.info("event=inventory.restock outcome=success itemId={} quantity={}", itemId, quantity);
+    }
+
+    /**
+     * @return the units free to reserve, or -1 when the item is not stock tracked
+     */
+    public long getAvailable(long itemId) {
+        StockCounter counter = counters.get(itemId);
+        return counter == null ? -1 : counter.available();
+    }
+
+    void maintain() {
+        try {
+            expireReservations();
+            reconcile();
+        } catch (RuntimeException e) {
+            log.error("event=inventory.reconcile outcome=failed", e);
+        }
+    }
+
+    void expireReservations() {
+        long now = millisClock.getAsLong();
+        for (Iterator<CartReservation> it = reservations.values().iterator(); it.hasNext(); ) {
+            CartReservation reservation = it.next();
+            synchronized (reservation) {
+                if (reservation.expiresAt > now) {
+                    continue;
+                }
+                reservation.released = true;
+                reservation.units.forEach((itemId, units) -> counters.get(itemId).put(units));
+                reservation.units.clear();
+            }
+            it.remove();
+            expired.increment();
+        }
+    }
+
+    // Subtracts the units sold since the last run from item_stock
+    synchronized void reconcile() {
+        Map<Long, Long> sold = new HashMap<>();
+        unreconciled.forEach((itemId, units) -> {
+            long sum = units.sumThenReset();
+            if (sum != 0) {
+                sold.put(itemId, sum);
+            }
+        });
+        if (sold.isEmpty()) {
+            return;
+        }
+        try {
+            transactions.execute(status -> {
+                sold.forEach((itemId, units) -> itemStockRepository.addQuantity(itemId, -units));
+                return null;
+            });
+        } catch (RuntimeException e) {
+            // Tried again with the next run
+            addSold(sold, 1);
+            throw e;
+        }
+        log.info("event=inventory.reconcile outcome=success items={}", sold.size());
+    }
+
+    private void addSold(Map<Long, Long> units, int sign) {
+        units.forEach((itemId, count) -> unreconciled.computeIfAbsent(itemId, id -> new LongAdder()).add(sign * count));
+    }
+
+    private StockCounter counter(long itemId) {
+        return counters.computeIfAbsent(itemId, id -> new StockCounter(shards));
+    }
+
+    private Map<Long, Long> trackedUnits(List<Long> itemIds) {
+        Map<Long, Long> units = new HashMap<>();
+        for (Long itemId : itemIds) {
+            if (counters.containsKey(itemId)) {
+                units.merge(itemId, 1L, Long::sum);
+            }
+        }
+        return units;
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static void onRollback(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+                        action.run();
+                    }
+                }
+            });
+        }
+    }
+
+    // Units reserved for a cart; guarded by its own monitor
+    private static final class CartReservation {
+
+        final Map<Long, Long> units = new HashMap<>();
+        long expiresAt;
+        // Set once expired, a released reservation is replaced instead of added to
+        boolean released;
+
+        // Removes up to the units of the item and answers how many were removed
+        long take(long itemId, long wanted) {
+            if (wanted <= 0) {
+                return 0;
+            }
+            long held = units.getOrDefault(itemId, 0L);
+            long taken = Math.min(held, wanted);
+            if (held - taken == 0) {
+                units.remove(itemId);
+            } else {
+                units.put(itemId, held - taken);
+            }
+            return taken;
+        }
+    }
+}
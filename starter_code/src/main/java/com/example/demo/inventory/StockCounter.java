@@ -0,0 +1,74 @@
+package com.example.demo.inventory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Units of one item that are free to reserve, split over shards so that buyers of a hot item compare-and-set
+ * different cache lines instead of one. A shard never goes below zero, so the item is never oversold, and a taker
+ * that finds its own shard short moves on to the others.
+ */
+class StockCounter {
+
+    // Longs per shard, so that neighbouring shards do not share a 64 byte cache line
+    private static final int STRIDE = 8;
+    // A take that fails while other takers hold units they are about to give back is tried again
+    private static final int ATTEMPTS = 3;
+
+    private final AtomicLongArray shards;
+    private final int shardCount;
+
+    StockCounter(int shardCount) {
+        this.shardCount = shardCount;
+        this.shards = new AtomicLongArray(shardCount * STRIDE);
+    }
+
+    /**
+     * Takes the units, all of them or none.
+     */
+    boolean tryTake(long units) {
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            int home = ThreadLocalRandom.current().nextInt(shardCount);
+            long taken = 0;
+            for (int i = 0; i < shardCount && taken < units; i++) {
+                taken += takeFrom((home + i) % shardCount, units - taken);
+            }
+            if (taken == units) {
+                return true;
+            }
+            put(taken);
+            if (available() < units) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    void put(long units) {
+        if (units > 0) {
+            shards.getAndAdd(ThreadLocalRandom.current().nextInt(shardCount) * STRIDE, units);
+        }
+    }
+
+    long available() {
+        long available = 0;
+        for (int shard = 0; shard < shardCount; shard++) {
+            available += shards.get(shard * STRIDE);
+        }
+        return available;
+    }
+
+    private long takeFrom(int shard, long wanted) {
+        int index = shard * STRIDE;
+        while (true) {
+            long units = shards.get(index);
+            if (units == 0) {
+                return 0;
+            }
+            long taken = Math.min(units, wanted);
+            if (shards.compareAndSet(index, units, units - taken)) {
+                return taken;
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.demo.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Times every request from before the security filters to the end of the response and records it under the URI
+ * template the request was mapped to. Requests that never reached a controller, such as rejected logins or unknown
+ * paths, are recorded as {@code UNKNOWN}.
+ */
+public class EndpointLatencyFilter extends OncePerRequestFilter {
+
+    private final EndpointLatencyMetrics metrics;
+
+    public EndpointLatencyFilter(EndpointLatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = false;
+        } finally {
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            metrics.record(request.getMethod(), pattern == null ? EndpointLatencyMetrics.UNKNOWN_URI : pattern.toString(),
+                    failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : response.getStatus(), System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.demo.metrics;
+
+import io.prometheus.client.Collector;
+import org.springframework.http.HttpMethod;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Request latency per endpoint (HTTP method and URI template) and outcome, kept in {@link LatencyHistogram}s and
+ * published as the {@code http_server_requests_latency_seconds} summary with p50, p99 and p999 over the recent window,
+ * plus a {@code _max} gauge, whenever the Prometheus registry is scraped.
+ */
+public class EndpointLatencyMetrics extends Collector {
+
+    static final String METRIC_NAME = "http_server_requests_latency_seconds";
+    public static final String UNKNOWN_URI = "UNKNOWN";
+
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final String[] OUTCOMES = {"INFORMATIONAL", "SUCCESS", "REDIRECTION", "CLIENT_ERROR", "SERVER_ERROR"};
+    private static final HttpMethod[] METHODS = HttpMethod.values();
+    // One slot per known HTTP method and outcome, plus a shared slot for methods a client made up
+    private static final int SLOTS = (METHODS.length + 1) * OUTCOMES.length;
+    private static final List<String> LABEL_NAMES = Arrays.asList("method", "uri", "outcome");
+    private static final List<String> QUANTILE_LABEL_NAMES = Arrays.asList("method", "uri", "outcome", "quantile");
+
+    private final ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>> endpoints = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    public EndpointLatencyMetrics(Duration window) {
+        this(window, System::nanoTime);
+    }
+
+    EndpointLatencyMetrics(Duration window, LongSupplier nanoClock) {
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public void record(String method, String uri, int status, long nanos) {
+        AtomicReferenceArray<LatencyHistogram> slots = endpoints.computeIfAbsent(uri, key -> new AtomicReferenceArray<>(SLOTS));
+        HttpMethod httpMethod = HttpMethod.resolve(method);
+        int outcome = Math.min(Math.max(status / 100, 1), OUTCOMES.length) - 1;
+        int slot = (httpMethod == null ? METHODS.length : httpMethod.ordinal()) * OUTCOMES.length + outcome;
+
+        LatencyHistogram histogram = slots.get(slot);
+        if (histogram == null) {
+            slots.compareAndSet(slot, null, new LatencyHistogram(nanoClock.getAsLong()));
+            histogram = slots.get(slot);
+        }
+        histogram.record(nanos);
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        long now = nanoClock.getAsLong();
+        List<MetricFamilySamples.Sample> summary = new ArrayList<>();
+        List<MetricFamilySamples.Sample> max = new ArrayList<>();
+        for (Map.Entry<String, AtomicReferenceArray<LatencyHistogram>> endpoint : endpoints.entrySet()) {
+            AtomicReferenceArray<LatencyHistogram> slots = endpoint.getValue();
+            for (int slot = 0; slot < SLOTS; slot++) {
+                LatencyHistogram histogram = slots.get(slot);
+                if (histogram == null) {
+                    continue;
+                }
+                int methodIndex = slot / OUTCOMES.length;
+                String method = methodIndex < METHODS.length ? METHODS[methodIndex].name() : "OTHER";
+                List<String> labels = Arrays.asList(method, endpoint.getKey(), OUTCOMES[slot % OUTCOMES.length]);
+                LatencyHistogram.Snapshot snapshot = histogram.snapshot(now, windowNanos);
+
+                for (double quantile : QUANTILES) {
+                    List<String> quantileLabels = new ArrayList<>(labels);
+                    quantileLabels.add(doubleToGoString(quantile));
+                    summary.add(new MetricFamilySamples.Sample(METRIC_NAME, QUANTILE_LABEL_NAMES, quantileLabels,
+                            snapshot.getValueAtQuantile(quantile) / NANOSECONDS_PER_SECOND));
+                }
+                summary.add(new MetricFamilySamples.Sample(METRIC_NAME + "_count", LABEL_NAMES, labels, snapshot.getCount()));
+                summary.add(new MetricFamilySamples.Sample(METRIC_NAME + "_sum", LABEL_NAMES, labels,
+                        snapshot.getSumNanos() / NANOSECONDS_PER_SECOND));
+                max.add(new MetricFamilySamples.Sample(METRIC_NAME + "_max", LABEL_NAMES, labels,
+                        snapshot.getMaxNanos() / NANOSECONDS_PER_SECOND));
+            }
+        }
+        if (summary.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Arrays.asList(
+                new MetricFamilySamples(METRIC_NAME, Type.SUMMARY, "Request latency by endpoint and outcome", summary),
+                new MetricFamilySamples(METRIC_NAME + "_max", Type.GAUGE, "Slowest request in the recent window", max));
+    }
+}
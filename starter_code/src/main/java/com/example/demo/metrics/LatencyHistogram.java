@@ -0,0 +1,93 @@
+package com.example.demo.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency distribution of one endpoint and outcome. Request threads record into an HdrHistogram {@link Recorder},
+ * which is wait-free for writers; readers swap out its interval histogram and fold it into the current window.
+ * Quantiles cover the current and the previous window, count and sum everything since startup.
+ */
+class LatencyHistogram {
+
+    static final long LOWEST_NANOS = 1_000;
+    static final long HIGHEST_NANOS = 60_000_000_000L;
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final Recorder recorder = new Recorder(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    private final LongAdder sumNanos = new LongAdder();
+
+    // Guarded by this, only touched on the read side
+    private Histogram interval;
+    private Histogram current = newHistogram();
+    private Histogram previous = newHistogram();
+    private long windowStart;
+    private long totalCount;
+
+    LatencyHistogram(long now) {
+        this.windowStart = now;
+    }
+
+    private static Histogram newHistogram() {
+        return new Histogram(LOWEST_NANOS, HIGHEST_NANOS, SIGNIFICANT_DIGITS);
+    }
+
+    void record(long nanos) {
+        // Values outside the trackable range would throw; a minute is already far past any timeout
+        recorder.recordValue(Math.max(LOWEST_NANOS, Math.min(nanos, HIGHEST_NANOS)));
+        sumNanos.add(nanos);
+    }
+
+    synchronized Snapshot snapshot(long now, long windowNanos) {
+        interval = recorder.getIntervalHistogram(interval);
+        totalCount += interval.getTotalCount();
+        if (now - windowStart >= 2 * windowNanos) {
+            // Idle for more than a whole window, nothing recorded before it is recent any more
+            previous.reset();
+            current.reset();
+            windowStart = now;
+        } else if (now - windowStart >= windowNanos) {
+            Histogram expired = previous;
+            previous = current;
+            current = expired;
+            current.reset();
+            windowStart += windowNanos;
+        }
+        current.add(interval);
+
+        Histogram recent = previous.copy();
+        recent.add(current);
+        return new Snapshot(totalCount, sumNanos.sum(), recent);
+    }
+
+    static class Snapshot {
+
+        private final long count;
+        private final long sumNanos;
+        private final Histogram recent;
+
+        private Snapshot(long count, long sumNanos, Histogram recent) {
+            this.count = count;
+            this.sumNanos = sumNanos;
+            this.recent = recent;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        long getSumNanos() {
+            return sumNanos;
+        }
+
+        long getValueAtQuantile(double quantile) {
+            return recent.getTotalCount() == 0 ? 0 : recent.getValueAtPercentile(quantile * 100);
+        }
+
+        long getMaxNanos() {
+            return recent.getTotalCount() == 0 ? 0 : recent.getMaxValue();
+        }
+    }
+}
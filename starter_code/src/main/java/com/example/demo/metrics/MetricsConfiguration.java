@@ -0,0 +1,39 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.prometheus.client.CollectorRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Request latency per endpoint and repository call timings, published with the rest of the meters at
+ * {@code /actuator/prometheus}. Endpoint latency replaces Spring Boot's own {@code http.server.requests} timer, which
+ * builds its tags and looks its timer up on every request.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public EndpointLatencyMetrics endpointLatencyMetrics(CollectorRegistry collectorRegistry,
+                                                         @Value("${app.metrics.latency-window:1m}") Duration window) {
+        return new EndpointLatencyMetrics(window).register(collectorRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<EndpointLatencyFilter> endpointLatencyFilter(EndpointLatencyMetrics metrics) {
+        FilterRegistrationBean<EndpointLatencyFilter> registration = new FilterRegistrationBean<>(new EndpointLatencyFilter(metrics));
+        // Ahead of Spring Security, so rejected requests are timed as well
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public RepositoryMetricsAspect repositoryMetricsAspect(MeterRegistry meterRegistry) {
+        return new RepositoryMetricsAspect(meterRegistry);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.repository.Repository;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call into a Spring Data repository as {@code spring.data.repository.invocations}, tagged with the
+ * repository interface, the method and whether it returned or threw. The timers for successful calls are resolved
+ * once per repository method so a call only pays for the map lookups and the recording.
+ */
+@Aspect
+public class RepositoryMetricsAspect {
+
+    static final String METRIC_NAME = "spring.data.repository.invocations";
+
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<Class<?>, Map<Method, Timer>> timers = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        long start = meterRegistry.config().clock().monotonicTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            timer(joinPoint, e).record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        successTimer(joinPoint).record(meterRegistry.config().clock().monotonicTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    private Timer successTimer(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return timers.computeIfAbsent(joinPoint.getTarget().getClass(), targetClass -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> timer(joinPoint, null));
+    }
+
+    private Timer timer(ProceedingJoinPoint joinPoint, Throwable exception) {
+        return Timer.builder(METRIC_NAME)
+                .tag("repository", repositoryName(joinPoint.getTarget().getClass()))
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("state", exception == null ? "SUCCESS" : "ERROR")
+                .tag("exception", exception == null ? "None" : exception.getClass().getSimpleName())
+                .register(meterRegistry);
+    }
+
+    // Repositories are JDK proxies; the first repository interface they implement is the one the application declared
+    public static String repositoryName(Class<?> targetClass) {
+        return Arrays.stream(targetClass.getInterfaces())
+                .filter(Repository.class::isAssignableFrom)
+                .findFirst()
+                .map(Class::getSimpleName)
+                .orElse(targetClass.getSimpleName());
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.demo.model.persistence;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.math.BigDecimal;
@@ -18,6 +20,9 @@ public class Cart {
     private Long id;
 
     @ManyToMany
+    // Same index as the V6 migration, for schemas generated by Hibernate: finds the carts holding an item
+    @JoinTable(name = "cart_items", indexes = @Index(name = "idx_cart_items_item", columnList = "items_id"))
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JsonProperty
     @Column
     private List<Item> items;
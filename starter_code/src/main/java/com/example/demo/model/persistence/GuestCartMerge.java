@@ -0,0 +1,48 @@
+package com.example.demo.model.persistence;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+/**
+ * A guest cart token already merged into a user's cart, kept until the token expires so that logging in again with it
+ * merges nothing. Written by {@code GuestCartService} in the merge transaction.
+ */
+@Entity
+@Table(name = "guest_cart_merge", indexes = @Index(name = "idx_guest_cart_merge_expires_at", columnList = "expires_at"))
+public class GuestCartMerge {
+
+    @Id
+    @Column(name = "token_id", length = 64)
+    private String tokenId;
+
+    @Column(name = "cart_id", nullable = false)
+    private long cartId;
+
+    // Epoch millis, the expiry of the token
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;
+
+    protected GuestCartMerge() {
+    }
+
+    public GuestCartMerge(String tokenId, long cartId, long expiresAt) {
+        this.tokenId = tokenId;
+        this.cartId = cartId;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public long getCartId() {
+        return cartId;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.model.persistence;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Units of an item on hand. Items without a row are not stock tracked and can always be ordered. Sales are
+ * subtracted in batches by {@code InventoryService}, which keeps the live count in memory.
+ */
+@Entity
+@Table(name = "item_stock")
+public class ItemStock {
+
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(nullable = false)
+    private long quantity;
+
+    protected ItemStock() {
+    }
+
+    public ItemStock(long itemId, long quantity) {
+        this.itemId = itemId;
+        this.quantity = quantity;
+    }
+
+    public Long getItemId() {
+        return itemId;
+    }
+
+    public long getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(long quantity) {
+        this.quantity = quantity;
+    }
+}
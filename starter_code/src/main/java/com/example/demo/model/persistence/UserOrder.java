@@ -1,6 +1,7 @@
 package com.example.demo.model.persistence;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -14,8 +15,11 @@ import javax.persistence.JoinColumn;
 import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.ManyToOne;
+import javax.persistence.PrePersist;
 import javax.persistence.Table;
 
+import com.example.demo.profiling.OrderCreationEvent;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 @Entity
@@ -42,6 +46,15 @@ public class UserOrder {
 	@Column
 	private BigDecimal total;
 
+	// Journal sequence of an order accepted asynchronously, so a replay can tell which ones were already written
+	@JsonIgnore
+	@Column(name = "intake_sequence", unique = true)
+	private Long intakeSequence;
+
+	@JsonProperty
+	@Column(name = "created_at")
+	private Instant createdAt;
+
 	public Long getId() {
 		return id;
 	}
@@ -74,11 +87,36 @@ public class UserOrder {
 		this.total = total;
 	}
 
+	public Long getIntakeSequence() {
+		return intakeSequence;
+	}
+
+	public void setIntakeSequence(Long intakeSequence) {
+		this.intakeSequence = intakeSequence;
+	}
+
+	public Instant getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(Instant createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	@PrePersist
+	void onPersist() {
+		if (createdAt == null) {
+			createdAt = Instant.now();
+		}
+	}
+
 	public static UserOrder createFromCart(Cart cart) {
+		OrderCreationEvent event = OrderCreationEvent.start();
 		UserOrder order = new UserOrder();
 		order.setItems(cart.getItems().stream().collect(Collectors.toList()));
 		order.setTotal(cart.getTotal());
 		order.setUser(cart.getUser());
+		event.end(order.getItems().size());
 		return order;
 	}
 	
@@ -0,0 +1,94 @@
+package com.example.demo.model.persistence;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * Order count, lifetime spend and last order of a user, kept up to date by every order insert so that the account
+ * page reads one row instead of the whole order history.
+ */
+@Entity
+@Table(name = "user_order_summary")
+public class UserOrderSummary {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "order_count", nullable = false)
+    @JsonProperty
+    private long orderCount;
+
+    @Column(name = "total_spent", nullable = false)
+    @JsonProperty
+    private BigDecimal totalSpent = BigDecimal.ZERO;
+
+    @Column(name = "last_order_id")
+    @JsonProperty
+    private Long lastOrderId;
+
+    @Column(name = "last_order_total")
+    @JsonProperty
+    private BigDecimal lastOrderTotal;
+
+    @Column(name = "last_order_at")
+    @JsonProperty
+    private Instant lastOrderAt;
+
+    protected UserOrderSummary() {
+    }
+
+    public UserOrderSummary(long userId) {
+        this.userId = userId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public BigDecimal getTotalSpent() {
+        return totalSpent;
+    }
+
+    public void setTotalSpent(BigDecimal totalSpent) {
+        this.totalSpent = totalSpent;
+    }
+
+    public Long getLastOrderId() {
+        return lastOrderId;
+    }
+
+    public void setLastOrderId(Long lastOrderId) {
+        this.lastOrderId = lastOrderId;
+    }
+
+    public BigDecimal getLastOrderTotal() {
+        return lastOrderTotal;
+    }
+
+    public void setLastOrderTotal(BigDecimal lastOrderTotal) {
+        this.lastOrderTotal = lastOrderTotal;
+    }
+
+    public Instant getLastOrderAt() {
+        return lastOrderAt;
+    }
+
+    public void setLastOrderAt(Instant lastOrderAt) {
+        this.lastOrderAt = lastOrderAt;
+    }
+}
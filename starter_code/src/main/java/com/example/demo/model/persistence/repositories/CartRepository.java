@@ -1,13 +1,40 @@
 package com.example.demo.model.persistence.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.User;
 
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 	Cart findByUser(User user);
+
+	// Cart, owner and items in one select. The distinct is applied in memory only, in SQL it would merge repeated items
+	@Query("select distinct c from Cart c left join fetch c.user left join fetch c.items where c.id = :id")
+	@QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	Optional<Cart> findWithItemsById(@Param("id") long id);
+
+	// Carts holding the item, in id order for keyset paging through cart_items
+	@Query("select distinct c.id from Cart c join c.items i where i.id = :itemId and c.id > :after order by c.id")
+	List<Long> findIdsHoldingItem(@Param("itemId") long itemId, @Param("after") long after, Pageable pageable);
+
+	// Totals recomputed from the current item prices, a whole chunk of carts in one statement
+	@Modifying
+	@Query("update Cart c set c.total = (select coalesce(sum(i.price), 0) from Cart o join o.items i where o.id = c.id) where c.id in :ids")
+	int recomputeTotals(@Param("ids") Collection<Long> ids);
 }
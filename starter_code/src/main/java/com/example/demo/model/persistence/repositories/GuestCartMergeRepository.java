@@ -0,0 +1,18 @@
+package com.example.demo.model.persistence.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.persistence.GuestCartMerge;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface GuestCartMergeRepository extends JpaRepository<GuestCartMerge, String> {
+
+	// The tokens can no longer be presented, their records are not needed
+	@Modifying
+	@Query("delete from GuestCartMerge m where m.expiresAt < :now")
+	int deleteExpired(@Param("now") long now);
+}
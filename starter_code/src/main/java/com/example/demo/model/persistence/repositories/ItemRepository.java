@@ -1,14 +1,26 @@
 package com.example.demo.model.persistence.repositories;
 
+import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.hibernate.annotations.QueryHints.CACHE_REGION;
+
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.demo.model.persistence.Item;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
+	@QueryHints({@QueryHint(name = CACHEABLE, value = "true"), @QueryHint(name = CACHE_REGION, value = "item-by-name")})
 	List<Item> findByName(String name);
 
+	// One row: item count, highest id and sum of the prices
+	@Query("select count(i), max(i.id), sum(i.price) from Item i")
+	List<Object[]> summarize();
+
 }
@@ -0,0 +1,18 @@
+package com.example.demo.model.persistence.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.demo.model.persistence.ItemStock;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ItemStockRepository extends JpaRepository<ItemStock, Long> {
+
+	// Relative, so that restocks and sales written by different transactions do not overwrite each other
+	@Modifying
+	@Query("update ItemStock s set s.quantity = s.quantity + :delta where s.itemId = :itemId")
+	int addQuantity(@Param("itemId") long itemId, @Param("delta") long delta);
+}
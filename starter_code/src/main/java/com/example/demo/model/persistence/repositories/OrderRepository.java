@@ -1,14 +1,58 @@
 package com.example.demo.model.persistence.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_PASS_DISTINCT_THROUGH;
+
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
+
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface OrderRepository extends JpaRepository<UserOrder, Long> {
 	List<UserOrder> findByUser(User user);
+
+	// Orders with their owner and items in one select. The distinct is applied in memory only, in SQL it would merge repeated items
+	@Query("select distinct o from UserOrder o join fetch o.user left join fetch o.items where o.user.id = :userId")
+	@QueryHints(@QueryHint(name = HINT_PASS_DISTINCT_THROUGH, value = "false"))
+	List<UserOrder> findWithItemsByUserId(@Param("userId") long userId);
+
+	// User id, order count, sum of the totals and last order id of each user with orders
+	@Query("select o.user.id, count(o), sum(o.total), max(o.id) from UserOrder o where o.user.id in :userIds group by o.user.id")
+	List<Object[]> summarizeByUserIds(@Param("userIds") Collection<Long> userIds);
+
+	// Id, total and creation time of the orders, without loading their user
+	@Query("select o.id, o.total, o.createdAt from UserOrder o where o.id in :ids")
+	List<Object[]> findTotalsByIds(@Param("ids") Collection<Long> ids);
+
+	// Order id, total, creation time, item id and price, one row per item, the rows of an order adjacent
+	@Query("select o.id, o.total, o.createdAt, i.id, i.price from UserOrder o left join o.items i where o.createdAt >= :since order by o.id")
+	List<Object[]> findSalesSince(@Param("since") Instant since);
+
+	@Query("select o.id from UserOrder o where o.id > :after order by o.id")
+	List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+	// Order id and item id, one row per item, the rows of an order adjacent
+	@Query("select o.id, i.id from UserOrder o join o.items i where o.id in :ids order by o.id")
+	List<Object[]> findItemIdsByOrderIds(@Param("ids") Collection<Long> ids);
+
+	@Query("select max(o.id) from UserOrder o")
+	Long findMaxId();
+
+	@Query("select max(o.intakeSequence) from UserOrder o")
+	Long findMaxIntakeSequence();
+
+	@Query("select o.intakeSequence from UserOrder o where o.intakeSequence >= :from")
+	List<Long> findIntakeSequencesFrom(@Param("from") long from);
 }
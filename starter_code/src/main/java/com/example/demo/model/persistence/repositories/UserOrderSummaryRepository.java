@@ -0,0 +1,35 @@
+package com.example.demo.model.persistence.repositories;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.model.persistence.UserOrderSummary;
+
+@Repository
+public interface UserOrderSummaryRepository extends JpaRepository<UserOrderSummary, Long> {
+
+	// One statement under the row lock, so concurrent orders of the same user cannot lose an increment. The right-hand
+	// sides see the row as it was, and the last order only moves forward when orders commit out of order
+	@Modifying
+	@Query("update UserOrderSummary s set s.orderCount = s.orderCount + 1, s.totalSpent = s.totalSpent + :total, "
+			+ "s.lastOrderTotal = case when s.lastOrderId is null or s.lastOrderId < :orderId then :total else s.lastOrderTotal end, "
+			+ "s.lastOrderAt = case when s.lastOrderId is null or s.lastOrderId < :orderId then :createdAt else s.lastOrderAt end, "
+			+ "s.lastOrderId = case when s.lastOrderId is null or s.lastOrderId < :orderId then :orderId else s.lastOrderId end "
+			+ "where s.userId = :userId")
+	int addOrder(@Param("userId") long userId, @Param("orderId") long orderId, @Param("total") BigDecimal total,
+				 @Param("createdAt") Instant createdAt);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	List<UserOrderSummary> findByUserIdIn(Collection<Long> userIds);
+}
@@ -1,6 +1,13 @@
 package com.example.demo.model.persistence.repositories;
 
+import java.util.List;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.persistence.User;
 import org.springframework.stereotype.Repository;
@@ -8,4 +15,13 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 	User findByUsername(String username);
+
+	@Query("select u.id from User u where u.id > :after order by u.id")
+	List<Long> findIdsAfter(@Param("after") long after, Pageable pageable);
+
+	@Transactional
+	@Modifying
+	@Query("update User u set u.password = :newPassword where u.username = :username and u.password = :oldPassword")
+	int updatePasswordIfUnchanged(@Param("username") String username, @Param("oldPassword") String oldPassword,
+								  @Param("newPassword") String newPassword);
 }
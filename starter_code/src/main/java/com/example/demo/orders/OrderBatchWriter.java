@@ -0,0 +1,142 @@
+package com.example.demo.orders;
+
+import com.example.demo.datasource.ReplicaConsistencyTracker;
+import com.example.demo.inventory.InventoryService;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.recommendations.CoOccurrenceIndex;
+import com.example.demo.sales.SalesAggregator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Inserts accepted orders, one transaction per batch. The user and the items are referenced by id, not loaded. When
+ * a batch fails, say because an item was deleted after its order was accepted, its orders are retried one per
+ * transaction so that only the offending one fails. The stock sold to a failed order is given back.
+ */
+public class OrderBatchWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBatchWriter.class);
+
+    private final TransactionTemplate transactions;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final OrderSummaryService orderSummaryService;
+    // Only present when app.sales.enabled is true
+    private final SalesAggregator salesAggregator;
+    // Only present when app.recommendations.enabled is true
+    private final CoOccurrenceIndex coOccurrenceIndex;
+    // Only present when reads are routed to a replica
+    private final ReplicaConsistencyTracker replicaConsistencyTracker;
+    // Only present when app.inventory.enabled is true
+    private final InventoryService inventoryService;
+
+    public OrderBatchWriter(TransactionTemplate transactions, OrderRepository orderRepository, UserRepository userRepository,
+                            ItemRepository itemRepository, OrderSummaryService orderSummaryService,
+                            SalesAggregator salesAggregator, CoOccurrenceIndex coOccurrenceIndex,
+                            ReplicaConsistencyTracker replicaConsistencyTracker, InventoryService inventoryService) {
+        this.transactions = transactions;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.itemRepository = itemRepository;
+        this.orderSummaryService = orderSummaryService;
+        this.salesAggregator = salesAggregator;
+        this.coOccurrenceIndex = coOccurrenceIndex;
+        this.replicaConsistencyTracker = replicaConsistencyTracker;
+        this.inventoryService = inventoryService;
+    }
+
+    /**
+     * Writes the batch and marks each submission completed or failed.
+     */
+    public void write(List<OrderSubmission> batch) {
+        try {
+            completed(batch, transactions.execute(status -> insert(batch)));
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                failed(batch.get(0), e);
+                return;
+            }
+            log.warn("event=order.batch outcome=retry_individually size={} error=\"{}\"", batch.size(), e.getMessage());
+            for (OrderSubmission submission : batch) {
+                List<OrderSubmission> single = Collections.singletonList(submission);
+                try {
+                    completed(single, transactions.execute(status -> insert(single)));
+                } catch (RuntimeException singleFailure) {
+                    failed(submission, singleFailure);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the journaled submissions whose orders are not in the database
+     */
+    public List<OrderSubmission> unwritten(List<OrderSubmission> journaled) {
+        long from = journaled.stream().mapToLong(OrderSubmission::sequence).min().orElse(0);
+        Set<Long> written = new HashSet<>(orderRepository.findIntakeSequencesFrom(from));
+        return journaled.stream().filter(submission -> !written.contains(submission.sequence())).collect(Collectors.toList());
+    }
+
+    private List<UserOrder> insert(List<OrderSubmission> batch) {
+        List<UserOrder> orders = new ArrayList<>(batch.size());
+        for (OrderSubmission submission : batch) {
+            UserOrder order = new UserOrder();
+            order.setUser(userRepository.getOne(submission.userId()));
+            order.setItems(submission.itemIds().stream().map(itemRepository::getOne).collect(Collectors.toList()));
+            order.setTotal(submission.total());
+            order.setIntakeSequence(submission.sequence() == 0 ? null : submission.sequence());
+            orders.add(order);
+        }
+        orderRepository.saveAll(orders);
+        // A missing user or item fails here, while the batch can still be told apart from the commit
+        orderRepository.flush();
+        orders.forEach(orderSummaryService::recordOrder);
+        if (salesAggregator != null) {
+            orders.forEach(salesAggregator::record);
+        }
+        if (coOccurrenceIndex != null) {
+            orders.forEach(coOccurrenceIndex::record);
+        }
+        return orders;
+    }
+
+    private void completed(List<OrderSubmission> batch, List<UserOrder> orders) {
+        for (int i = 0; i < batch.size(); i++) {
+            OrderSubmission submission = batch.get(i);
+            if (replicaConsistencyTracker != null) {
+                // Written without a request, so the router could not tell whose write it was
+                replicaConsistencyTracker.recordWrite(submission.username());
+            }
+            submission.completed(orders.get(i).getId());
+            log.info("event=order.submit_async outcome=success user={} handle={} orderId={}",
+                    submission.username(), submission.getHandle(), submission.getOrderId());
+        }
+    }
+
+    /**
+     * Marks the submission failed and gives back the stock its order was sold when it was accepted.
+     */
+    void failed(OrderSubmission submission) {
+        submission.failed();
+        if (inventoryService != null) {
+            inventoryService.restoreItemIds(submission.itemIds());
+        }
+    }
+
+    private void failed(OrderSubmission submission, RuntimeException e) {
+        failed(submission);
+        log.error("event=order.submit_async outcome=failed user={} handle={}", submission.username(), submission.getHandle(), e);
+    }
+}
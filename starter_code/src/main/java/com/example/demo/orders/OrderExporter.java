@@ -0,0 +1,156 @@
+package com.example.demo.orders;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes orders with their items as newline-delimited JSON, one order per line in id order. The rows are read through a
+ * forward-only cursor and written as they arrive, so an export holds a single order in memory however many there are.
+ */
+@Component
+public class OrderExporter {
+
+    static final int FETCH_SIZE = 500;
+
+    // Sorted by order id, an order's item rows are adjacent and the order is complete when the id changes
+    private static final String EXPORT_SQL = "select o.id, o.user_id, u.username, o.total, o.created_at, i.id, i.name, i.price"
+            + " from user_order o join user u on u.id = o.user_id"
+            + " left join user_order_items oi on oi.user_order_id = o.id left join item i on i.id = oi.items_id"
+            + " where o.id > ? and o.id <= ?"
+            + " and (? is null or o.created_at >= ?) and (? is null or o.created_at < ?)"
+            + " order by o.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public OrderExporter(DataSource dataSource, ObjectMapper objectMapper) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Writes the matching orders to the stream, which is flushed but left open.
+     *
+     * @param afterId only orders with a greater id, for picking up where an earlier export ended
+     * @param upToId  only orders with this id or a smaller one, may be null
+     * @param from    only orders placed at or after this instant, may be null
+     * @param to      only orders placed before this instant, may be null
+     * @return the number of orders written
+     */
+    public long export(long afterId, Long upToId, Instant from, Instant to, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                // Each line ends with its own newline, without the default space between root values
+                .setPrettyPrinter(new MinimalPrettyPrinter(""));
+        OrderLineWriter lines = new OrderLineWriter(generator);
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY);
+                Timestamp fromTimestamp = from == null ? null : Timestamp.from(from);
+                Timestamp toTimestamp = to == null ? null : Timestamp.from(to);
+                statement.setLong(1, afterId);
+                statement.setLong(2, upToId == null ? Long.MAX_VALUE : upToId);
+                statement.setTimestamp(3, fromTimestamp);
+                statement.setTimestamp(4, fromTimestamp);
+                statement.setTimestamp(5, toTimestamp);
+                statement.setTimestamp(6, toTimestamp);
+                return statement;
+            }, lines);
+            lines.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        generator.flush();
+        return lines.orders;
+    }
+
+    private static class OrderLineWriter implements RowCallbackHandler {
+
+        private final JsonGenerator generator;
+        private final List<Object[]> items = new ArrayList<>();
+
+        private long orders;
+        private Long orderId;
+        private long userId;
+        private String username;
+        private BigDecimal total;
+        private Timestamp createdAt;
+
+        OrderLineWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long id = rs.getLong(1);
+            if (orderId == null || orderId != id) {
+                finish();
+                orderId = id;
+                userId = rs.getLong(2);
+                username = rs.getString(3);
+                total = rs.getBigDecimal(4);
+                createdAt = rs.getTimestamp(5);
+            }
+            long itemId = rs.getLong(6);
+            if (!rs.wasNull()) {
+                items.add(new Object[]{itemId, rs.getString(7), rs.getBigDecimal(8)});
+            }
+        }
+
+        void finish() {
+            if (orderId == null) {
+                return;
+            }
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", orderId);
+                generator.writeNumberField("userId", userId);
+                generator.writeStringField("username", username);
+                generator.writeFieldName("total");
+                if (total == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(total);
+                }
+                generator.writeStringField("createdAt", createdAt == null ? null : createdAt.toInstant().toString());
+                generator.writeArrayFieldStart("items");
+                for (Object[] item : items) {
+                    generator.writeStartObject();
+                    generator.writeNumberField("id", (Long) item[0]);
+                    generator.writeStringField("name", (String) item[1]);
+                    generator.writeNumberField("price", (BigDecimal) item[2]);
+                    generator.writeEndObject();
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                // The client went away, the cursor is closed on the way out
+                throw new UncheckedIOException(e);
+            }
+            orders++;
+            items.clear();
+            orderId = null;
+        }
+    }
+}
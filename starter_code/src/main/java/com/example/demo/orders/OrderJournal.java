@@ -0,0 +1,550 @@
+package com.example.demo.orders;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only journal of accepted orders in memory-mapped segment files. An order is only acknowledged once its record
+ * is on disk. One thread fsyncs whatever was appended during the last {@code sync-interval}, so that concurrent
+ * submissions share an fsync (group commit). Orders written to the database are reported back through
+ * {@link #persisted(long)}; at each checkpoint the segments holding only written orders are deleted. The orders past
+ * the checkpoint found when the journal is opened are handed out once by {@link #drainRecovered()} for replay, except
+ * those given up on through {@link #abandon(long)}, which are listed in a file of their own until a checkpoint passes
+ * them.
+ * <p>
+ * A record is its length, a CRC32 of the rest, the sequence and the order. A record cut short by a crash fails its
+ * checksum and ends the segment; appends after a restart go to a new segment.
+ */
+public class OrderJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderJournal.class);
+
+    // Length of the sequence and order, then their checksum
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final String SEGMENT_PREFIX = "orders-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String ABANDONED = "abandoned";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long syncIntervalNanos;
+    private final long checkpointIntervalNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    // Segment files by their first sequence, the last one is appended to
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    // Appended and not reported as written yet
+    private final ConcurrentSkipListSet<Long> pending = new ConcurrentSkipListSet<>();
+    // Appended but never acknowledged, skipped by replay; guarded by checkpointLock once the journal is open
+    private final ConcurrentSkipListSet<Long> abandoned = new ConcurrentSkipListSet<>();
+    private final List<OrderSubmission> recovered = new ArrayList<>();
+
+    // Guarded by lock
+    private MappedByteBuffer active;
+    private long appendedSequence;
+    private long syncedSequence;
+    private Throwable failure;
+    private boolean closed;
+    private boolean syncerStopped;
+
+    private volatile long checkpointSequence;
+    private volatile long nextCheckpointNanos;
+    private Thread syncer;
+
+    private final Counter appends;
+    private final Counter bytes;
+    private final Timer syncs;
+    private final DistributionSummary recordsPerSync;
+
+    public OrderJournal(Path directory, int segmentSize, Duration syncInterval, Duration checkpointInterval, MeterRegistry meterRegistry) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncIntervalNanos = syncInterval.toNanos();
+        this.checkpointIntervalNanos = checkpointInterval.toNanos();
+
+        this.appends = Counter.builder("orders.journal.appends").register(meterRegistry);
+        this.bytes = Counter.builder("orders.journal.bytes").baseUnit("bytes").register(meterRegistry);
+        this.syncs = Timer.builder("orders.journal.sync").description("Time to fsync the active segment").register(meterRegistry);
+        this.recordsPerSync = DistributionSummary.builder("orders.journal.sync.records")
+                .description("Appends made durable by one fsync")
+                .register(meterRegistry);
+        Gauge.builder("orders.journal.pending", pending, ConcurrentSkipListSet::size)
+                .description("Journaled orders not written to the database yet")
+                .register(meterRegistry);
+        Gauge.builder("orders.journal.segments", segments, ConcurrentSkipListMap::size).register(meterRegistry);
+    }
+
+    /**
+     * Reads back the orders past the last checkpoint and starts a new segment.
+     *
+     * @param writtenSequence the highest sequence found in the database, numbering continues after it even if the
+     *                        journal directory was lost
+     */
+    public void open(long writtenSequence) throws IOException {
+        Files.createDirectories(directory);
+        long checkpoint = readCheckpoint();
+        long last = Math.max(checkpoint, writtenSequence);
+        readAbandoned(checkpoint);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        }
+        for (Path file : segments.values()) {
+            last = Math.max(last, read(file, checkpoint));
+        }
+        if (!recovered.isEmpty()) {
+            log.warn("event=order.journal outcome=recovered orders={} checkpoint={}", recovered.size(), checkpoint);
+        }
+
+        lock.lock();
+        try {
+            checkpointSequence = checkpoint;
+            appendedSequence = last;
+            syncedSequence = last;
+            roll();
+        } finally {
+            lock.unlock();
+        }
+        nextCheckpointNanos = System.nanoTime() + checkpointIntervalNanos;
+        syncer = new Thread(this::syncLoop, "order-journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+    }
+
+    /**
+     * @return the orders found past the checkpoint when the journal was opened, the first time it is called
+     */
+    public synchronized List<OrderSubmission> drainRecovered() {
+        List<OrderSubmission> drained = new ArrayList<>(recovered);
+        recovered.clear();
+        return drained;
+    }
+
+    /**
+     * Appends the order to the active segment; it is durable once {@link #awaitDurable(long)} returns.
+     *
+     * @return the sequence of the record
+     */
+    public long append(OrderSubmission submission) throws IOException {
+        ByteBuffer order = encode(submission);
+        int length = Long.BYTES + order.remaining();
+        if (HEADER_BYTES + length > segmentSize) {
+            throw new IOException("An order of " + length + " bytes does not fit in a journal segment");
+        }
+        lock.lock();
+        try {
+            checkUsable();
+            if (active.remaining() < HEADER_BYTES + length) {
+                roll();
+            }
+            long sequence = appendedSequence + 1;
+            int start = active.position();
+            active.putInt(length).putInt(0).putLong(sequence).put(order);
+            ByteBuffer record = active.duplicate();
+            record.position(start + HEADER_BYTES).limit(start + HEADER_BYTES + length);
+            CRC32 crc = new CRC32();
+            crc.update(record);
+            active.putInt(start + Integer.BYTES, (int) crc.getValue());
+
+            appendedSequence = sequence;
+            pending.add(sequence);
+            appended.signal();
+            appends.increment();
+            bytes.increment(HEADER_BYTES + length);
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the next fsync that covers the sequence.
+     */
+    public void awaitDurable(long sequence) throws IOException {
+        lock.lock();
+        try {
+            while (syncedSequence < sequence) {
+                // Appends made before close are still synced by the closing sync thread
+                if (failure != null || syncerStopped) {
+                    checkUsable();
+                }
+                synced.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the order journal");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reports the order as written to the database, or as given up on, so that a checkpoint can move past it.
+     */
+    public void persisted(long sequence) {
+        pending.remove(sequence);
+    }
+
+    /**
+     * Gives up on an order whose append was not acknowledged. Its record may still reach the disk, so the sequence is
+     * listed as abandoned and never replayed, and a checkpoint can move past it.
+     */
+    public void abandon(long sequence) {
+        checkpointLock.lock();
+        try {
+            abandoned.add(sequence);
+            writeAbandoned();
+        } catch (IOException e) {
+            // Still released: the next checkpoint passes it unless an older order is pending
+            log.error("event=order.journal outcome=abandon_failed sequence={}", sequence, e);
+        } finally {
+            pending.remove(sequence);
+            checkpointLock.unlock();
+        }
+    }
+
+    public void checkpointIfDue() {
+        if (System.nanoTime() - nextCheckpointNanos >= 0) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Records that every order up to the oldest pending one is written and deletes the segments holding only those.
+     */
+    public void checkpoint() {
+        // Only one checkpoint at a time, the other workers carry on
+        if (!checkpointLock.tryLock()) {
+            return;
+        }
+        try {
+            nextCheckpointNanos = System.nanoTime() + checkpointIntervalNanos;
+            long upTo;
+            lock.lock();
+            try {
+                upTo = appendedSequence;
+            } finally {
+                lock.unlock();
+            }
+            // Read after the appended sequence: an order appended in between is above it
+            Long oldestPending = pending.ceiling(Long.MIN_VALUE);
+            if (oldestPending != null) {
+                upTo = Math.min(upTo, oldestPending - 1);
+            }
+            if (upTo > checkpointSequence) {
+                writeCheckpoint(upTo);
+                checkpointSequence = upTo;
+            }
+            if (!abandoned.isEmpty() && abandoned.first() <= checkpointSequence) {
+                // Records behind the checkpoint are not replayed anyway
+                abandoned.headSet(checkpointSequence, true).clear();
+                writeAbandoned();
+            }
+            deleteSegmentsUpTo(checkpointSequence);
+        } catch (IOException e) {
+            log.error("event=order.journal outcome=checkpoint_failed", e);
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+
+    public long getCheckpointSequence() {
+        return checkpointSequence;
+    }
+
+    /**
+     * Syncs what was appended, stops the sync thread and takes a last checkpoint.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (syncer != null) {
+            try {
+                syncer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted closing the order journal");
+            }
+        }
+        checkpoint();
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw new IOException("The order journal failed to sync and no longer accepts orders", failure);
+        }
+        if (closed) {
+            throw new IOException("The order journal is closed");
+        }
+    }
+
+    private void syncLoop() {
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    while (!closed && appendedSequence == syncedSequence) {
+                        appended.await();
+                    }
+                    if (failure != null || appendedSequence == syncedSequence) {
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                // Gathers the appends of the next moments into this fsync
+                LockSupport.parkNanos(syncIntervalNanos);
+                sync();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.lock();
+            try {
+                syncerStopped = true;
+                synced.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void sync() {
+        long target;
+        long previous;
+        MappedByteBuffer segment;
+        lock.lock();
+        try {
+            target = appendedSequence;
+            previous = syncedSequence;
+            segment = active;
+        } finally {
+            lock.unlock();
+        }
+        Throwable error = null;
+        long start = System.nanoTime();
+        try {
+            // Segments replaced in the meantime were synced when they were rolled
+            segment.force();
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        syncs.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        lock.lock();
+        try {
+            if (error == null) {
+                recordsPerSync.record(target - previous);
+                syncedSequence = target;
+            } else {
+                // After a failed fsync the state of the pages is unknown, retrying could acknowledge lost orders
+                failure = error;
+                log.error("event=order.journal outcome=sync_failed", error);
+            }
+            synced.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Called with the lock held
+    private void roll() throws IOException {
+        if (active != null) {
+            active.force();
+        }
+        long first = appendedSequence + 1;
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, first, SEGMENT_SUFFIX));
+        // A segment with this name can only be one left empty by a crash
+        try (FileChannel channel = FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING)) {
+            active = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        syncDirectory();
+        segments.put(first, file);
+    }
+
+    private long read(Path file, long checkpoint) throws IOException {
+        long last = 0;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32 crc = new CRC32();
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                // Zeroes past the last record, or a record cut short
+                if (length < Long.BYTES || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer record = buffer.slice();
+                record.limit(length);
+                crc.reset();
+                crc.update(record.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("event=order.journal outcome=torn_record file={} position={}", file.getFileName(), buffer.position() - HEADER_BYTES);
+                    break;
+                }
+                long sequence = record.getLong();
+                if (sequence > checkpoint && !abandoned.contains(sequence)) {
+                    recovered.add(decode(sequence, record));
+                    pending.add(sequence);
+                }
+                last = sequence;
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return last;
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT);
+        return Files.exists(file) ? Long.parseLong(new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).trim()) : 0;
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+    }
+
+    private void readAbandoned(long checkpoint) throws IOException {
+        Path file = directory.resolve(ABANDONED);
+        if (!Files.exists(file)) {
+            return;
+        }
+        for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+            long sequence = Long.parseLong(line.trim());
+            if (sequence > checkpoint) {
+                abandoned.add(sequence);
+            }
+        }
+    }
+
+    // Called with the checkpoint lock held
+    private void writeAbandoned() throws IOException {
+        Path file = directory.resolve(ABANDONED);
+        if (abandoned.isEmpty()) {
+            Files.deleteIfExists(file);
+            syncDirectory();
+            return;
+        }
+        StringBuilder content = new StringBuilder();
+        for (Long sequence : abandoned) {
+            content.append(sequence).append('\n');
+        }
+        Path temporary = directory.resolve(ABANDONED + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+    }
+
+    private void deleteSegmentsUpTo(long sequence) throws IOException {
+        Map.Entry<Long, Path> oldest;
+        while ((oldest = segments.firstEntry()) != null) {
+            // The active segment has no successor and is never deleted
+            Long next = segments.higherKey(oldest.getKey());
+            if (next == null || next - 1 > sequence) {
+                return;
+            }
+            Files.deleteIfExists(oldest.getValue());
+            segments.remove(oldest.getKey());
+        }
+    }
+
+    // Makes created, renamed and deleted files durable
+    private void syncDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Directories cannot be opened on every platform; their entries are then synced by the file system
+            log.debug("event=order.journal outcome=directory_sync_unsupported", e);
+        }
+    }
+
+    private static ByteBuffer encode(OrderSubmission submission) {
+        byte[] username = submission.username().getBytes(StandardCharsets.UTF_8);
+        byte[] total = submission.total() == null ? new byte[0] : submission.total().toPlainString().getBytes(StandardCharsets.US_ASCII);
+        List<Long> itemIds = submission.itemIds();
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES + Short.BYTES + username.length + Short.BYTES + total.length
+                + Integer.BYTES + Long.BYTES * itemIds.size());
+        buffer.putLong(submission.userId())
+                .putShort((short) username.length).put(username)
+                .putShort((short) total.length).put(total)
+                .putInt(itemIds.size());
+        for (Long itemId : itemIds) {
+            buffer.putLong(itemId);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static OrderSubmission decode(long sequence, ByteBuffer record) {
+        long userId = record.getLong();
+        byte[] username = new byte[record.getShort()];
+        record.get(username);
+        byte[] total = new byte[record.getShort()];
+        record.get(total);
+        int items = record.getInt();
+        List<Long> itemIds = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            itemIds.add(record.getLong());
+        }
+        OrderSubmission submission = new OrderSubmission(UUID.randomUUID().toString(), userId,
+                new String(username, StandardCharsets.UTF_8), itemIds,
+                total.length == 0 ? null : new BigDecimal(new String(total, StandardCharsets.US_ASCII)));
+        submission.journaled(sequence);
+        return submission;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.orders;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.UserOrder;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * An order accepted by {@link OrderSubmissionQueue}, written or not yet. It keeps the ids of the user and the items
+ * rather than the entities, which belong to the session of the request that accepted it. Serialized as the handle the
+ * client polls: its id, status and, once written, the order id.
+ */
+public class OrderSubmission {
+
+    public enum Status {
+        QUEUED, COMPLETED, FAILED
+    }
+
+    private final String handle;
+    private final long userId;
+    private final String username;
+    private final List<Long> itemIds;
+    private final BigDecimal total;
+    private final long acceptedNanos = System.nanoTime();
+
+    // Position in the order journal, 0 when the journal is off
+    private long sequence;
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Long orderId;
+    private volatile long finishedNanos;
+
+    OrderSubmission(String handle, long userId, String username, List<Long> itemIds, BigDecimal total) {
+        this.handle = handle;
+        this.userId = userId;
+        this.username = username;
+        this.itemIds = itemIds;
+        this.total = total;
+    }
+
+    static OrderSubmission of(UserOrder order) {
+        return new OrderSubmission(UUID.randomUUID().toString(), order.getUser().getId(), order.getUser().getUsername(),
+                order.getItems().stream().map(Item::getId).collect(Collectors.toList()), order.getTotal());
+    }
+
+    public String getHandle() {
+        return handle;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public boolean belongsTo(long userId) {
+        return this.userId == userId;
+    }
+
+    long userId() {
+        return userId;
+    }
+
+    String username() {
+        return username;
+    }
+
+    List<Long> itemIds() {
+        return itemIds;
+    }
+
+    BigDecimal total() {
+        return total;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    void journaled(long sequence) {
+        this.sequence = sequence;
+    }
+
+    long acceptedNanos() {
+        return acceptedNanos;
+    }
+
+    long finishedNanos() {
+        return finishedNanos;
+    }
+
+    void completed(long orderId) {
+        this.orderId = orderId;
+        finish(Status.COMPLETED);
+    }
+
+    void failed() {
+        finish(Status.FAILED);
+    }
+
+    private void finish(Status status) {
+        finishedNanos = System.nanoTime();
+        // Written last, a poller that sees the final status also sees the order id
+        this.status = status;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.orders;
+
+import com.example.demo.datasource.ReplicaConsistencyTracker;
+import com.example.demo.inventory.InventoryService;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.recommendations.CoOccurrenceIndex;
+import com.example.demo.sales.SalesAggregator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+
+/**
+ * Asynchronous order submission through {@code POST /api/order/submissions/{username}}, on unless
+ * {@code app.orders.submission.enabled} is false. The synchronous {@code /api/order/submit} is not affected.
+ * Accepted orders are journaled to disk first when {@code app.orders.submission.journal.enabled} is true.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.orders.submission", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(OrderSubmissionProperties.class)
+public class OrderSubmissionConfiguration {
+
+    @Bean
+    public OrderBatchWriter orderBatchWriter(PlatformTransactionManager transactionManager, OrderRepository orderRepository,
+                                             UserRepository userRepository, ItemRepository itemRepository,
+                                             OrderSummaryService orderSummaryService,
+                                             ObjectProvider<SalesAggregator> salesAggregator,
+                                             ObjectProvider<CoOccurrenceIndex> coOccurrenceIndex,
+                                             ObjectProvider<ReplicaConsistencyTracker> replicaConsistencyTracker,
+                                             ObjectProvider<InventoryService> inventoryService) {
+        return new OrderBatchWriter(new TransactionTemplate(transactionManager), orderRepository, userRepository,
+                itemRepository, orderSummaryService, salesAggregator.getIfAvailable(), coOccurrenceIndex.getIfAvailable(),
+                replicaConsistencyTracker.getIfAvailable(), inventoryService.getIfAvailable());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "app.orders.submission.journal", name = "enabled", havingValue = "true")
+    public OrderJournal orderJournal(OrderSubmissionProperties properties, OrderRepository orderRepository,
+                                     MeterRegistry meterRegistry) throws IOException {
+        OrderSubmissionProperties.Journal settings = properties.getJournal();
+        OrderJournal journal = new OrderJournal(settings.getDirectory(), Math.toIntExact(settings.getSegmentSize().toBytes()),
+                settings.getSyncInterval(), settings.getCheckpointInterval(), meterRegistry);
+        Long written = orderRepository.findMaxIntakeSequence();
+        journal.open(written == null ? 0 : written);
+        return journal;
+    }
+
+    // Stopped before the journal, which it depends on, so the last writes are checkpointed
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public OrderSubmissionQueue orderSubmissionQueue(OrderBatchWriter orderBatchWriter, ObjectProvider<OrderJournal> orderJournal,
+                                                     OrderSubmissionProperties properties, MeterRegistry meterRegistry) {
+        return new OrderSubmissionQueue(orderBatchWriter, orderJournal.getIfAvailable(), properties, meterRegistry);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.orders;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.orders.submission")
+public class OrderSubmissionProperties {
+
+    private boolean enabled = true;
+    // Accepted orders waiting to be written; when it is full submissions are refused with 503
+    private int queueCapacity = 1_000;
+    // Threads writing the queued orders
+    private int workers = 2;
+    // Most orders a worker inserts in one transaction
+    private int batchSize = 50;
+    // Sent as Retry-After when the queue is full
+    private Duration retryAfter = Duration.ofSeconds(1);
+    // How long the status of a written or failed submission can still be polled
+    private Duration statusRetention = Duration.ofMinutes(10);
+    private final Journal journal = new Journal();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getStatusRetention() {
+        return statusRetention;
+    }
+
+    public void setStatusRetention(Duration statusRetention) {
+        this.statusRetention = statusRetention;
+    }
+
+    public Journal getJournal() {
+        return journal;
+    }
+
+    public static class Journal {
+
+        // Only worth it when the database outlives the process, which the in-memory H2 does not
+        private boolean enabled;
+        private Path directory = Paths.get("journal");
+        // Size of each memory-mapped segment file
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+        // How long appends are gathered before they share one fsync
+        private Duration syncInterval = Duration.ofMillis(2);
+        // How often segments whose orders are all written are deleted
+        private Duration checkpointInterval = Duration.ofSeconds(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        public Duration getSyncInterval() {
+            return syncInterval;
+        }
+
+        public void setSyncInterval(Duration syncInterval) {
+            this.syncInterval = syncInterval;
+        }
+
+        public Duration getCheckpointInterval() {
+            return checkpointInterval;
+        }
+
+        public void setCheckpointInterval(Duration checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+        }
+    }
+}
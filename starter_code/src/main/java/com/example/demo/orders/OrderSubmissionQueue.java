@@ -0,0 +1,245 @@
+package com.example.demo.orders;
+
+import com.example.demo.model.persistence.UserOrder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accept-then-process order submission. Accepted orders wait in a bounded queue and worker threads insert them in
+ * micro-batches: a worker takes whatever is queued, up to {@code batch-size}, so a lone order is written right away
+ * and batches only grow while orders arrive faster than they are written. A full queue refuses submissions instead of
+ * growing; the caller answers 503 and the client retries. The status of a finished submission can be looked up for
+ * {@code status-retention}.
+ * <p>
+ * With an {@link OrderJournal}, a submission is only accepted once it is journaled, and the orders the journal
+ * recovered from the previous run are written before the workers start.
+ */
+public class OrderSubmissionQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSubmissionQueue.class);
+
+    private static final long POLL_MILLIS = 100;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final OrderBatchWriter writer;
+    // Null when the journal is off
+    private final OrderJournal journal;
+    private final BlockingQueue<OrderSubmission> queue;
+    // Queue slots, taken before a submission is journaled so that a journaled one always finds room
+    private final Semaphore slots;
+    private final ConcurrentMap<String, OrderSubmission> submissions = new ConcurrentHashMap<>();
+    // Finished submissions in the order they finished, so that expired statuses are dropped from the head
+    private final Queue<OrderSubmission> finished = new ConcurrentLinkedQueue<>();
+    private final int workerCount;
+    private final int batchSize;
+    private final long retentionNanos;
+    private final long retryAfterSeconds;
+    private final List<Thread> workers = new ArrayList<>();
+
+    private final Counter accepted;
+    private final Counter rejected;
+    private final Counter completed;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+    private final Timer lag;
+
+    private volatile boolean running;
+
+    public OrderSubmissionQueue(OrderBatchWriter writer, OrderJournal journal, OrderSubmissionProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.writer = writer;
+        this.journal = journal;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        this.slots = new Semaphore(properties.getQueueCapacity());
+        this.workerCount = properties.getWorkers();
+        this.batchSize = properties.getBatchSize();
+        this.retentionNanos = properties.getStatusRetention().toNanos();
+        // Whole seconds, rounded up so that a client never comes back before the advertised time
+        this.retryAfterSeconds = Math.max(1, (properties.getRetryAfter().toMillis() + 999) / 1000);
+
+        Gauge.builder("orders.submission.queue.size", queue, BlockingQueue::size)
+                .description("Accepted orders waiting to be written")
+                .register(meterRegistry);
+        Gauge.builder("orders.submission.queue.remaining", slots, Semaphore::availablePermits)
+                .register(meterRegistry);
+        this.accepted = Counter.builder("orders.submission").tag("outcome", "accepted").register(meterRegistry);
+        this.rejected = Counter.builder("orders.submission").tag("outcome", "rejected").register(meterRegistry);
+        this.completed = Counter.builder("orders.submission").tag("outcome", "completed").register(meterRegistry);
+        this.failed = Counter.builder("orders.submission").tag("outcome", "failed").register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("orders.submission.batch.size").register(meterRegistry);
+        this.lag = Timer.builder("orders.submission.lag")
+                .description("Time from acceptance to the order being written")
+                .register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        if (journal != null) {
+            replay(journal.drainRecovered());
+        }
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(this::work, "order-submission-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Refuses new submissions and waits for the workers to write the ones already queued.
+     */
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_TIMEOUT_SECONDS);
+        for (Thread worker : workers) {
+            worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+        }
+        if (!queue.isEmpty()) {
+            log.warn("event=order.queue outcome=abandoned pending={}", queue.size());
+        }
+        workers.clear();
+    }
+
+    /**
+     * @return the accepted submission, or null when the queue is full or shutting down
+     */
+    public OrderSubmission submit(UserOrder order) {
+        if (!running || !slots.tryAcquire()) {
+            rejected.increment();
+            return null;
+        }
+        OrderSubmission submission = OrderSubmission.of(order);
+        if (journal != null && !journal(submission)) {
+            slots.release();
+            rejected.increment();
+            return null;
+        }
+        queue.add(submission);
+        submissions.put(submission.getHandle(), submission);
+        accepted.increment();
+        return submission;
+    }
+
+    /**
+     * @return the submission, or null when the handle is unknown or its status has expired
+     */
+    public OrderSubmission get(String handle) {
+        return submissions.get(handle);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    private boolean journal(OrderSubmission submission) {
+        try {
+            submission.journaled(journal.append(submission));
+        } catch (IOException e) {
+            log.error("event=order.journal outcome=append_failed user={}", submission.username(), e);
+            return false;
+        }
+        try {
+            journal.awaitDurable(submission.sequence());
+            return true;
+        } catch (IOException e) {
+            // The client is told the order was refused, so the record must neither hold back checkpoints nor be replayed
+            journal.abandon(submission.sequence());
+            log.error("event=order.journal outcome=sync_failed user={} sequence={}", submission.username(),
+                    submission.sequence(), e);
+            return false;
+        }
+    }
+
+    private void replay(List<OrderSubmission> recovered) {
+        if (recovered.isEmpty()) {
+            return;
+        }
+        // The orders written before the crash but after the last checkpoint are skipped
+        List<OrderSubmission> unwritten = writer.unwritten(recovered);
+        for (int from = 0; from < unwritten.size(); from += batchSize) {
+            write(unwritten.subList(from, Math.min(from + batchSize, unwritten.size())));
+        }
+        for (OrderSubmission submission : recovered) {
+            journal.persisted(submission.sequence());
+        }
+        log.info("event=order.journal outcome=replayed recovered={} written={}", recovered.size(), unwritten.size());
+    }
+
+    private void work() {
+        List<OrderSubmission> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            OrderSubmission first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first != null) {
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                slots.release(batch.size());
+                write(batch);
+                batch.clear();
+            }
+            expire();
+            if (journal != null) {
+                journal.checkpointIfDue();
+            }
+        }
+    }
+
+    private void write(List<OrderSubmission> batch) {
+        batchSizes.record(batch.size());
+        try {
+            writer.write(batch);
+        } catch (RuntimeException e) {
+            log.error("event=order.batch outcome=failed size={}", batch.size(), e);
+        }
+        long now = System.nanoTime();
+        for (OrderSubmission submission : batch) {
+            if (submission.getStatus() == OrderSubmission.Status.COMPLETED) {
+                completed.increment();
+                lag.record(now - submission.acceptedNanos(), TimeUnit.NANOSECONDS);
+            } else {
+                if (submission.getStatus() == OrderSubmission.Status.QUEUED) {
+                    writer.failed(submission);
+                }
+                failed.increment();
+            }
+            finished.add(submission);
+            if (journal != null) {
+                // Failed orders are given up on as well, they would hold back every checkpoint
+                journal.persisted(submission.sequence());
+            }
+        }
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        OrderSubmission oldest;
+        while ((oldest = finished.peek()) != null && now - oldest.finishedNanos() >= retentionNanos) {
+            // Another worker may have expired it in the meantime
+            if (finished.remove(oldest)) {
+                submissions.remove(oldest.getHandle());
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.orders;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Rebuilds every order summary from the orders, for stores that had orders before the summaries existed. Exposed over
+ * JMX only: it is not in {@code management.endpoints.web.exposure.include}, where any signed-in user could start it.
+ */
+@Component
+@Endpoint(id = "ordersummary")
+public class OrderSummaryEndpoint {
+
+    private final OrderSummaryService orderSummaryService;
+
+    public OrderSummaryEndpoint(OrderSummaryService orderSummaryService) {
+        this.orderSummaryService = orderSummaryService;
+    }
+
+    @WriteOperation
+    public Map<String, Object> rebuild() {
+        long start = System.nanoTime();
+        int users = orderSummaryService.rebuild();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("users", users);
+        result.put("elapsedMillis", (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+}
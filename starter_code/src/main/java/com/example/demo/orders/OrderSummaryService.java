@@ -0,0 +1,133 @@
+package com.example.demo.orders;
+
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.UserOrderSummary;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.example.demo.model.persistence.repositories.UserOrderSummaryRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains {@link UserOrderSummary}: every order insert adds itself to its user's row in the same transaction, and
+ * {@link #rebuild()} recomputes all rows from the orders, for stores that had orders before the summary existed.
+ */
+@Service
+public class OrderSummaryService {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderSummaryService.class);
+
+    private static final int REBUILD_CHUNK = 500;
+
+    private final UserOrderSummaryRepository summaryRepository;
+    private final OrderRepository orderRepository;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactions;
+
+    public OrderSummaryService(UserOrderSummaryRepository summaryRepository, OrderRepository orderRepository,
+                               UserRepository userRepository, PlatformTransactionManager transactionManager) {
+        this.summaryRepository = summaryRepository;
+        this.orderRepository = orderRepository;
+        this.userRepository = userRepository;
+        this.transactions = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Adds an inserted order to its user's summary. Must run in the transaction of the insert.
+     */
+    public void recordOrder(UserOrder order) {
+        long userId = order.getUser().getId();
+        BigDecimal total = order.getTotal() == null ? BigDecimal.ZERO : order.getTotal();
+        if (summaryRepository.addOrder(userId, order.getId(), total, order.getCreatedAt()) == 0) {
+            // A user from before the summary, not reached by a rebuild yet: computed from the orders, this one included
+            rebuildUsers(Collections.singletonList(userId));
+        }
+    }
+
+    /**
+     * @return the user's summary, computed from the orders for a user from before the summary existed
+     */
+    public UserOrderSummary getSummary(long userId) {
+        return summaryRepository.findById(userId).orElseGet(() -> summarize(Collections.singletonList(userId), Collections.emptyMap()).get(0));
+    }
+
+    /**
+     * Recomputes the summary of every user, a chunk of users per transaction.
+     *
+     * @return the number of users
+     */
+    public int rebuild() {
+        int users = 0;
+        long after = 0;
+        while (true) {
+            List<Long> userIds = userRepository.findIdsAfter(after, PageRequest.of(0, REBUILD_CHUNK));
+            if (userIds.isEmpty()) {
+                log.info("event=order_summary.rebuild outcome=success users={}", users);
+                return users;
+            }
+            transactions.execute(status -> {
+                rebuildUsers(userIds);
+                return null;
+            });
+            users += userIds.size();
+            after = userIds.get(userIds.size() - 1);
+        }
+    }
+
+    private void rebuildUsers(List<Long> userIds) {
+        // The existing rows are locked before the orders are read: an order committing meanwhile either waits for this
+        // transaction and then adds itself, or has already added itself and is counted here
+        Map<Long, UserOrderSummary> existing = summaryRepository.findByUserIdIn(userIds).stream()
+                .collect(Collectors.toMap(UserOrderSummary::getUserId, Function.identity()));
+        List<UserOrderSummary> created = new ArrayList<>();
+        for (UserOrderSummary summary : summarize(userIds, existing)) {
+            if (!existing.containsKey(summary.getUserId())) {
+                created.add(summary);
+            }
+        }
+        summaryRepository.saveAll(created);
+    }
+
+    // Fills in the given rows, or new ones, from the orders of the users
+    private List<UserOrderSummary> summarize(List<Long> userIds, Map<Long, UserOrderSummary> rows) {
+        Map<Long, Object[]> totals = new HashMap<>();
+        for (Object[] row : orderRepository.summarizeByUserIds(userIds)) {
+            totals.put((Long) row[0], row);
+        }
+        Map<Long, Object[]> lastOrders = new HashMap<>();
+        List<Long> lastOrderIds = totals.values().stream().map(row -> (Long) row[3]).collect(Collectors.toList());
+        if (!lastOrderIds.isEmpty()) {
+            for (Object[] row : orderRepository.findTotalsByIds(lastOrderIds)) {
+                lastOrders.put((Long) row[0], row);
+            }
+        }
+
+        List<UserOrderSummary> summaries = new ArrayList<>(userIds.size());
+        for (Long userId : userIds) {
+            UserOrderSummary summary = rows.containsKey(userId) ? rows.get(userId) : new UserOrderSummary(userId);
+            Object[] total = totals.get(userId);
+            Object[] lastOrder = total == null ? null : lastOrders.get((Long) total[3]);
+            summary.setOrderCount(total == null ? 0 : (Long) total[1]);
+            summary.setTotalSpent(total == null || total[2] == null ? BigDecimal.ZERO : (BigDecimal) total[2]);
+            summary.setLastOrderId(lastOrder == null ? null : (Long) lastOrder[0]);
+            summary.setLastOrderTotal(lastOrder == null ? null : (BigDecimal) lastOrder[1]);
+            summary.setLastOrderAt(lastOrder == null ? null : (Instant) lastOrder[2]);
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.demo.pricing;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings open carts up to date after item price changes. {@code Cart.total} is accumulated as items are added, so a
+ * price change leaves every cart holding the item with a stale total. A changed item is queued, and a worker finds the
+ * carts holding it through {@code cart_items} and recomputes their totals from the current prices, a chunk of carts
+ * per transaction. Several changes to an item while it waits are handled once.
+ * <p>
+ * Checkout does not wait for the worker: {@link #verify(Cart)} recomputes the total of the cart being ordered.
+ */
+public class CartRepricer {
+
+    private static final Logger log = LoggerFactory.getLogger(CartRepricer.class);
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final CartRepository cartRepository;
+    private final TransactionTemplate transactions;
+    private final int chunkSize;
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    // Queued items and when they were first queued
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    private final Counter repriced;
+    private final Counter mismatches;
+    private final Timer lag;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public CartRepricer(CartRepository cartRepository, TransactionTemplate transactions, int chunkSize,
+                        MeterRegistry meterRegistry) {
+        this.cartRepository = cartRepository;
+        this.transactions = transactions;
+        this.chunkSize = chunkSize;
+        this.repriced = Counter.builder("carts.repriced")
+                .description("Cart totals recomputed after a price change")
+                .register(meterRegistry);
+        this.mismatches = Counter.builder("carts.checkout.total.mismatch")
+                .description("Carts that reached checkout with a stale total")
+                .register(meterRegistry);
+        this.lag = Timer.builder("carts.reprice.lag")
+                .description("Time from a price change to the last of its carts being repriced")
+                .register(meterRegistry);
+        Gauge.builder("carts.reprice.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public synchronized void start() {
+        running = true;
+        worker = new Thread(this::work, "cart-repricer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            worker.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+            worker = null;
+        }
+        if (!pending.isEmpty()) {
+            // Checkout still verifies every total
+            log.warn("event=cart.reprice outcome=abandoned items={}", pending.size());
+        }
+    }
+
+    /**
+     * Queues the carts holding the item for repricing. Call once the new price is committed.
+     */
+    public void priceChanged(long itemId) {
+        if (pending.putIfAbsent(itemId, System.nanoTime()) == null) {
+            queue.add(itemId);
+        }
+    }
+
+    /**
+     * Recomputes the cart's total from its items and corrects it if it is stale.
+     *
+     * @return false when the total had to be corrected
+     */
+    public boolean verify(Cart cart) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (Item item : cart.getItems()) {
+            total = total.add(item.getPrice());
+        }
+        if (cart.getTotal() != null && cart.getTotal().compareTo(total) == 0) {
+            return true;
+        }
+        mismatches.increment();
+        log.warn("event=cart.verify outcome=stale_total cartId={} total={} expected={}", cart.getId(), cart.getTotal(), total);
+        cart.setTotal(total);
+        return false;
+    }
+
+    /**
+     * Recomputes the totals of every cart holding the item.
+     *
+     * @return the number of carts
+     */
+    int reprice(long itemId) {
+        int carts = 0;
+        long after = 0;
+        while (true) {
+            List<Long> cartIds = cartRepository.findIdsHoldingItem(itemId, after, PageRequest.of(0, chunkSize));
+            if (cartIds.isEmpty()) {
+                return carts;
+            }
+            transactions.execute(status -> cartRepository.recomputeTotals(cartIds));
+            repriced.increment(cartIds.size());
+            carts += cartIds.size();
+            after = cartIds.get(cartIds.size() - 1);
+        }
+    }
+
+    private void work() {
+        while (running) {
+            Long itemId;
+            try {
+                itemId = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Off the pending set first, so that a change made while repricing queues the item again
+            long queued = pending.remove(itemId);
+            try {
+                int carts = reprice(itemId);
+                lag.record(System.nanoTime() - queued, TimeUnit.NANOSECONDS);
+                log.info("event=cart.reprice outcome=success itemId={} carts={}", itemId, carts);
+            } catch (RuntimeException e) {
+                log.error("event=cart.reprice outcome=failed itemId={}", itemId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.pricing;
+
+import com.example.demo.model.persistence.repositories.CartRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Item price changes through {@code PUT /api/admin/items/{id}/price}, followed by repricing of the open carts.
+ */
+@Configuration
+public class PricingConfiguration {
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public CartRepricer cartRepricer(CartRepository cartRepository, PlatformTransactionManager transactionManager,
+                                     @Value("${app.pricing.reprice-chunk-size:200}") int chunkSize,
+                                     MeterRegistry meterRegistry) {
+        return new CartRepricer(cartRepository, new TransactionTemplate(transactionManager), chunkSize, meterRegistry);
+    }
+}
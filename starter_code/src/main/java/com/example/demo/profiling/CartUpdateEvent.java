@@ -0,0 +1,53 @@
+package com.example.demo.profiling;
+
+import com.example.demo.model.persistence.Cart;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.http.ResponseEntity;
+
+@Name("com.example.demo.CartUpdate")
+@Label("Cart Update")
+@Description("An item added to or removed from a cart")
+@Category({"Sareeta", "Business Operations"})
+@StackTrace(false)
+public final class CartUpdateEvent extends Event {
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Quantity")
+    private final int quantity;
+
+    @Label("HTTP Status")
+    private int status;
+
+    @Label("Items")
+    @Description("Items in the cart afterwards")
+    private int items;
+
+    private CartUpdateEvent(String operation, int quantity) {
+        this.operation = operation;
+        this.quantity = quantity;
+    }
+
+    public static CartUpdateEvent start(String operation, int quantity) {
+        CartUpdateEvent event = new CartUpdateEvent(operation, quantity);
+        event.begin();
+        return event;
+    }
+
+    public ResponseEntity<Cart> end(ResponseEntity<Cart> response) {
+        end();
+        if (shouldCommit()) {
+            status = response.getStatusCodeValue();
+            Cart cart = response.getBody();
+            items = cart == null || cart.getItems() == null ? 0 : cart.getItems().size();
+            commit();
+        }
+        return response;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Recording;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps a continuous flight recording of the last {@code app.jfr.max-age} when {@code app.jfr.enabled} is set, with
+ * the JDK's default settings plus {@code jfr/business-operations.jfc}. The recording is written to
+ * {@code app.jfr.destination} when the application stops, or on demand with {@code jcmd <pid> JFR.dump}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.jfr", name = "enabled", havingValue = "true")
+public class FlightRecorderConfiguration {
+
+    static final String SETTINGS = "jfr/business-operations.jfc";
+
+    @Bean(destroyMethod = "stop")
+    public Recording businessOperationsRecording(@Value("${app.jfr.max-age:6h}") Duration maxAge,
+                                                 @Value("${app.jfr.destination:recordings/app.jfr}") Path destination)
+            throws IOException, ParseException {
+        Recording recording = new Recording(settings());
+        recording.setName("business-operations");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        Files.createDirectories(destination.toAbsolutePath().getParent());
+        recording.setDestination(destination);
+        recording.start();
+        return recording;
+    }
+
+    static Map<String, String> settings() throws IOException, ParseException {
+        Map<String, String> settings = new HashMap<>(jdk.jfr.Configuration.getConfiguration("default").getSettings());
+        try (Reader reader = new InputStreamReader(new ClassPathResource(SETTINGS).getInputStream(), StandardCharsets.UTF_8)) {
+            settings.putAll(jdk.jfr.Configuration.create(reader).getSettings());
+        }
+        return settings;
+    }
+}
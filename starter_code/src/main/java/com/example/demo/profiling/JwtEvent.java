@@ -0,0 +1,50 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.demo.Jwt")
+@Label("JWT")
+@Description("A token signed on login or verified on an authenticated request")
+@Category({"Sareeta", "Security"})
+@StackTrace(false)
+public final class JwtEvent extends Event {
+
+    public static final String SIGN = "sign";
+    public static final String VERIFY = "verify";
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Payload Size")
+    @Description("Length of the encoded token")
+    @DataAmount
+    private long payloadBytes;
+
+    @Label("Valid")
+    private boolean valid;
+
+    private JwtEvent(String operation) {
+        this.operation = operation;
+    }
+
+    public static JwtEvent start(String operation) {
+        JwtEvent event = new JwtEvent(operation);
+        event.begin();
+        return event;
+    }
+
+    public void end(int payloadBytes, boolean valid) {
+        end();
+        if (shouldCommit()) {
+            this.payloadBytes = payloadBytes;
+            this.valid = valid;
+            commit();
+        }
+    }
+}
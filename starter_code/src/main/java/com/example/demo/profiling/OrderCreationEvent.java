@@ -0,0 +1,33 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.demo.OrderCreation")
+@Label("Order Creation")
+@Description("An order built in memory from the items of a cart")
+@Category({"Sareeta", "Business Operations"})
+@StackTrace(false)
+public final class OrderCreationEvent extends Event {
+
+    @Label("Items")
+    private int items;
+
+    public static OrderCreationEvent start() {
+        OrderCreationEvent event = new OrderCreationEvent();
+        event.begin();
+        return event;
+    }
+
+    public void end(int items) {
+        end();
+        if (shouldCommit()) {
+            this.items = items;
+            commit();
+        }
+    }
+}
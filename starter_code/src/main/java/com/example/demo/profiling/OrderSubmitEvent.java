@@ -0,0 +1,47 @@
+package com.example.demo.profiling;
+
+import com.example.demo.model.persistence.UserOrder;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.springframework.http.ResponseEntity;
+
+@Name("com.example.demo.OrderSubmit")
+@Label("Order Submit")
+@Description("A cart turned into an order, including the cart lookup and the insert")
+@Category({"Sareeta", "Business Operations"})
+@StackTrace(false)
+public final class OrderSubmitEvent extends Event {
+
+    @Label("HTTP Status")
+    private int status;
+
+    @Label("Items")
+    private int items;
+
+    @Label("Total")
+    private double total;
+
+    public static OrderSubmitEvent start() {
+        OrderSubmitEvent event = new OrderSubmitEvent();
+        event.begin();
+        return event;
+    }
+
+    public ResponseEntity<UserOrder> end(ResponseEntity<UserOrder> response) {
+        end();
+        if (shouldCommit()) {
+            status = response.getStatusCodeValue();
+            UserOrder order = response.getBody();
+            if (order != null) {
+                items = order.getItems().size();
+                total = order.getTotal() == null ? 0 : order.getTotal().doubleValue();
+            }
+            commit();
+        }
+        return response;
+    }
+}
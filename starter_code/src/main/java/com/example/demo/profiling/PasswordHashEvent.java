@@ -0,0 +1,48 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.example.demo.PasswordHash")
+@Label("Password Hash")
+@Description("A BCrypt hash computed for a new password or to check a login")
+@Category({"Sareeta", "Security"})
+@StackTrace(false)
+public final class PasswordHashEvent extends Event {
+
+    public static final String ENCODE = "encode";
+    public static final String MATCHES = "matches";
+
+    @Label("Operation")
+    private final String operation;
+
+    @Label("Strength")
+    @Description("BCrypt work factor, log2 of the rounds")
+    private final int strength;
+
+    @Label("Matched")
+    private boolean matched;
+
+    private PasswordHashEvent(String operation, int strength) {
+        this.operation = operation;
+        this.strength = strength;
+    }
+
+    public static PasswordHashEvent start(String operation, int strength) {
+        PasswordHashEvent event = new PasswordHashEvent(operation, strength);
+        event.begin();
+        return event;
+    }
+
+    public void end(boolean matched) {
+        end();
+        if (shouldCommit()) {
+            this.matched = matched;
+            commit();
+        }
+    }
+}
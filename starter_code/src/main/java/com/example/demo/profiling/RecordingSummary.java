@@ -0,0 +1,213 @@
+package com.example.demo.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summarizes the application's events in a flight recording, one line per operation: durations, items and payload
+ * sizes, and how many of the operations overlapped a GC pause or waited on a monitor or a park on their own thread.
+ *
+ * <pre>
+ * java -cp target/classes com.example.demo.profiling.RecordingSummary recordings/app.jfr
+ * </pre>
+ */
+public final class RecordingSummary {
+
+    private static final String EVENT_PREFIX = "com.example.demo.";
+
+    private RecordingSummary() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: RecordingSummary <recording.jfr>");
+            System.exit(2);
+        }
+        System.out.print(format(read(Paths.get(args[0]))));
+    }
+
+    /**
+     * The operations of a recording keyed by event name and operation, such as {@code CartUpdate add}.
+     */
+    public static Map<String, Operation> read(Path recording) throws IOException {
+        List<RecordedEvent> events = new ArrayList<>();
+        List<Interval> pauses = new ArrayList<>();
+        Map<Long, List<Interval>> waitsByThread = new HashMap<>();
+        try (RecordingFile file = new RecordingFile(recording)) {
+            while (file.hasMoreEvents()) {
+                RecordedEvent event = file.readEvent();
+                String type = event.getEventType().getName();
+                if (type.startsWith(EVENT_PREFIX)) {
+                    events.add(event);
+                } else if (type.equals("jdk.GCPhasePause")) {
+                    pauses.add(new Interval(event));
+                } else if ((type.equals("jdk.JavaMonitorEnter") || type.equals("jdk.ThreadPark")) && event.getThread() != null) {
+                    waitsByThread.computeIfAbsent(event.getThread().getJavaThreadId(), thread -> new ArrayList<>())
+                            .add(new Interval(event));
+                }
+            }
+        }
+        pauses.sort(Comparator.comparingLong(interval -> interval.start));
+        waitsByThread.values().forEach(waits -> waits.sort(Comparator.comparingLong(interval -> interval.start)));
+
+        Map<String, Operation> operations = new TreeMap<>();
+        for (RecordedEvent event : events) {
+            String name = event.getEventType().getName().substring(EVENT_PREFIX.length());
+            if (event.hasField("operation")) {
+                name += " " + event.getString("operation");
+            }
+            Interval window = new Interval(event);
+            List<Interval> waits = event.getThread() == null ? null : waitsByThread.get(event.getThread().getJavaThreadId());
+            operations.computeIfAbsent(name, Operation::new).add(event, window.overlap(pauses), window.overlap(waits));
+        }
+        return operations;
+    }
+
+    public static String format(Map<String, Operation> operations) {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "%-22s %7s %9s %9s %9s %9s %9s %11s %6s %8s %6s %8s%n", "Operation", "Count", "Mean ms", "p50 ms",
+                "p99 ms", "Max ms", "Items", "Payload B", "In GC", "GC ms", "Waits", "Wait ms"));
+        for (Operation operation : operations.values()) {
+            summary.append(String.format(Locale.ROOT, "%-22s %7d %9.3f %9.3f %9.3f %9.3f %9d %11d %6d %8.3f %6d %8.3f%n",
+                    operation.name, operation.getCount(), millis(operation.getMeanNanos()), millis(operation.percentileNanos(0.5)),
+                    millis(operation.percentileNanos(0.99)), millis(operation.percentileNanos(1)), operation.items,
+                    operation.payloadBytes, operation.inGc, millis(operation.gcNanos), operation.waiting, millis(operation.waitNanos)));
+        }
+        return summary.toString();
+    }
+
+    private static double millis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public static final class Operation {
+
+        private final String name;
+        private long[] durations = new long[16];
+        private int count;
+        private long items;
+        private long payloadBytes;
+        private int inGc;
+        private long gcNanos;
+        private int waiting;
+        private long waitNanos;
+
+        Operation(String name) {
+            this.name = name;
+        }
+
+        void add(RecordedEvent event, long pauseNanos, long waitedNanos) {
+            if (count == durations.length) {
+                durations = Arrays.copyOf(durations, count * 2);
+            }
+            durations[count++] = event.getDuration().toNanos();
+            if (event.hasField("items")) {
+                items += event.getInt("items");
+            }
+            if (event.hasField("payloadBytes")) {
+                payloadBytes += event.getLong("payloadBytes");
+            }
+            if (pauseNanos > 0) {
+                inGc++;
+                gcNanos += pauseNanos;
+            }
+            if (waitedNanos > 0) {
+                waiting++;
+                waitNanos += waitedNanos;
+            }
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getMeanNanos() {
+            return count == 0 ? 0 : (double) Arrays.stream(durations, 0, count).sum() / count;
+        }
+
+        public long percentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(durations, count);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, (int) Math.ceil(percentile * count) - 1)];
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public long getPayloadBytes() {
+            return payloadBytes;
+        }
+
+        /**
+         * Operations during which at least one GC pause happened.
+         */
+        public int getInGc() {
+            return inGc;
+        }
+
+        /**
+         * Operations whose thread waited on a monitor or a park for longer than the recording's threshold.
+         */
+        public int getWaiting() {
+            return waiting;
+        }
+    }
+
+    private static final class Interval {
+
+        final long start;
+        final long end;
+
+        Interval(RecordedEvent event) {
+            this.start = epochNanos(event.getStartTime());
+            this.end = epochNanos(event.getEndTime());
+        }
+
+        private static long epochNanos(Instant instant) {
+            return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+        }
+
+        /**
+         * Time this interval shares with the given ones, which are sorted and do not overlap each other.
+         */
+        long overlap(List<Interval> sorted) {
+            if (sorted == null) {
+                return 0;
+            }
+            // First interval ending after this one starts
+            int low = 0;
+            int high = sorted.size();
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (sorted.get(middle).end <= start) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            long shared = 0;
+            for (int i = low; i < sorted.size() && sorted.get(i).start < end; i++) {
+                shared += Math.min(end, sorted.get(i).end) - Math.max(start, sorted.get(i).start);
+            }
+            return shared;
+        }
+    }
+}
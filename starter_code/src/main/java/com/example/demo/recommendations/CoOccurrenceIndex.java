@@ -0,0 +1,386 @@
+package com.example.demo.recommendations;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * How often items are bought together, updated with every order as it commits instead of recomputed over all the
+ * orders. For each item the number of orders with it and, per other item, the number of orders with both are kept in
+ * primitive {@code long} maps, so an item's related items are read from a single map without touching the database.
+ * <p>
+ * The counts are saved to the snapshot file every {@code snapshot-interval} and at shutdown, along with the highest
+ * order id counted. At startup the snapshot is loaded and only the orders with a higher id are read; without a usable
+ * snapshot every order is read. An order committed after a snapshot but with a lower id than one it counted, which
+ * asynchronous submission can produce, is missed by that catch-up.
+ */
+public class CoOccurrenceIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(CoOccurrenceIndex.class);
+
+    private static final int MAGIC = 0x434F4F43;
+    private static final int VERSION = 1;
+    private static final int CATCH_UP_CHUNK = 500;
+
+    private final OrderRepository orderRepository;
+    private final Path snapshotFile;
+    private final long snapshotMillis;
+    // Guards the maps below; an order is added under the write lock, a query takes the read lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Orders with each item
+    private final LongLongMap itemOrders = new LongLongMap();
+    // Orders with both items, per item and other item; every pair is counted from both sides
+    private final LongObjectMap<LongLongMap> pairs = new LongObjectMap<>();
+    private long lastOrderId;
+    // Orders added since the last snapshot
+    private long unsaved;
+
+    private ScheduledExecutorService scheduler;
+
+    public CoOccurrenceIndex(OrderRepository orderRepository, Path snapshotFile, Duration snapshotInterval) {
+        this.orderRepository = orderRepository;
+        this.snapshotFile = snapshotFile;
+        this.snapshotMillis = snapshotInterval.toMillis();
+    }
+
+    public synchronized void start() {
+        long start = System.nanoTime();
+        boolean restored = restore();
+        int orders = catchUp();
+        if (!restored) {
+            // Replaces a snapshot that could not be used even when there were no orders to count
+            lock.writeLock().lock();
+            try {
+                unsaved++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cooccurrence-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotMillis, snapshotMillis, TimeUnit.MILLISECONDS);
+        log.info("event=cooccurrence.start outcome=success restored={} orders={} items={} elapsedMillis={}",
+                restored, orders, itemCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+            scheduler = null;
+        }
+        snapshotQuietly();
+    }
+
+    /**
+     * Adds an inserted order, once its transaction commits when there is one.
+     */
+    public void record(UserOrder order) {
+        long orderId = order.getId();
+        List<Item> items = order.getItems();
+        long[] itemIds = new long[items.size()];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = items.get(i).getId();
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    add(orderId, itemIds);
+                }
+            });
+        } else {
+            add(orderId, itemIds);
+        }
+    }
+
+    /**
+     * @param limit the most items to return
+     * @return the items bought with the item the most often, most first, then by id
+     */
+    public List<RelatedItem> related(long itemId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongLongMap together = pairs.get(itemId);
+            if (together == null || limit <= 0) {
+                return Collections.emptyList();
+            }
+            // The best limit items so far, sorted; a candidate is inserted in place, which for the few items asked
+            // for is cheaper than a heap
+            int size = Math.min(limit, together.size());
+            long[] ids = new long[size];
+            long[] counts = new long[size];
+            int found = 0;
+            for (int slot = 0; slot < together.capacity(); slot++) {
+                long id = together.keyAt(slot);
+                if (id == 0) {
+                    continue;
+                }
+                long count = together.valueAt(slot);
+                int at = found;
+                while (at > 0 && ranksBefore(count, id, counts[at - 1], ids[at - 1])) {
+                    at--;
+                }
+                if (at == size) {
+                    continue;
+                }
+                int moved = Math.min(found, size - 1) - at;
+                System.arraycopy(ids, at, ids, at + 1, moved);
+                System.arraycopy(counts, at, counts, at + 1, moved);
+                ids[at] = id;
+                counts[at] = count;
+                found = Math.min(found + 1, size);
+            }
+
+            double orders = itemOrders.get(itemId);
+            List<RelatedItem> related = new ArrayList<>(found);
+            for (int i = 0; i < found; i++) {
+                related.add(new RelatedItem(ids[i], counts[i], counts[i] / orders));
+            }
+            return related;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Saves the counts to the snapshot file, replacing it atomically.
+     *
+     * @return false when nothing changed since the last snapshot
+     */
+    public boolean snapshot() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long saved;
+        // Serialized in memory, so that orders only wait for the copy and not for the disk
+        lock.readLock().lock();
+        try {
+            if (unsaved == 0) {
+                return false;
+            }
+            saved = unsaved;
+            write(new DataOutputStream(bytes));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                // On disk before the rename makes it the snapshot
+                channel.force(true);
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        lock.writeLock().lock();
+        try {
+            unsaved -= saved;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("event=cooccurrence.snapshot outcome=success bytes={}", bytes.size());
+        return true;
+    }
+
+    void add(long orderId, long[] itemIds) {
+        // An item bought several times is one order with the item
+        long[] distinct = Arrays.stream(itemIds).distinct().toArray();
+        lock.writeLock().lock();
+        try {
+            for (long itemId : distinct) {
+                itemOrders.add(itemId, 1);
+                if (distinct.length == 1) {
+                    continue;
+                }
+                LongLongMap together = pairs.get(itemId);
+                if (together == null) {
+                    together = new LongLongMap(distinct.length - 1);
+                    pairs.put(itemId, together);
+                }
+                for (long other : distinct) {
+                    if (other != itemId) {
+                        together.add(other, 1);
+                    }
+                }
+            }
+            lastOrderId = Math.max(lastOrderId, orderId);
+            unsaved++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int itemCount() {
+        lock.readLock().lock();
+        try {
+            return itemOrders.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Loads the snapshot, unless it is missing, unreadable or counts orders this database does not have
+    private boolean restore() {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(snapshotFile))) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+                log.warn("event=cooccurrence.restore outcome=skipped reason=unknown_format file={}", snapshotFile);
+                return false;
+            }
+            long snapshotOrderId = data.readLong();
+            Long maxOrderId = orderRepository.findMaxId();
+            if (snapshotOrderId > (maxOrderId == null ? 0 : maxOrderId)) {
+                log.warn("event=cooccurrence.restore outcome=skipped reason=other_database file={}", snapshotFile);
+                return false;
+            }
+            LongLongMap restoredOrders = new LongLongMap();
+            LongObjectMap<LongLongMap> restoredPairs = new LongObjectMap<>();
+            for (int items = data.readInt(); items > 0; items--) {
+                long itemId = data.readLong();
+                restoredOrders.add(itemId, data.readLong());
+                int others = data.readInt();
+                if (others > 0) {
+                    LongLongMap together = new LongLongMap(others);
+                    for (int i = 0; i < others; i++) {
+                        together.add(data.readLong(), data.readLong());
+                    }
+                    restoredPairs.put(itemId, together);
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                copy(restoredOrders, itemOrders);
+                for (int slot = 0; slot < restoredPairs.capacity(); slot++) {
+                    if (restoredPairs.keyAt(slot) != 0) {
+                        pairs.put(restoredPairs.keyAt(slot), restoredPairs.valueAt(slot));
+                    }
+                }
+                lastOrderId = snapshotOrderId;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException | RuntimeException e) {
+            log.warn("event=cooccurrence.restore outcome=failed file={}", snapshotFile, e);
+            return false;
+        }
+    }
+
+    // Adds the orders placed after the last one counted, a chunk of orders at a time
+    private int catchUp() {
+        int orders = 0;
+        long after = lastOrderId;
+        while (true) {
+            List<Long> orderIds = orderRepository.findIdsAfter(after, PageRequest.of(0, CATCH_UP_CHUNK));
+            if (orderIds.isEmpty()) {
+                return orders;
+            }
+            // One row per item, the rows of an order adjacent
+            List<Object[]> rows = orderRepository.findItemIdsByOrderIds(orderIds);
+            int first = 0;
+            for (int i = 1; i <= rows.size(); i++) {
+                if (i == rows.size() || !rows.get(i)[0].equals(rows.get(first)[0])) {
+                    long[] itemIds = new long[i - first];
+                    for (int j = first; j < i; j++) {
+                        itemIds[j - first] = (Long) rows.get(j)[1];
+                    }
+                    add((Long) rows.get(first)[0], itemIds);
+                    first = i;
+                }
+            }
+            orders += orderIds.size();
+            after = orderIds.get(orderIds.size() - 1);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(lastOrderId);
+        out.writeInt(itemOrders.size());
+        for (int slot = 0; slot < itemOrders.capacity(); slot++) {
+            long itemId = itemOrders.keyAt(slot);
+            if (itemId == 0) {
+                continue;
+            }
+            out.writeLong(itemId);
+            out.writeLong(itemOrders.valueAt(slot));
+            LongLongMap together = pairs.get(itemId);
+            out.writeInt(together == null ? 0 : together.size());
+            if (together != null) {
+                for (int other = 0; other < together.capacity(); other++) {
+                    if (together.keyAt(other) != 0) {
+                        out.writeLong(together.keyAt(other));
+                        out.writeLong(together.valueAt(other));
+                    }
+                }
+            }
+        }
+        out.flush();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("event=cooccurrence.snapshot outcome=failed file={}", snapshotFile, e);
+        }
+    }
+
+    private static void copy(LongLongMap from, LongLongMap to) {
+        for (int slot = 0; slot < from.capacity(); slot++) {
+            if (from.keyAt(slot) != 0) {
+                to.add(from.keyAt(slot), from.valueAt(slot));
+            }
+        }
+    }
+
+    // Higher counts first, then lower ids
+    private static boolean ranksBefore(long count, long id, long otherCount, long otherId) {
+        return count > otherCount || (count == otherCount && id < otherId);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.recommendations;
+
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Items frequently bought together at {@code GET /api/item/{id}/related}, on unless {@code app.recommendations.enabled}
+ * is false.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.recommendations", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(RecommendationProperties.class)
+public class RecommendationConfiguration {
+
+    // Started while the context starts, before requests or replayed submissions can add orders
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    public CoOccurrenceIndex coOccurrenceIndex(OrderRepository orderRepository, RecommendationProperties properties) {
+        return new CoOccurrenceIndex(orderRepository, properties.getSnapshot(), properties.getSnapshotInterval());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.recommendations;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.recommendations")
+public class RecommendationProperties {
+
+    private boolean enabled = true;
+    // Where the co-occurrence counts are saved, so that a restart only reads the orders placed since
+    private Path snapshot = Paths.get("data", "cooccurrence.bin");
+    // How often the counts are saved when they changed; they are also saved at shutdown
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+    // Related items returned when a request does not ask for a number
+    private int topItems = 10;
+    // Most related items a request can ask for
+    private int maxItems = 100;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Path getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Path snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    public int getTopItems() {
+        return topItems;
+    }
+
+    public void setTopItems(int topItems) {
+        this.topItems = topItems;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+}
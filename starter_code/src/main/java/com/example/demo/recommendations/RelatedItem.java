@@ -0,0 +1,35 @@
+package com.example.demo.recommendations;
+
+/**
+ * An item bought together with another one.
+ */
+public class RelatedItem {
+
+    private final long itemId;
+    private final long orders;
+    private final double confidence;
+
+    public RelatedItem(long itemId, long orders, double confidence) {
+        this.itemId = itemId;
+        this.orders = orders;
+        this.confidence = confidence;
+    }
+
+    public long getItemId() {
+        return itemId;
+    }
+
+    /**
+     * @return the number of orders with both items
+     */
+    public long getOrders() {
+        return orders;
+    }
+
+    /**
+     * @return the share of the orders of the other item that also have this one
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.demo.sales;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Revenue, basket sizes and item sales of the orders placed in the last {@code app.sales.retention}, kept in memory
+ * as one bucket per minute so that dashboards do not aggregate {@code user_order} on every refresh. Orders are added
+ * as they commit and the buckets are refilled from the orders at startup.
+ * <p>
+ * Buckets are reused round-robin: the slot of a minute is replaced by the first order of the minute a retention
+ * later. Every counter is a {@link LongAdder}, so concurrent orders do not contend on a single value, and a query may
+ * see an order counted in one total and not yet in another.
+ */
+public class SalesAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(SalesAggregator.class);
+
+    private static final long MINUTE_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private final OrderRepository orderRepository;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private final LongSupplier millisClock;
+
+    public SalesAggregator(OrderRepository orderRepository, Duration retention) {
+        this(orderRepository, retention, System::currentTimeMillis);
+    }
+
+    SalesAggregator(OrderRepository orderRepository, Duration retention, LongSupplier millisClock) {
+        this.orderRepository = orderRepository;
+        this.buckets = new AtomicReferenceArray<>((int) Math.max(1, (retention.toMillis() + MINUTE_MILLIS - 1) / MINUTE_MILLIS));
+        this.millisClock = millisClock;
+    }
+
+    /**
+     * @return the number of minutes that can be queried
+     */
+    public int getRetentionMinutes() {
+        return buckets.length();
+    }
+
+    /**
+     * Adds an inserted order, once its transaction commits when there is one.
+     */
+    public void record(UserOrder order) {
+        long placed = order.getCreatedAt() == null ? millisClock.getAsLong() : order.getCreatedAt().toEpochMilli();
+        long totalCents = cents(order.getTotal());
+        List<Item> items = order.getItems();
+        long[] itemIds = new long[items.size()];
+        long[] itemCents = new long[items.size()];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = items.get(i).getId();
+            itemCents[i] = cents(items.get(i).getPrice());
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    add(placed, totalCents, itemIds, itemCents);
+                }
+            });
+        } else {
+            add(placed, totalCents, itemIds, itemCents);
+        }
+    }
+
+    /**
+     * Replaces the buckets with the orders of the retention read from the database.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        long oldestMinute = currentMinute() - buckets.length() + 1;
+        for (int slot = 0; slot < buckets.length(); slot++) {
+            buckets.set(slot, null);
+        }
+
+        // One row per item of each order, the rows of an order adjacent
+        long orders = 0;
+        Long orderId = null;
+        long placed = 0;
+        long totalCents = 0;
+        LongList itemIds = new LongList();
+        LongList itemCents = new LongList();
+        for (Object[] row : orderRepository.findSalesSince(Instant.ofEpochMilli(oldestMinute * MINUTE_MILLIS))) {
+            long id = (Long) row[0];
+            if (orderId == null || orderId != id) {
+                if (orderId != null) {
+                    add(placed, totalCents, itemIds.toArray(), itemCents.toArray());
+                    orders++;
+                }
+                orderId = id;
+                totalCents = cents((BigDecimal) row[1]);
+                placed = ((Instant) row[2]).toEpochMilli();
+                itemIds.clear();
+                itemCents.clear();
+            }
+            if (row[3] != null) {
+                itemIds.add((Long) row[3]);
+                itemCents.add(cents((BigDecimal) row[4]));
+            }
+        }
+        if (orderId != null) {
+            add(placed, totalCents, itemIds.toArray(), itemCents.toArray());
+            orders++;
+        }
+        log.info("event=sales.rebuild outcome=success orders={} minutes={} elapsedMillis={}",
+                orders, buckets.length(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * @param minutes   the length of the window, ending with the current minute, at most the retention
+     * @param topItems  the number of best selling items, by quantity
+     */
+    public SalesWindow query(int minutes, int topItems) {
+        if (minutes < 1 || minutes > buckets.length()) {
+            throw new IllegalArgumentException("minutes must be between 1 and " + buckets.length());
+        }
+        long lastMinute = currentMinute();
+        long firstMinute = lastMinute - minutes + 1;
+        long orders = 0;
+        long revenueCents = 0;
+        long items = 0;
+        List<SalesWindow.Minute> series = new ArrayList<>(minutes);
+        Map<Long, long[]> itemTotals = new HashMap<>();
+        for (long minute = firstMinute; minute <= lastMinute; minute++) {
+            Bucket bucket = buckets.get(slot(minute));
+            if (bucket == null || bucket.minute != minute) {
+                series.add(new SalesWindow.Minute(Instant.ofEpochMilli(minute * MINUTE_MILLIS), 0, 0));
+                continue;
+            }
+            long bucketOrders = bucket.orders.sum();
+            long bucketRevenue = bucket.revenueCents.sum();
+            orders += bucketOrders;
+            revenueCents += bucketRevenue;
+            items += bucket.items.sum();
+            series.add(new SalesWindow.Minute(Instant.ofEpochMilli(minute * MINUTE_MILLIS), bucketOrders, bucketRevenue));
+            bucket.itemSales.forEach((itemId, sales) -> {
+                long[] totals = itemTotals.computeIfAbsent(itemId, id -> new long[2]);
+                totals[0] += sales.quantity.sum();
+                totals[1] += sales.revenueCents.sum();
+            });
+        }
+
+        List<SalesWindow.ItemSales> top = new ArrayList<>(itemTotals.size());
+        itemTotals.forEach((itemId, totals) -> top.add(new SalesWindow.ItemSales(itemId, totals[0], totals[1])));
+        top.sort(Comparator.comparingLong(SalesWindow.ItemSales::getQuantity).reversed()
+                .thenComparingLong(SalesWindow.ItemSales::getItemId));
+        return new SalesWindow(Instant.ofEpochMilli(firstMinute * MINUTE_MILLIS),
+                Instant.ofEpochMilli((lastMinute + 1) * MINUTE_MILLIS), orders, revenueCents, items, series,
+                top.subList(0, Math.min(topItems, top.size())));
+    }
+
+    void add(long placedMillis, long totalCents, long[] itemIds, long[] itemCents) {
+        Bucket bucket = bucket(Math.floorDiv(placedMillis, MINUTE_MILLIS));
+        if (bucket == null) {
+            return;
+        }
+        bucket.orders.increment();
+        bucket.revenueCents.add(totalCents);
+        bucket.items.add(itemIds.length);
+        for (int i = 0; i < itemIds.length; i++) {
+            ItemSales sales = bucket.itemSales.computeIfAbsent(itemIds[i], id -> new ItemSales());
+            sales.quantity.increment();
+            sales.revenueCents.add(itemCents[i]);
+        }
+    }
+
+    // The bucket of the minute, or null when the minute is older than the retention
+    private Bucket bucket(long minute) {
+        if (minute <= currentMinute() - buckets.length()) {
+            return null;
+        }
+        int slot = slot(minute);
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket != null && bucket.minute == minute) {
+                return bucket;
+            }
+            if (bucket != null && bucket.minute > minute) {
+                return null;
+            }
+            Bucket next = new Bucket(minute);
+            if (buckets.compareAndSet(slot, bucket, next)) {
+                return next;
+            }
+        }
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) buckets.length());
+    }
+
+    private long currentMinute() {
+        return Math.floorDiv(millisClock.getAsLong(), MINUTE_MILLIS);
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static final class Bucket {
+
+        final long minute;
+        final LongAdder orders = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+        final LongAdder items = new LongAdder();
+        final ConcurrentMap<Long, ItemSales> itemSales = new ConcurrentHashMap<>();
+
+        Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+
+    private static final class ItemSales {
+
+        final LongAdder quantity = new LongAdder();
+        final LongAdder revenueCents = new LongAdder();
+    }
+
+    // Growable long[] for the items of the order being rebuilt
+    private static final class LongList {
+
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void clear() {
+            size = 0;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.sales;
+
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Live sales figures at {@code GET /api/admin/sales}, on unless {@code app.sales.enabled} is false.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sales", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(SalesProperties.class)
+public class SalesConfiguration {
+
+    // Rebuilt while the context starts, before requests or replayed submissions can add orders
+    @Bean(initMethod = "rebuild")
+    public SalesAggregator salesAggregator(OrderRepository orderRepository, SalesProperties properties) {
+        return new SalesAggregator(orderRepository, properties.getRetention());
+    }
+}
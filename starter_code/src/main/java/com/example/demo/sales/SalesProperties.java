@@ -0,0 +1,39 @@
+package com.example.demo.sales;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.sales")
+public class SalesProperties {
+
+    private boolean enabled = true;
+    // Longest window that can be queried, kept as one bucket per minute and rebuilt from the orders at startup
+    private Duration retention = Duration.ofHours(1);
+    // Best selling items returned when a query does not ask for a number
+    private int topItems = 10;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public int getTopItems() {
+        return topItems;
+    }
+
+    public void setTopItems(int topItems) {
+        this.topItems = topItems;
+    }
+}
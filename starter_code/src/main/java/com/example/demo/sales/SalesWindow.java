@@ -0,0 +1,120 @@
+package com.example.demo.sales;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Sales over the last minutes, as answered by {@link SalesAggregator#query(int, int)}.
+ */
+public class SalesWindow {
+
+    private final Instant from;
+    private final Instant to;
+    private final long orders;
+    private final BigDecimal revenue;
+    private final long items;
+    private final List<Minute> minutes;
+    private final List<ItemSales> topItems;
+
+    SalesWindow(Instant from, Instant to, long orders, long revenueCents, long items, List<Minute> minutes,
+                List<ItemSales> topItems) {
+        this.from = from;
+        this.to = to;
+        this.orders = orders;
+        this.revenue = BigDecimal.valueOf(revenueCents, 2);
+        this.items = items;
+        this.minutes = minutes;
+        this.topItems = topItems;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public long getItems() {
+        return items;
+    }
+
+    public double getAverageBasketSize() {
+        return orders == 0 ? 0 : (double) items / orders;
+    }
+
+    public BigDecimal getAverageBasketValue() {
+        return orders == 0 ? BigDecimal.ZERO : revenue.divide(BigDecimal.valueOf(orders), 2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @return every minute of the window, oldest first, including those without orders
+     */
+    public List<Minute> getMinutes() {
+        return minutes;
+    }
+
+    public List<ItemSales> getTopItems() {
+        return topItems;
+    }
+
+    public static class Minute {
+
+        private final Instant start;
+        private final long orders;
+        private final BigDecimal revenue;
+
+        Minute(Instant start, long orders, long revenueCents) {
+            this.start = start;
+            this.orders = orders;
+            this.revenue = BigDecimal.valueOf(revenueCents, 2);
+        }
+
+        public Instant getStart() {
+            return start;
+        }
+
+        public long getOrders() {
+            return orders;
+        }
+
+        public BigDecimal getRevenue() {
+            return revenue;
+        }
+    }
+
+    public static class ItemSales {
+
+        private final long itemId;
+        private final long quantity;
+        private final BigDecimal revenue;
+
+        ItemSales(long itemId, long quantity, long revenueCents) {
+            this.itemId = itemId;
+            this.quantity = quantity;
+            this.revenue = BigDecimal.valueOf(revenueCents, 2);
+        }
+
+        public long getItemId() {
+            return itemId;
+        }
+
+        public long getQuantity() {
+            return quantity;
+        }
+
+        public BigDecimal getRevenue() {
+            return revenue;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.function.IntToLongFunction;
+
+/**
+ * Picks the highest BCrypt work factor whose hash time on this machine fits the configured budget. Each extra
+ * round doubles the cost, so the search walks up from the minimum and stops as soon as the next step would overshoot.
+ */
+public final class BCryptWorkFactorCalibrator {
+
+    private static final Logger log = LoggerFactory.getLogger(BCryptWorkFactorCalibrator.class);
+
+    static final int MIN_SUPPORTED_STRENGTH = 4;
+    static final int MAX_SUPPORTED_STRENGTH = 31;
+
+    private static final String CALIBRATION_PASSWORD = "calibration-password";
+    private static final int WARM_UP_ROUNDS = 3;
+
+    private BCryptWorkFactorCalibrator() {
+    }
+
+    public static int calibrate(Duration budget, int minStrength, int maxStrength) {
+        long start = System.nanoTime();
+        int strength = calibrate(budget.toNanos(), minStrength, maxStrength, BCryptWorkFactorCalibrator::timeHash);
+        log.info("event=bcrypt.calibrate strength={} budgetMs={} tookMs={}", strength, budget.toMillis(),
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return strength;
+    }
+
+    static int calibrate(long budgetNanos, int minStrength, int maxStrength, IntToLongFunction hashTimer) {
+        if (minStrength < MIN_SUPPORTED_STRENGTH || maxStrength > MAX_SUPPORTED_STRENGTH || minStrength > maxStrength) {
+            throw new IllegalArgumentException("Invalid BCrypt strength range: " + minStrength + ".." + maxStrength);
+        }
+        // The first rounds also warm up the JIT, keep the fastest one
+        long elapsed = Long.MAX_VALUE;
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            elapsed = Math.min(elapsed, hashTimer.applyAsLong(minStrength));
+        }
+
+        int strength = minStrength;
+        while (strength < maxStrength && elapsed * 2 <= budgetNanos) {
+            strength++;
+            elapsed = hashTimer.applyAsLong(strength);
+        }
+        // The doubling estimate can be off, step back if the measured hash is over budget
+        if (elapsed > budgetNanos && strength > minStrength) {
+            strength--;
+        }
+        return strength;
+    }
+
+    /**
+     * Reads the cost from a modular crypt hash such as {@code $2a$10$...}, or -1 if the value is not a BCrypt hash.
+     */
+    public static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        char tens = encodedPassword.charAt(4);
+        char units = encodedPassword.charAt(5);
+        if (!Character.isDigit(tens) || !Character.isDigit(units)) {
+            return -1;
+        }
+        return (tens - '0') * 10 + (units - '0');
+    }
+
+    private static long timeHash(int strength) {
+        String salt = BCrypt.gensalt(strength);
+        long start = System.nanoTime();
+        BCrypt.hashpw(CALIBRATION_PASSWORD, salt);
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.demo.security;
+
+import com.example.demo.profiling.PasswordHashEvent;
+import com.example.demo.tracing.Span;
+import com.example.demo.tracing.Tracing;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * BCrypt encoder that remembers its work factor so hashes produced at a different cost can be detected on login.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordHashEvent event = PasswordHashEvent.start(PasswordHashEvent.ENCODE, strength);
+        String encoded;
+        try (Span span = Tracing.start("bcrypt.encode")) {
+            encoded = super.encode(rawPassword);
+        }
+        event.end(true);
+        return encoded;
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordHashEvent event = PasswordHashEvent.start(PasswordHashEvent.MATCHES, BCryptWorkFactorCalibrator.strengthOf(encodedPassword));
+        boolean matched;
+        try (Span span = Tracing.start("bcrypt.matches")) {
+            matched = super.matches(rawPassword, encodedPassword);
+        }
+        event.end(matched);
+        return matched;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int current = BCryptWorkFactorCalibrator.strengthOf(encodedPassword);
+        return current != -1 && current != strength;
+    }
+}
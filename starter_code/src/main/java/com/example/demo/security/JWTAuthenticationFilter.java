@@ -2,8 +2,23 @@ package com.example.demo.security;
 
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.algorithms.Algorithm;
-import com.example.demo.model.persistence.User;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.example.demo.guestcart.GuestCartService;
+import com.example.demo.guestcart.GuestCartTokens;
+import com.example.demo.model.requests.LoginRequest;
+import com.example.demo.profiling.JwtEvent;
+import com.example.demo.tracing.Span;
+import com.example.demo.tracing.Tracing;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -20,36 +35,134 @@ import java.util.Date;
 
 public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JWTAuthenticationFilter.class);
+
+    // Credentials are two short strings, anything bigger is not a login attempt
+    static final int MAX_LOGIN_BODY_BYTES = 4 * 1024;
+
+    // Thread-safe and shared by every login, binding reads tokens straight off the request stream
+    private static final ObjectReader LOGIN_READER = new ObjectMapper()
+            .readerFor(LoginRequest.class)
+            .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .with(DeserializationFeature.FAIL_ON_TRAILING_TOKENS)
+            .with(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
+
     private final AuthenticationManager authenticationManager;
+    private final TokenBucketRateLimiter userRateLimiter;
+    private final GuestCartTokens guestCartTokens;
+    private final GuestCartService guestCartService;
+    private final Counter tooLarge;
+    private final Counter malformed;
+    private final Counter throttled;
+    private final Counter succeeded;
+    private final Counter failed;
 
-    public JWTAuthenticationFilter(AuthenticationManager authenticationManager) {
+    public JWTAuthenticationFilter(AuthenticationManager authenticationManager, TokenBucketRateLimiter userRateLimiter,
+                                   GuestCartTokens guestCartTokens, GuestCartService guestCartService,
+                                   MeterRegistry meterRegistry) {
         this.authenticationManager = authenticationManager;
+        this.userRateLimiter = userRateLimiter;
+        this.guestCartTokens = guestCartTokens;
+        this.guestCartService = guestCartService;
+        this.tooLarge = loginCounter(meterRegistry, "too_large");
+        this.malformed = loginCounter(meterRegistry, "malformed");
+        this.throttled = loginCounter(meterRegistry, "throttled");
+        this.succeeded = loginCounter(meterRegistry, "success");
+        this.failed = loginCounter(meterRegistry, "failure");
+    }
+
+    private static Counter loginCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.login").tag("outcome", outcome).register(meterRegistry);
     }
 
     @Override
     public Authentication attemptAuthentication(HttpServletRequest request, HttpServletResponse response) throws AuthenticationException {
+        // Refuse oversized bodies before reading them
+        if (request.getContentLengthLong() > MAX_LOGIN_BODY_BYTES) {
+            tooLarge.increment();
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return null;
+        }
+
+        LoginRequest credentials;
         try {
-            User userCredentials = new ObjectMapper().readValue(request.getInputStream(), User.class);
+            credentials = LOGIN_READER.readValue(new BoundedInputStream(request.getInputStream(), MAX_LOGIN_BODY_BYTES));
+        } catch (BoundedInputStream.LimitExceededException e) {
+            tooLarge.increment();
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return null;
+        } catch (JsonProcessingException e) {
+            malformed.increment();
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (credentials == null || credentials.getUsername() == null || credentials.getPassword() == null) {
+            malformed.increment();
+            response.setStatus(HttpStatus.BAD_REQUEST.value());
+            return null;
+        }
+
+        // Throttle per username before the credentials reach the DB and BCrypt
+        if (!userRateLimiter.tryAcquire(credentials.getUsername())) {
+            throttled.increment();
+            RateLimitingFilter.reject(response, userRateLimiter);
+            return null;
+        }
 
+        try (Span span = Tracing.start("login.authenticate")) {
             return authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(
-                            userCredentials.getUsername(),
-                            userCredentials.getPassword(),
+                            credentials.getUsername(),
+                            credentials.getPassword(),
                             new ArrayList<>()
                     )
             );
-        } catch (IOException e) {
-            throw new RuntimeException(e);
         }
     }
 
     @Override
     protected void successfulAuthentication(HttpServletRequest request, HttpServletResponse response, FilterChain chain, Authentication authResult) throws IOException, ServletException {
-        String userToken = JWT.create()
-                .withSubject(((org.springframework.security.core.userdetails.User) authResult.getPrincipal()).getUsername())
-                .withExpiresAt(new Date(System.currentTimeMillis() + SecurityConstants.EXPIRATION_TIME))
-                .sign(Algorithm.HMAC512(SecurityConstants.SECRET.getBytes()));
+        UserAccountDetails account = (UserAccountDetails) authResult.getPrincipal();
+        String userToken;
+        JwtEvent event = JwtEvent.start(JwtEvent.SIGN);
+        try (Span span = Tracing.start("jwt.sign")) {
+            userToken = JWT.create()
+                    .withSubject(account.getUsername())
+                    .withClaim(SecurityConstants.USER_ID_CLAIM, account.getUserId())
+                    .withClaim(SecurityConstants.CART_ID_CLAIM, account.getCartId())
+                    .withExpiresAt(new Date(System.currentTimeMillis() + SecurityConstants.EXPIRATION_TIME))
+                    .sign(Algorithm.HMAC512(SecurityConstants.SECRET.getBytes()));
+        }
+        event.end(userToken.length(), true);
 
         response.addHeader(SecurityConstants.HEADER_STRING, SecurityConstants.TOKEN_PREFIX + userToken);
+        mergeGuestCart(request, response, account);
+        succeeded.increment();
+    }
+
+    // Moves the cart built before logging in into the user's. The client drops its guest token once it gets the merged
+    // header; a token presented again, by a retried login or another device, is not merged twice
+    private void mergeGuestCart(HttpServletRequest request, HttpServletResponse response, UserAccountDetails account) {
+        String guestToken = request.getHeader(SecurityConstants.GUEST_CART_HEADER);
+        if (guestToken == null || guestToken.isEmpty()) {
+            return;
+        }
+        try {
+            int units = guestCartService.merge(account.getCartId(), guestCartTokens.verify(guestToken));
+            response.addHeader(SecurityConstants.GUEST_CART_MERGED_HEADER, String.valueOf(units));
+        } catch (JWTVerificationException e) {
+            log.warn("event=guest_cart.merge outcome=invalid_token user={}", account.getUsername());
+        } catch (RuntimeException e) {
+            // The login still succeeds, the guest cart can be merged by logging in again
+            log.error("event=guest_cart.merge outcome=failed user={}", account.getUsername(), e);
+        }
+    }
+
+    @Override
+    protected void unsuccessfulAuthentication(HttpServletRequest request, HttpServletResponse response, AuthenticationException failure) throws IOException, ServletException {
+        failed.increment();
+        super.unsuccessfulAuthentication(request, response, failure);
     }
 }
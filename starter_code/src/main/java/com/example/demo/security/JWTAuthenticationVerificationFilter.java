@@ -1,8 +1,18 @@
 package com.example.demo.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.example.demo.profiling.JwtEvent;
+import com.example.demo.tracing.Span;
+import com.example.demo.tracing.Tracing;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
@@ -12,13 +22,39 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
 
 import static com.auth0.jwt.algorithms.Algorithm.HMAC512;
 
 public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilter {
-    
-    public JWTAuthenticationVerificationFilter(AuthenticationManager authenticationManager) {
+
+    static final String ADMIN_ROLE = "ADMIN";
+
+    private static final List<GrantedAuthority> ADMIN_AUTHORITIES =
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + ADMIN_ROLE));
+
+    private final Set<String> adminUsers;
+    private final Counter missing;
+    private final Counter valid;
+    private final Counter incomplete;
+    private final Counter expired;
+    private final Counter invalid;
+
+    public JWTAuthenticationVerificationFilter(AuthenticationManager authenticationManager, Set<String> adminUsers,
+                                               MeterRegistry meterRegistry) {
         super(authenticationManager);
+        this.adminUsers = adminUsers;
+        this.missing = verificationCounter(meterRegistry, "missing");
+        this.valid = verificationCounter(meterRegistry, "valid");
+        this.incomplete = verificationCounter(meterRegistry, "incomplete");
+        this.expired = verificationCounter(meterRegistry, "expired");
+        this.invalid = verificationCounter(meterRegistry, "invalid");
+    }
+
+    private static Counter verificationCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.token.verification").tag("outcome", outcome).register(meterRegistry);
     }
 
     @Override
@@ -26,11 +62,17 @@ public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilt
         String header = request.getHeader(SecurityConstants.HEADER_STRING);
 
         if (header == null || !header.startsWith(SecurityConstants.TOKEN_PREFIX)) {
+            missing.increment();
             chain.doFilter(request, response);
             return;
         }
 
-        UsernamePasswordAuthenticationToken authentication = getAuthentication(request);
+        UsernamePasswordAuthenticationToken authentication;
+        JwtEvent event = JwtEvent.start(JwtEvent.VERIFY);
+        try (Span span = Tracing.start("jwt.verify")) {
+            authentication = getAuthentication(request);
+        }
+        event.end(header.length() - SecurityConstants.TOKEN_PREFIX.length(), authentication != null);
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
         chain.doFilter(request, response);
@@ -39,12 +81,28 @@ public class JWTAuthenticationVerificationFilter extends BasicAuthenticationFilt
     private UsernamePasswordAuthenticationToken getAuthentication(HttpServletRequest req) {
         String userToken = req.getHeader(SecurityConstants.HEADER_STRING);
         if (userToken != null) {
-            String user = JWT.require(HMAC512(SecurityConstants.SECRET.getBytes())).build()
-                    .verify(userToken.replace(SecurityConstants.TOKEN_PREFIX, ""))
-                    .getSubject();
-            if (user != null) {
-                return new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
+            DecodedJWT jwt;
+            try {
+                jwt = JWT.require(HMAC512(SecurityConstants.SECRET.getBytes())).build()
+                        .verify(userToken.replace(SecurityConstants.TOKEN_PREFIX, ""));
+            } catch (TokenExpiredException e) {
+                expired.increment();
+                return null;
+            } catch (JWTVerificationException e) {
+                // Forged, truncated or otherwise unreadable, the request carries on unauthenticated
+                invalid.increment();
+                return null;
+            }
+            Long userId = jwt.getClaim(SecurityConstants.USER_ID_CLAIM).asLong();
+            Long cartId = jwt.getClaim(SecurityConstants.CART_ID_CLAIM).asLong();
+            // Tokens issued without the id claims cannot address a cart, the user has to log in again
+            if (jwt.getSubject() != null && userId != null && cartId != null) {
+                valid.increment();
+                // Granted from configuration on every request, so revoking an admin does not wait for the token to expire
+                List<GrantedAuthority> authorities = adminUsers.contains(jwt.getSubject()) ? ADMIN_AUTHORITIES : new ArrayList<>();
+                return new UsernamePasswordAuthenticationToken(new JwtPrincipal(jwt.getSubject(), userId, cartId), null, authorities);
             }
+            incomplete.increment();
             return null;
         }
         return null;
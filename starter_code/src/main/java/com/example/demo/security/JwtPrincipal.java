@@ -0,0 +1,56 @@
+package com.example.demo.security;
+
+import java.util.Objects;
+
+/**
+ * Authenticated caller as described by a verified JWT, available to controllers through
+ * {@code @AuthenticationPrincipal}.
+ */
+public class JwtPrincipal {
+
+    private final String username;
+    private final long userId;
+    private final long cartId;
+
+    public JwtPrincipal(String username, long userId, long cartId) {
+        this.username = username;
+        this.userId = userId;
+        this.cartId = cartId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public long getUserId() {
+        return userId;
+    }
+
+    public long getCartId() {
+        return cartId;
+    }
+
+    public boolean owns(String username) {
+        return this.username.equals(username);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (o == null || getClass() != o.getClass())
+            return false;
+        JwtPrincipal other = (JwtPrincipal) o;
+        return userId == other.userId && cartId == other.cartId && Objects.equals(username, other.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(username, userId, cartId);
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.security;
+
+import com.example.demo.model.persistence.repositories.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Re-encodes passwords stored with a stale BCrypt work factor off the request thread. The update only lands if the
+ * stored hash is still the one that was verified, so a concurrent password change is never overwritten.
+ */
+@Service
+public class PasswordRehashService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordRehashService.class);
+
+    private static final int QUEUE_CAPACITY = 1_000;
+
+    private final UserRepository userRepository;
+    private final BCryptPasswordEncoder passwordEncoder;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+
+    private final Counter rehashed;
+    private final Counter skipped;
+
+    public PasswordRehashService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.passwordEncoder = passwordEncoder;
+        // One background thread: rehashing is a slow trickle and must not compete with logins for CPU
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "password-rehash");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.rehashed = Counter.builder("auth.password.rehash").tag("outcome", "rehashed").register(meterRegistry);
+        this.skipped = Counter.builder("auth.password.rehash").tag("outcome", "skipped").register(meterRegistry);
+    }
+
+    public void scheduleRehash(String username, String rawPassword, String verifiedHash) {
+        if (!inFlight.add(username)) {
+            return;
+        }
+        try {
+            executor.execute(() -> rehash(username, rawPassword, verifiedHash));
+        } catch (RejectedExecutionException e) {
+            // Queue full, the next successful login will try again
+            inFlight.remove(username);
+            skipped.increment();
+        }
+    }
+
+    private void rehash(String username, String rawPassword, String verifiedHash) {
+        try {
+            String newHash = passwordEncoder.encode(rawPassword);
+            if (userRepository.updatePasswordIfUnchanged(username, verifiedHash, newHash) == 1) {
+                rehashed.increment();
+                log.info("event=password.rehash outcome=success user={}", username);
+            } else {
+                skipped.increment();
+            }
+        } catch (RuntimeException e) {
+            skipped.increment();
+            log.error("event=password.rehash outcome=failure user={}", username, e);
+        } finally {
+            inFlight.remove(username);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfiguration {
+
+    @Bean
+    public TokenBucketRateLimiter ipRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new TokenBucketRateLimiter("ip", properties.getIp().getCapacity(), properties.getIp().getRefillPeriod(),
+                properties.getMaxKeys(), meterRegistry);
+    }
+
+    @Bean
+    public TokenBucketRateLimiter userRateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        return new TokenBucketRateLimiter("user", properties.getUser().getCapacity(), properties.getUser().getRefillPeriod(),
+                properties.getMaxKeys(), meterRegistry);
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "security.rate-limit")
+public class RateLimitProperties {
+
+    private int maxKeys = 100_000;
+    private final Limit ip = new Limit(20, Duration.ofSeconds(3));
+    private final Limit user = new Limit(5, Duration.ofSeconds(12));
+
+    public int getMaxKeys() {
+        return maxKeys;
+    }
+
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    public Limit getIp() {
+        return ip;
+    }
+
+    public Limit getUser() {
+        return user;
+    }
+
+    public static class Limit {
+
+        // Burst size
+        private int capacity;
+        // Time to regain a single attempt
+        private Duration refillPeriod;
+
+        public Limit(int capacity, Duration refillPeriod) {
+            this.capacity = capacity;
+            this.refillPeriod = refillPeriod;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(int capacity) {
+            this.capacity = capacity;
+        }
+
+        public Duration getRefillPeriod() {
+            return refillPeriod;
+        }
+
+        public void setRefillPeriod(Duration refillPeriod) {
+            this.refillPeriod = refillPeriod;
+        }
+    }
+}
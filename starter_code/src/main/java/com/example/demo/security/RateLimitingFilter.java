@@ -0,0 +1,52 @@
+package com.example.demo.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Rejects login and sign-up attempts over the per-IP budget before the request body is read, so no DB lookup or
+ * BCrypt computation is spent on them. The per-username budget is applied by {@link JWTAuthenticationFilter}.
+ */
+public class RateLimitingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitingFilter.class);
+
+    private final TokenBucketRateLimiter ipRateLimiter;
+
+    public RateLimitingFilter(TokenBucketRateLimiter ipRateLimiter) {
+        this.ipRateLimiter = ipRateLimiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getServletPath();
+        return !SecurityConstants.LOGIN_URL.equals(path) && !SecurityConstants.SIGNUP_URL.equals(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws IOException, ServletException {
+        if (!ipRateLimiter.tryAcquire(request.getRemoteAddr())) {
+            log.warn("event=rate_limit outcome=throttled address={} path={}", request.getRemoteAddr(), request.getServletPath());
+            reject(response, ipRateLimiter);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    static void reject(HttpServletResponse response, TokenBucketRateLimiter limiter) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(limiter.getRetryAfterSeconds()));
+    }
+}
@@ -6,4 +6,12 @@ public class SecurityConstants {
     public static final String HEADER_STRING = "Authorization";
     public static final String TOKEN_PREFIX = "Bearer";
     public static final String SIGNUP_URL = "/api/user/create";
+    public static final String LOGIN_URL = "/login";
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String CART_ID_CLAIM = "cid";
+    public static final String GUEST_CART_URL = "/api/guest-cart/**";
+    public static final String GUEST_CART_HEADER = "X-Guest-Cart";
+    // Units the login added from the guest cart, 0 when its token was merged before; the token is spent either way
+    public static final String GUEST_CART_MERGED_HEADER = "X-Guest-Cart-Merged";
+    public static final long GUEST_CART_EXPIRATION_TIME = 7 * 24 * 60 * 60 * 1000L;
 }
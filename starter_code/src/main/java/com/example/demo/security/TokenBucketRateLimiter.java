@@ -0,0 +1,111 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-key token bucket kept as a single "theoretical arrival time" per key (GCRA), so admitting a request is one CAS
+ * on an {@link AtomicLong} without locks or allocation. A key whose arrival time is in the past holds a full bucket
+ * and can be evicted without changing its behaviour, which keeps the map bounded.
+ */
+public class TokenBucketRateLimiter {
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final int maxKeys;
+    private final LongSupplier nanoClock;
+
+    private final Counter admitted;
+    private final Counter rejected;
+    private final Counter evicted;
+
+    public TokenBucketRateLimiter(String name, int capacity, Duration refillPeriod, int maxKeys, MeterRegistry meterRegistry) {
+        this(name, capacity, refillPeriod, maxKeys, meterRegistry, System::nanoTime);
+    }
+
+    TokenBucketRateLimiter(String name, int capacity, Duration refillPeriod, int maxKeys, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (capacity < 1 || refillPeriod.isZero() || refillPeriod.isNegative() || maxKeys < 1) {
+            throw new IllegalArgumentException("Invalid rate limit for " + name);
+        }
+        this.emissionIntervalNanos = refillPeriod.toNanos();
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.maxKeys = maxKeys;
+        this.nanoClock = nanoClock;
+
+        this.admitted = Counter.builder("auth.rate.limit").tag("limiter", name).tag("outcome", "admitted").register(meterRegistry);
+        this.rejected = Counter.builder("auth.rate.limit").tag("limiter", name).tag("outcome", "rejected").register(meterRegistry);
+        this.evicted = Counter.builder("auth.rate.limit.evictions").tag("limiter", name).register(meterRegistry);
+        Gauge.builder("auth.rate.limit.keys", buckets, Map::size).tag("limiter", name).register(meterRegistry);
+    }
+
+    public boolean tryAcquire(String key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.get(key);
+        if (arrival == null) {
+            if (buckets.size() >= maxKeys) {
+                evict(now);
+            }
+            arrival = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        for (;;) {
+            long current = arrival.get();
+            long base = Math.max(current, now);
+            if (base - now > burstToleranceNanos) {
+                rejected.increment();
+                return false;
+            }
+            if (arrival.compareAndSet(current, base + emissionIntervalNanos)) {
+                admitted.increment();
+                return true;
+            }
+        }
+    }
+
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(emissionIntervalNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    int size() {
+        return buckets.size();
+    }
+
+    private void evict(long now) {
+        // A single thread sweeps; everybody else keeps going and may briefly overshoot the bound
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Full buckets first, they are indistinguishable from an absent key
+            buckets.entrySet().removeIf(entry -> {
+                boolean full = entry.getValue().get() <= now;
+                if (full) {
+                    evicted.increment();
+                }
+                return full;
+            });
+            // Still over the bound: drop arbitrary keys rather than grow without limit
+            Iterator<Map.Entry<String, AtomicLong>> iterator = buckets.entrySet().iterator();
+            while (buckets.size() >= maxKeys && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+                evicted.increment();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+}
@@ -1,5 +1,11 @@
 package com.example.demo.security;
 
+import com.example.demo.guestcart.GuestCartService;
+import com.example.demo.guestcart.GuestCartTokens;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,26 +16,53 @@ import org.springframework.security.config.annotation.web.configuration.WebSecur
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.util.Set;
 
 @EnableWebSecurity
 public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final UserDetailsService userDetailsService;
     private final BCryptPasswordEncoder passwordEncoder;
+    private final TokenBucketRateLimiter ipRateLimiter;
+    private final TokenBucketRateLimiter userRateLimiter;
+    private final PasswordRehashService passwordRehashService;
+    private final GuestCartTokens guestCartTokens;
+    private final GuestCartService guestCartService;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> adminUsers;
 
-    public WebSecurityConfiguration(UserDetailsService userDetailsService, BCryptPasswordEncoder passwordEncoder) {
+    public WebSecurityConfiguration(UserDetailsService userDetailsService, BCryptPasswordEncoder passwordEncoder,
+                                    @Qualifier("ipRateLimiter") TokenBucketRateLimiter ipRateLimiter,
+                                    @Qualifier("userRateLimiter") TokenBucketRateLimiter userRateLimiter,
+                                    PasswordRehashService passwordRehashService, GuestCartTokens guestCartTokens,
+                                    GuestCartService guestCartService, MeterRegistry meterRegistry,
+                                    @Value("${security.admin-users:}") Set<String> adminUsers) {
         this.userDetailsService = userDetailsService;
         this.passwordEncoder = passwordEncoder;
+        this.ipRateLimiter = ipRateLimiter;
+        this.userRateLimiter = userRateLimiter;
+        this.passwordRehashService = passwordRehashService;
+        this.guestCartTokens = guestCartTokens;
+        this.guestCartService = guestCartService;
+        this.meterRegistry = meterRegistry;
+        this.adminUsers = adminUsers;
     }
 
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.cors().and().csrf().disable().authorizeRequests()
                 .antMatchers(HttpMethod.POST, SecurityConstants.SIGNUP_URL).permitAll()
+                .antMatchers(SecurityConstants.GUEST_CART_URL).permitAll()
+                .requestMatchers(EndpointRequest.to("health", "prometheus")).permitAll()
+                .antMatchers("/api/admin/**").hasRole(JWTAuthenticationVerificationFilter.ADMIN_ROLE)
                 .anyRequest().authenticated()
                 .and()
-                .addFilter(new JWTAuthenticationFilter(authenticationManager()))
-                .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager()))
+                .addFilterBefore(new RateLimitingFilter(ipRateLimiter), UsernamePasswordAuthenticationFilter.class)
+                .addFilter(new JWTAuthenticationFilter(authenticationManager(), userRateLimiter, guestCartTokens,
+                        guestCartService, meterRegistry))
+                .addFilter(new JWTAuthenticationVerificationFilter(authenticationManager(), adminUsers, meterRegistry))
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
     }
 
@@ -41,8 +74,6 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     @Override
     protected void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.parentAuthenticationManager(authenticationManagerBean())
-                .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder);
+        auth.authenticationProvider(new RehashingAuthenticationProvider(userDetailsService, passwordEncoder, passwordRehashService));
     }
 }
@@ -0,0 +1,38 @@
+package com.example.demo.tracing;
+
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Spans a controller method, from just before it is called to the end of writing its response, as
+ * {@code CartController.addTocart}.
+ */
+public class ControllerTracingInterceptor extends HandlerInterceptorAdapter {
+
+    private static final String SPAN_ATTRIBUTE = ControllerTracingInterceptor.class.getName() + ".span";
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod && Tracing.isSampled()) {
+            HandlerMethod handlerMethod = (HandlerMethod) handler;
+            request.setAttribute(SPAN_ATTRIBUTE,
+                    Tracing.start(handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName()));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Span span = (Span) request.getAttribute(SPAN_ATTRIBUTE);
+        if (span != null) {
+            request.removeAttribute(SPAN_ATTRIBUTE);
+            if (ex != null) {
+                span.error(ex);
+            }
+            span.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.tracing;
+
+import com.example.demo.metrics.RepositoryMetricsAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Spans every call into a Spring Data repository of a sampled request as {@code ItemRepository.findById}.
+ */
+@Aspect
+public class RepositoryTracingAspect {
+
+    private final ConcurrentMap<Class<?>, Map<Method, String>> spanNames = new ConcurrentHashMap<>();
+
+    @Around("target(org.springframework.data.repository.Repository)")
+    public Object trace(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!Tracing.isSampled()) {
+            return joinPoint.proceed();
+        }
+        try (Span span = Tracing.start(spanName(joinPoint))) {
+            try {
+                return joinPoint.proceed();
+            } catch (Throwable e) {
+                span.error(e);
+                throw e;
+            }
+        }
+    }
+
+    private String spanName(ProceedingJoinPoint joinPoint) {
+        Class<?> targetClass = joinPoint.getTarget().getClass();
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return spanNames.computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, key -> RepositoryMetricsAspect.repositoryName(targetClass) + "." + method.getName());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demo.tracing;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A timed operation of a sampled request. Spans are only touched by the request thread and are handed to the
+ * {@link SpanExporter} once the whole trace has finished.
+ */
+public class Span implements AutoCloseable {
+
+    static final Span NOOP = new Span(null, null, null);
+
+    final Trace trace;
+    private final Span parent;
+    private final long id;
+    private final long startNanos;
+    private String name;
+    private long durationNanos = -1;
+    private Map<String, String> tags;
+
+    Span(Trace trace, Span parent, String name) {
+        this(trace, parent, ThreadLocalRandom.current().nextLong(), name);
+    }
+
+    Span(Trace trace, Span parent, long id, String name) {
+        this.trace = trace;
+        this.parent = parent;
+        this.id = id;
+        this.name = name;
+        this.startNanos = System.nanoTime();
+    }
+
+    public Span tag(String key, String value) {
+        if (trace != null) {
+            if (tags == null) {
+                tags = new LinkedHashMap<>();
+            }
+            tags.put(key, value);
+        }
+        return this;
+    }
+
+    public Span error(Throwable error) {
+        return tag("error", error.getMessage() == null ? error.getClass().getSimpleName() : error.getMessage());
+    }
+
+    void rename(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Ends the span and makes its parent current again. Closing the root span ends the trace on this thread.
+     */
+    @Override
+    public void close() {
+        if (trace == null || durationNanos >= 0) {
+            return;
+        }
+        durationNanos = System.nanoTime() - startNanos;
+        if (parent == null) {
+            Tracing.CURRENT.remove();
+        } else {
+            Tracing.CURRENT.set(parent);
+        }
+        trace.finished(this);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * The id of the enclosing span, 0 for the root span of the trace.
+     */
+    public long getParentId() {
+        return parent == null ? 0 : parent.id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public Map<String, String> getTags() {
+        return tags == null ? Collections.emptyMap() : tags;
+    }
+}
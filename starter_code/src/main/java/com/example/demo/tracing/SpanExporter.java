@@ -0,0 +1,9 @@
+package com.example.demo.tracing;
+
+/**
+ * Receives each sampled trace once its root span has finished, on the request thread.
+ */
+public interface SpanExporter {
+
+    void export(Trace trace);
+}
@@ -0,0 +1,41 @@
+package com.example.demo.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The spans of one sampled request, in the order they finished; the root span is last.
+ */
+public class Trace {
+
+    private final long traceId;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private final List<Span> spans = new ArrayList<>();
+
+    Trace(long traceId) {
+        this.traceId = traceId;
+        this.startEpochMicros = System.currentTimeMillis() * 1000;
+        this.startNanos = System.nanoTime();
+    }
+
+    void finished(Span span) {
+        spans.add(span);
+    }
+
+    public long getTraceId() {
+        return traceId;
+    }
+
+    /**
+     * Wall-clock start of a span in microseconds since the epoch. Only the start of the trace is read from the wall
+     * clock, the spans are placed from there with the monotonic clock.
+     */
+    public long epochMicros(Span span) {
+        return startEpochMicros + (span.getStartNanos() - startNanos) / 1000;
+    }
+
+    public List<Span> getSpans() {
+        return spans;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo.tracing;
+
+/**
+ * Entry point for code that wants its own span. The current span lives in a thread local set by
+ * {@link TracingFilter} for sampled requests; everywhere else {@link #start(String)} returns a shared no-op span, so
+ * an unsampled request only pays for the thread-local lookup.
+ *
+ * <pre>
+ * try (Span span = Tracing.start("bcrypt.matches")) {
+ *     ...
+ * }
+ * </pre>
+ */
+public final class Tracing {
+
+    static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+
+    private Tracing() {
+    }
+
+    /**
+     * Starts a child of the current span and makes it current until it is closed.
+     */
+    public static Span start(String name) {
+        Span parent = CURRENT.get();
+        if (parent == null) {
+            return Span.NOOP;
+        }
+        Span span = new Span(parent.trace, parent, name);
+        CURRENT.set(span);
+        return span;
+    }
+
+    static Span startTrace(long traceId, String name) {
+        Span root = new Span(new Trace(traceId), null, traceId, name);
+        CURRENT.set(root);
+        return root;
+    }
+
+    public static boolean isSampled() {
+        return CURRENT.get() != null;
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.demo.tracing;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * In-process tracing of sampled requests: a root span per request, spans for the JWT filters, BCrypt, controller
+ * methods and repository calls, exported as Zipkin v2 JSON to {@code logs/spans.json}. Off when
+ * {@code app.tracing.enabled} is false, in which case every span is a no-op.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.tracing", name = "enabled", havingValue = "true", matchIfMissing = true)
+@EnableConfigurationProperties(TracingProperties.class)
+public class TracingConfiguration implements WebMvcConfigurer {
+
+    @Bean
+    public SpanExporter spanExporter(TracingProperties properties) {
+        return new ZipkinSpanExporter(properties.getServiceName());
+    }
+
+    @Bean
+    public FilterRegistrationBean<TracingFilter> tracingFilter(TracingProperties properties, SpanExporter spanExporter) {
+        FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(
+                new TracingFilter(properties.getSampleRate(), spanExporter));
+        // After the metrics filters and ahead of Spring Security, whose filters are part of the trace
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+
+    @Bean
+    public RepositoryTracingAspect repositoryTracingAspect() {
+        return new RepositoryTracingAspect();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ControllerTracingInterceptor());
+    }
+}
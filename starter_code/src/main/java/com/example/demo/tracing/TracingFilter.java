@@ -0,0 +1,60 @@
+package com.example.demo.tracing;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Gives every request a trace id, returned in {@value #TRACE_ID_HEADER}, and opens the root span of the sampled
+ * ones. The trace is exported once the response is complete.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+    public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+    private final double sampleRate;
+    private final SpanExporter exporter;
+
+    public TracingFilter(double sampleRate, SpanExporter exporter) {
+        this.sampleRate = sampleRate;
+        this.exporter = exporter;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain) throws ServletException, IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long traceId = random.nextLong();
+        response.setHeader(TRACE_ID_HEADER, ZipkinSpanExporter.hex(traceId));
+        if (random.nextDouble() >= sampleRate) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        String method = request.getMethod().toLowerCase(Locale.ROOT);
+        Span root = Tracing.startTrace(traceId, method);
+        try {
+            chain.doFilter(request, response);
+        } catch (IOException | ServletException | RuntimeException e) {
+            root.error(e);
+            throw e;
+        } finally {
+            // Named after the URI template once the request has been mapped, like the latency metrics
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                root.rename(method + " " + pattern);
+            }
+            root.tag("http.method", request.getMethod())
+                    .tag("http.path", request.getRequestURI())
+                    .tag("http.status_code", Integer.toString(response.getStatus()))
+                    .close();
+            exporter.export(root.trace);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * Writes every span as one line of Zipkin v2 JSON through this class' logger, which log4j2-spring.xml sends to a
+ * size-rotated file. The logger is asynchronous, so the request thread only pays for the encoding.
+ */
+public class ZipkinSpanExporter implements SpanExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(ZipkinSpanExporter.class);
+
+    private final String localEndpoint;
+
+    public ZipkinSpanExporter(String serviceName) {
+        StringBuilder endpoint = new StringBuilder("{\"serviceName\":");
+        appendString(endpoint, serviceName);
+        this.localEndpoint = endpoint.append('}').toString();
+    }
+
+    @Override
+    public void export(Trace trace) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (Span span : trace.getSpans()) {
+            log.info("{}", encode(trace, span));
+        }
+    }
+
+    String encode(Trace trace, Span span) {
+        StringBuilder json = new StringBuilder(256);
+        json.append("{\"traceId\":\"").append(hex(trace.getTraceId()))
+                .append("\",\"id\":\"").append(hex(span.getId())).append('"');
+        if (span.getParentId() == 0) {
+            json.append(",\"kind\":\"SERVER\"");
+        } else {
+            json.append(",\"parentId\":\"").append(hex(span.getParentId())).append('"');
+        }
+        json.append(",\"name\":");
+        appendString(json, span.getName());
+        // Zipkin drops zero durations
+        json.append(",\"timestamp\":").append(trace.epochMicros(span))
+                .append(",\"duration\":").append(Math.max(1, span.getDurationNanos() / 1000))
+                .append(",\"localEndpoint\":").append(localEndpoint);
+        if (!span.getTags().isEmpty()) {
+            json.append(",\"tags\":{");
+            String separator = "";
+            for (Map.Entry<String, String> tag : span.getTags().entrySet()) {
+                json.append(separator);
+                appendString(json, tag.getKey());
+                json.append(':');
+                appendString(json, tag.getValue());
+                separator = ",";
+            }
+            json.append('}');
+        }
+        return json.append('}').toString();
+    }
+
+    static String hex(long id) {
+        String digits = Long.toHexString(id);
+        return digits.length() == 16 ? digits : "0000000000000000".substring(digits.length()) + digits;
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,46 @@
+create table item (
+    id bigint generated by default as identity,
+    description varchar(255) not null,
+    name varchar(255) not null,
+    price decimal(19, 2) not null,
+    primary key (id)
+);
+create index idx_item_name on item (name);
+
+create table cart (
+    id bigint generated by default as identity,
+    total decimal(19, 2),
+    primary key (id)
+);
+
+create table cart_items (
+    cart_id bigint not null,
+    items_id bigint not null,
+    constraint fk_cart_items_cart foreign key (cart_id) references cart (id),
+    constraint fk_cart_items_item foreign key (items_id) references item (id)
+);
+
+create table user (
+    id bigint generated by default as identity,
+    password varchar(255) not null,
+    username varchar(255) not null,
+    cart_id bigint,
+    primary key (id),
+    constraint uk_user_username unique (username),
+    constraint fk_user_cart foreign key (cart_id) references cart (id)
+);
+
+create table user_order (
+    id bigint generated by default as identity,
+    total decimal(19, 2),
+    user_id bigint not null,
+    primary key (id),
+    constraint fk_user_order_user foreign key (user_id) references user (id)
+);
+
+create table user_order_items (
+    user_order_id bigint not null,
+    items_id bigint not null,
+    constraint fk_user_order_items_order foreign key (user_order_id) references user_order (id),
+    constraint fk_user_order_items_item foreign key (items_id) references item (id)
+);
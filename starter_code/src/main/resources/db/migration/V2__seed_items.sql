@@ -0,0 +1,7 @@
+-- Only seeds items that are missing, so a store baselined from an existing database keeps its catalog as it is
+insert into item (name, price, description)
+select 'Round Widget', 2.99, 'A widget that is round' from dual
+where not exists (select 1 from item where name = 'Round Widget');
+insert into item (name, price, description)
+select 'Square Widget', 1.99, 'A widget that is square' from dual
+where not exists (select 1 from item where name = 'Square Widget');
@@ -0,0 +1,2 @@
+alter table user_order add column intake_sequence bigint;
+alter table user_order add constraint uk_user_order_intake_sequence unique (intake_sequence);
@@ -0,0 +1,14 @@
+alter table user_order add column created_at timestamp;
+
+create table user_order_summary (
+    user_id bigint not null,
+    order_count bigint not null,
+    total_spent decimal(19, 2) not null,
+    last_order_id bigint,
+    last_order_total decimal(19, 2),
+    last_order_at timestamp,
+    primary key (user_id),
+    constraint fk_user_order_summary_user foreign key (user_id) references user (id)
+);
+
+-- Stores migrated from an earlier version are filled in by the ordersummary rebuild operation
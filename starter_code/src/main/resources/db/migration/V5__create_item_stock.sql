@@ -0,0 +1,6 @@
+create table item_stock (
+    item_id bigint not null,
+    quantity bigint not null,
+    primary key (item_id),
+    constraint fk_item_stock_item foreign key (item_id) references item (id)
+);
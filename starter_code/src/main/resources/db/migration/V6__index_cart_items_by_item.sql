@@ -0,0 +1,2 @@
+-- Finds the carts holding an item when its price changes
+create index idx_cart_items_item on cart_items (items_id);
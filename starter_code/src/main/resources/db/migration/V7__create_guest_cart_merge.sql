@@ -0,0 +1,8 @@
+-- Guest cart tokens already merged at login, until they expire
+create table guest_cart_merge (
+    token_id varchar(64) not null,
+    cart_id bigint not null,
+    expires_at bigint not null,
+    primary key (token_id)
+);
+create index idx_guest_cart_merge_expires_at on guest_cart_merge (expires_at);
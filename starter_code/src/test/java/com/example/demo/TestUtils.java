@@ -3,6 +3,7 @@ package com.example.demo;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.User;
+import com.example.demo.security.JwtPrincipal;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
@@ -14,6 +15,8 @@ public class TestUtils {
     public static final String DEFAULT_PLAIN_PASSWORD = "testPassword";
     public static final String DEFAULT_HASHED_PASSWORD = "hashedPassword";
     public static final Long DEFAULT_ITEM_ID = 15L;
+    public static final Long DEFAULT_CART_ID = 7L;
+    public static final long DEFAULT_USER_ID = 1L;
     public static final BigDecimal DEFAULT_ITEM_PRICE = new BigDecimal(4);
     public static final int DEFAULT_QUANTITY = 4;
 
@@ -43,10 +46,11 @@ public class TestUtils {
     public static User createTestUserWithEmptyCart() {
         // Create the user request
         Cart cart = new Cart();
+        cart.setId(TestUtils.DEFAULT_CART_ID);
         User testUser = new User();
         testUser.setUsername(TestUtils.DEFAULT_USER_NAME);
         testUser.setPassword("WeakPassword");
-        testUser.setId(1L);
+        testUser.setId(TestUtils.DEFAULT_USER_ID);
         cart.setUser(testUser);
         testUser.setCart(cart);
 
@@ -56,15 +60,20 @@ public class TestUtils {
     public static User createTestUserWithCart() {
         // Create the user request
         Cart cart = new Cart();
+        cart.setId(TestUtils.DEFAULT_CART_ID);
         cart.addItem(new Item(TestUtils.DEFAULT_ITEM_ID, "Gogoasa", TestUtils.DEFAULT_ITEM_PRICE, "Cu ciocolata"));
         cart.addItem(new Item(TestUtils.DEFAULT_ITEM_ID + 1, "Bread", new BigDecimal(1), "No salt"));
         User testUser = new User();
         testUser.setUsername(TestUtils.DEFAULT_USER_NAME);
         testUser.setPassword("WeakPassword");
-        testUser.setId(1L);
+        testUser.setId(TestUtils.DEFAULT_USER_ID);
         cart.setUser(testUser);
         testUser.setCart(cart);
 
         return testUser;
     }
+
+    public static JwtPrincipal createTestPrincipal() {
+        return new JwtPrincipal(TestUtils.DEFAULT_USER_NAME, TestUtils.DEFAULT_USER_ID, TestUtils.DEFAULT_CART_ID);
+    }
 }
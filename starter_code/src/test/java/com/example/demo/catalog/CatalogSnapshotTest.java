@@ -0,0 +1,138 @@
+package com.example.demo.catalog;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CatalogSnapshotTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ItemRepository itemRepositoryMock = mock(ItemRepository.class);
+    private final AtomicLong clock = new AtomicLong(10);
+
+    private static List<Item> items() {
+        return new ArrayList<>(Arrays.asList(
+                new Item(7L, "Square Widget", new BigDecimal("1.99"), "A widget"),
+                new Item(3L, "Round Widget", new BigDecimal("2.99"), "A widget"),
+                new Item(12L, "Rundes Gerät", new BigDecimal("-0.5"), "Ünicode ✓"),
+                new Item(9L, "Round Widget", new BigDecimal("10"), "Another round one")));
+    }
+
+    private Path file() {
+        return folder.getRoot().toPath().resolve("data").resolve("catalog.bin");
+    }
+
+    @Test
+    public void itemsAreReadFromTheMappedFile() throws Exception {
+        CatalogSnapshotWriter.write(file(), items(), 42);
+        CatalogSnapshot snapshot = CatalogSnapshot.map(file());
+
+        assertEquals(4, snapshot.size());
+        assertEquals(42, snapshot.getGeneration());
+        Item item = snapshot.find(12);
+        assertEquals(Long.valueOf(12), item.getId());
+        assertEquals("Rundes Gerät", item.getName());
+        assertEquals(new BigDecimal("-0.5"), item.getPrice());
+        assertEquals("Ünicode ✓", item.getDescription());
+        assertNull(snapshot.find(8));
+        assertNull(snapshot.find(100));
+
+        assertEquals(Arrays.asList(3L, 7L, 9L, 12L), ids(snapshot.findAll()));
+        assertEquals(Arrays.asList(3L, 9L), ids(snapshot.findByName("Round Widget")));
+        assertEquals(Collections.singletonList(12L), ids(snapshot.findByName("Rundes Gerät")));
+        assertTrue(snapshot.findByName("Round").isEmpty());
+        assertEquals(42, CatalogSnapshot.readGeneration(file()));
+    }
+
+    @Test
+    public void sharedStringsAreStoredOnce() {
+        int once = CatalogSnapshotWriter.encode(Collections.singletonList(items().get(0)), 1).capacity();
+        int twice = CatalogSnapshotWriter.encode(items().subList(0, 2), 1).capacity();
+        // The second item adds a record, a name entry and its name, not its description
+        assertEquals(CatalogSnapshot.RECORD_BYTES + CatalogSnapshot.NAME_ENTRY_BYTES + "Round Widget".length(), twice - once);
+        assertEquals(0, CatalogSnapshotWriter.encode(Collections.emptyList(), 1).capacity() - CatalogSnapshot.HEADER_BYTES);
+    }
+
+    @Test
+    public void aSnapshotMatchingTheDatabaseIsReusedAtStartup() throws Exception {
+        CatalogSnapshotWriter.write(file(), items(), 42);
+        when(itemRepositoryMock.summarize()).thenReturn(Collections.singletonList(new Object[]{4L, 12L, new BigDecimal("14.48")}));
+
+        CatalogStore store = new CatalogStore(itemRepositoryMock, file(), Duration.ofHours(1), clock::get);
+        store.start();
+
+        assertEquals(42, store.current().getGeneration());
+        verify(itemRepositoryMock, never()).findAll(any(Sort.class));
+        store.stop();
+    }
+
+    @Test
+    public void aStaleSnapshotIsPublishedAnewAndSwapped() throws Exception {
+        CatalogSnapshotWriter.write(file(), items(), 42);
+        when(itemRepositoryMock.summarize()).thenReturn(Collections.singletonList(new Object[]{4L, 12L, new BigDecimal("15.48")}));
+        List<Item> current = items();
+        current.get(1).setPrice(new BigDecimal("3.99"));
+        when(itemRepositoryMock.findAll(any(Sort.class))).thenReturn(current);
+
+        CatalogStore store = new CatalogStore(itemRepositoryMock, file(), Duration.ofHours(1), clock::get);
+        store.start();
+        CatalogSnapshot first = store.current();
+        assertEquals(new BigDecimal("3.99"), first.find(3).getPrice());
+        // Published with a generation after the one it replaced, the clock being behind
+        assertEquals(43, first.getGeneration());
+
+        current.get(1).setPrice(new BigDecimal("4.99"));
+        CatalogSnapshot second = store.publish();
+        assertSame(second, store.current());
+        assertEquals(new BigDecimal("4.99"), second.find(3).getPrice());
+        // A reader holding the replaced snapshot still sees it whole
+        assertEquals(new BigDecimal("3.99"), first.find(3).getPrice());
+        assertEquals(4, first.findAll().size());
+        store.stop();
+    }
+
+    @Test
+    public void aSnapshotPublishedElsewhereIsPickedUp() throws Exception {
+        when(itemRepositoryMock.summarize()).thenReturn(Collections.singletonList(new Object[]{0L, null, null}));
+        when(itemRepositoryMock.findAll(any(Sort.class))).thenReturn(Collections.emptyList());
+        CatalogStore store = new CatalogStore(itemRepositoryMock, file(), Duration.ofHours(1), clock::get);
+        store.start();
+        assertEquals(0, store.current().size());
+
+        // Another node sharing the file
+        CatalogSnapshotWriter.write(file(), items(), 5_000);
+        store.refresh();
+        assertEquals(5_000, store.current().getGeneration());
+        assertEquals("Square Widget", store.current().find(7).getName());
+
+        Files.write(file(), new byte[]{1, 2, 3});
+        store.refresh();
+        assertEquals(5_000, store.current().getGeneration());
+        store.stop();
+    }
+
+    private static List<Long> ids(List<Item> items) {
+        List<Long> ids = new ArrayList<>();
+        items.forEach(item -> ids.add(item.getId()));
+        return ids;
+    }
+}
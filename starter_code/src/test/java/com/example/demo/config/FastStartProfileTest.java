@@ -0,0 +1,50 @@
+package com.example.demo.config;
+
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:faststart;DB_CLOSE_DELAY=-1",
+        // Fails the startup if the migrations drift away from the entity mappings
+        "spring.jpa.hibernate.ddl-auto=validate",
+        // Validation needs the identifier casing from the JDBC metadata the profile skips
+        "spring.jpa.properties.hibernate.temp.use_jdbc_metadata_defaults=true"
+})
+@ActiveProfiles("faststart")
+public class FastStartProfileTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void migrationsCreateTheSchemaAndSeedTheCatalogOnce() {
+        assertEquals(0, flyway.info().pending().length);
+        assertEquals(1, itemRepository.findByName("Round Widget").size());
+
+        // A restart on the same store applies nothing
+        assertEquals(0, flyway.migrate());
+        assertEquals(1, itemRepository.findByName("Round Widget").size());
+    }
+
+    @Test
+    public void startupPhasesArePublished() {
+        assertNotNull(meterRegistry.find("application.startup.phase").tag("phase", "refresh").timeGauge());
+        assertTrue(meterRegistry.get("application.startup.phase").tag("phase", "refresh").timeGauge().value() > 0);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.config;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.function.ToLongFunction;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class HibernateCacheIntegrationTest {
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private Item createItem(String name) {
+        return itemRepository.save(new Item(null, name, new BigDecimal("3.50"), "Cached item"));
+    }
+
+    @Test
+    public void itemLookupsAreServedFromTheCache() {
+        Item item = createItem("Cached Widget");
+        itemRepository.findById(item.getId());
+
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(itemRepository.findById(item.getId()).isPresent());
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void findByNameIsServedFromTheQueryCacheUntilItemsChange() {
+        Item item = createItem("Query Cached Widget");
+        assertEquals(1, itemRepository.findByName("Query Cached Widget").size());
+
+        long statements = statistics.getPrepareStatementCount();
+        assertEquals(1, itemRepository.findByName("Query Cached Widget").size());
+        assertEquals(statements, statistics.getPrepareStatementCount());
+
+        // Any write to the item table invalidates the cached results
+        item.setPrice(new BigDecimal("4.25"));
+        itemRepository.save(item);
+        statements = statistics.getPrepareStatementCount();
+        assertEquals(new BigDecimal("4.25"), itemRepository.findByName("Query Cached Widget").get(0).getPrice());
+        assertTrue(statistics.getPrepareStatementCount() > statements);
+    }
+
+    @Test
+    public void cartUpdatesReadItemsFromTheCache() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Item item = createItem("Cart Widget");
+        itemRepository.findById(item.getId());
+
+        // Same work as CartController.addTocart, on a cart that does not hold the item yet
+        ToLongFunction<Long> addToCart = cartId -> {
+            long statements = statistics.getPrepareStatementCount();
+            transaction.execute(status -> {
+                Cart cart = cartRepository.findWithItemsById(cartId).get();
+                cart.addItem(itemRepository.findById(item.getId()).get());
+                return cartRepository.save(cart);
+            });
+            return statistics.getPrepareStatementCount() - statements;
+        };
+
+        long warm = addToCart.applyAsLong(cartRepository.save(new Cart()).getId());
+        entityManagerFactory.getCache().evictAll();
+        long cold = addToCart.applyAsLong(cartRepository.save(new Cart()).getId());
+
+        // Without the cache the item is selected again
+        assertEquals("warm " + warm + " cold " + cold, 1, cold - warm);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.config;
+
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.LogEvent;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.async.AsyncLoggerConfig;
+import org.apache.logging.log4j.core.async.AsyncQueueFullPolicyFactory;
+import org.apache.logging.log4j.core.async.AsyncQueueFullPolicy;
+import org.apache.logging.log4j.core.async.DiscardingAsyncQueueFullPolicy;
+import org.apache.logging.log4j.core.async.EventRoute;
+import org.apache.logging.log4j.core.config.ConfigurationSource;
+import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.config.xml.XmlConfiguration;
+import org.apache.logging.log4j.core.impl.Log4jLogEvent;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.logging.log4j.status.StatusData;
+import org.apache.logging.log4j.status.StatusLogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class LoggingConfigurationTest {
+
+    private XmlConfiguration configuration;
+
+    @Before
+    public void setUp() throws IOException {
+        StatusLogger.getLogger().clear();
+        // Parse the shipped configuration without starting it, so no Disruptor thread is created
+        ConfigurationSource source = ConfigurationSource.fromResource("log4j2-spring.xml", getClass().getClassLoader());
+        configuration = new XmlConfiguration(new LoggerContext("logging-configuration-test"), source);
+        configuration.initialize();
+    }
+
+    @After
+    public void tearDown() {
+        configuration.stop();
+    }
+
+    private String format(String message, Object... parameters) {
+        LogEvent event = Log4jLogEvent.newBuilder()
+                .setLoggerName(LoggingConfigurationTest.class.getName())
+                .setLevel(Level.INFO)
+                .setMessage(new ParameterizedMessage(message, parameters))
+                .build();
+        return configuration.getAppender("Console").getLayout().toSerializable(event).toString();
+    }
+
+    @Test
+    public void configurationIsValid() {
+        // Unknown elements and attributes are reported through the status logger, not thrown
+        for (StatusData status : StatusLogger.getLogger().getStatusData()) {
+            assertFalse(status.getFormattedStatus(), status.getLevel().isMoreSpecificThan(Level.ERROR));
+        }
+    }
+
+    @Test
+    public void everyLoggerIsAsynchronous() {
+        assertTrue(configuration.getRootLogger() instanceof AsyncLoggerConfig);
+        for (LoggerConfig logger : configuration.getLoggers().values()) {
+            assertTrue(logger.getName(), logger instanceof AsyncLoggerConfig);
+        }
+    }
+
+    @Test
+    public void fullRingBufferDiscardsInsteadOfBlocking() {
+        AsyncQueueFullPolicy policy = AsyncQueueFullPolicyFactory.create();
+        assertTrue(policy instanceof DiscardingAsyncQueueFullPolicy);
+
+        // Only informational events are dropped, warnings and errors wait for room
+        long backgroundThread = -1;
+        assertEquals(EventRoute.DISCARD, policy.getRoute(backgroundThread, Level.INFO));
+        assertNotEquals(EventRoute.DISCARD, policy.getRoute(backgroundThread, Level.WARN));
+        assertNotEquals(EventRoute.DISCARD, policy.getRoute(backgroundThread, Level.ERROR));
+    }
+
+    @Test
+    public void sensitiveFieldsAreRedacted() {
+        String line = format("event=user.create password={} confirmPassword={}, Token={} user={}",
+                "hunter22", "hunter22", "eyJhbGciOi.x.y", "alice");
+
+        assertFalse(line, line.contains("hunter22"));
+        assertFalse(line, line.contains("eyJhbGciOi"));
+        assertTrue(line, line.contains("password=*** confirmPassword=***, Token=*** user=alice"));
+    }
+}
@@ -1,13 +1,14 @@
 package com.example.demo.controllers;
 
 import com.example.demo.TestUtils;
+import com.example.demo.inventory.InventoryService;
 import com.example.demo.model.persistence.Cart;
 import com.example.demo.model.persistence.Item;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.ItemRepository;
-import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.ModifyCartRequest;
+import com.example.demo.security.JwtPrincipal;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.ResponseEntity;
@@ -18,14 +19,19 @@ import java.util.Optional;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 public class CartControllerTest {
     // declare the mocks
-    private final UserRepository userRepositoryMock = mock(UserRepository.class);
     private final CartRepository cartRepositoryMock = mock(CartRepository.class);
     private final ItemRepository itemRepositoryMock = mock(ItemRepository.class);
+    private final InventoryService inventoryServiceMock = mock(InventoryService.class);
     
+    // authenticated caller
+    private final JwtPrincipal principal = TestUtils.createTestPrincipal();
+
     // object under test
     private CartController cartController;
 
@@ -43,10 +49,10 @@ public class CartControllerTest {
     public void setUp() {
         cartController = new CartController();
         // Inject the mocks
-        TestUtils.injectObjects(cartController, "userRepository", userRepositoryMock);
         TestUtils.injectObjects(cartController, "cartRepository", cartRepositoryMock);
         TestUtils.injectObjects(cartController, "itemRepository", itemRepositoryMock);
-
+        TestUtils.injectObjects(cartController, "inventoryService", inventoryServiceMock);
+        when(inventoryServiceMock.reserve(anyLong(), anyLong(), anyInt())).thenReturn(true);
     }
 
     @Test
@@ -54,14 +60,14 @@ public class CartControllerTest {
         // Stub the call on the mocks
         User testUser = TestUtils.createTestUserWithEmptyCart();
         Item testItem = new Item(TestUtils.DEFAULT_ITEM_ID, "Gogoasa", TestUtils.DEFAULT_ITEM_PRICE, "Cu ciocolata");
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
         when(itemRepositoryMock.findById(TestUtils.DEFAULT_ITEM_ID)).thenReturn(Optional.of(testItem));
 
         // Create the user request
         ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
 
         // Call the method under test
-        final ResponseEntity<Cart> response = cartController.addTocart(modifyCartRequest);
+        final ResponseEntity<Cart> response = cartController.addTocart(principal, modifyCartRequest);
 
         // Assertions
         assertNotNull(response);
@@ -77,15 +83,15 @@ public class CartControllerTest {
     }
 
     @Test
-    public void addToCartUserNotFound() {
+    public void addToCartCartNotFound() {
         // Stub the call on the mocks
-        when(userRepositoryMock.findByUsername(any())).thenReturn(null);
+        when(cartRepositoryMock.findWithItemsById(anyLong())).thenReturn(Optional.empty());
 
         // Create the user request
         ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
 
         // Call the method under test
-        final ResponseEntity<Cart> response = cartController.addTocart(modifyCartRequest);
+        final ResponseEntity<Cart> response = cartController.addTocart(principal, modifyCartRequest);
 
         // Assertions
         assertNotNull(response);
@@ -100,14 +106,14 @@ public class CartControllerTest {
     public void addToCartItemNotFound() {
         // Stub the call on the mocks
         User testUser = TestUtils.createTestUserWithEmptyCart();
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
         when(itemRepositoryMock.findById(TestUtils.DEFAULT_ITEM_ID)).thenReturn(Optional.empty());
 
         // Create the user request
         ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
 
         // Call the method under test
-        final ResponseEntity<Cart> response = cartController.addTocart(modifyCartRequest);
+        final ResponseEntity<Cart> response = cartController.addTocart(principal, modifyCartRequest);
 
         // Assertions
         assertNotNull(response);
@@ -123,14 +129,14 @@ public class CartControllerTest {
         // Stub the call on the mocks
         User testUser = TestUtils.createTestUserWithCart();
         Item testItem = new Item(TestUtils.DEFAULT_ITEM_ID, "Gogoasa", TestUtils.DEFAULT_ITEM_PRICE, "Cu ciocolata");
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
         when(itemRepositoryMock.findById(TestUtils.DEFAULT_ITEM_ID)).thenReturn(Optional.of(testItem));
 
         // Create the user request
         ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
 
         // Call the method under test
-        final ResponseEntity<Cart> response = cartController.removeFromcart(modifyCartRequest);
+        final ResponseEntity<Cart> response = cartController.removeFromcart(principal, modifyCartRequest);
 
         // Assertions
         assertNotNull(response);
@@ -143,20 +149,40 @@ public class CartControllerTest {
         assertEquals(responseCart.getTotal(), new BigDecimal(1));
 
         verify(cartRepositoryMock, times(1)).save(any());
+        verify(inventoryServiceMock, times(1)).release(TestUtils.DEFAULT_CART_ID, TestUtils.DEFAULT_ITEM_ID, TestUtils.DEFAULT_QUANTITY);
+    }
+
+    @Test
+    public void addToCartOutOfStock() {
+        // Stub the call on the mocks
+        User testUser = TestUtils.createTestUserWithEmptyCart();
+        Item testItem = new Item(TestUtils.DEFAULT_ITEM_ID, "Gogoasa", TestUtils.DEFAULT_ITEM_PRICE, "Cu ciocolata");
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
+        when(itemRepositoryMock.findById(TestUtils.DEFAULT_ITEM_ID)).thenReturn(Optional.of(testItem));
+        when(inventoryServiceMock.reserve(TestUtils.DEFAULT_CART_ID, TestUtils.DEFAULT_ITEM_ID, TestUtils.DEFAULT_QUANTITY)).thenReturn(false);
+
+        // Call the method under test
+        final ResponseEntity<Cart> response = cartController.addTocart(principal, createDefaultTestModifyCartRequest());
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(409, response.getStatusCodeValue());
+
+        verify(cartRepositoryMock, times(0)).save(any());
     }
 
     @Test
-    public void removeFromCartUserNotFound() {
+    public void removeFromCartCartNotFound() {
         // Stub the call on the mocks
         Item testItem = new Item(TestUtils.DEFAULT_ITEM_ID, "Gogoasa", TestUtils.DEFAULT_ITEM_PRICE, "Cu ciocolata");
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(null);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.empty());
         when(itemRepositoryMock.findById(TestUtils.DEFAULT_ITEM_ID)).thenReturn(Optional.of(testItem));
 
         // Create the user request
         ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
 
         // Call the method under test
-        final ResponseEntity<Cart> response = cartController.removeFromcart(modifyCartRequest);
+        final ResponseEntity<Cart> response = cartController.removeFromcart(principal, modifyCartRequest);
 
         // Assertions
         assertNotNull(response);
@@ -171,14 +197,14 @@ public class CartControllerTest {
     public void removeFromCartItemNotFound() {
         // Stub the call on the mocks
         User testUser = TestUtils.createTestUserWithCart();
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
         when(itemRepositoryMock.findById(TestUtils.DEFAULT_ITEM_ID)).thenReturn(Optional.empty());
 
         // Create the user request
         ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
 
         // Call the method under test
-        final ResponseEntity<Cart> response = cartController.removeFromcart(modifyCartRequest);
+        final ResponseEntity<Cart> response = cartController.removeFromcart(principal, modifyCartRequest);
 
         // Assertions
         assertNotNull(response);
@@ -189,4 +215,96 @@ public class CartControllerTest {
 
         verify(cartRepositoryMock, times(0)).save(any());
     }
+
+    @Test
+    public void addToCartOtherUser() {
+        // Create the user request for someone else's cart
+        ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
+        modifyCartRequest.setUsername("otherUser");
+
+        // Call the method under test
+        final ResponseEntity<Cart> response = cartController.addTocart(principal, modifyCartRequest);
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(403, response.getStatusCodeValue());
+        assertNull(response.getBody());
+
+        verify(cartRepositoryMock, times(0)).findWithItemsById(anyLong());
+        verify(cartRepositoryMock, times(0)).save(any());
+    }
+
+    @Test
+    public void removeFromCartOtherUser() {
+        // Create the user request for someone else's cart
+        ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
+        modifyCartRequest.setUsername("otherUser");
+
+        // Call the method under test
+        final ResponseEntity<Cart> response = cartController.removeFromcart(principal, modifyCartRequest);
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(403, response.getStatusCodeValue());
+        assertNull(response.getBody());
+
+        verify(cartRepositoryMock, times(0)).save(any());
+    }
+
+    @Test
+    public void addToCartNonPositiveQuantity() {
+        // Create the user request with nothing to add
+        ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
+        modifyCartRequest.setQuantity(0);
+
+        // Call the method under test
+        final ResponseEntity<Cart> response = cartController.addTocart(principal, modifyCartRequest);
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(400, response.getStatusCodeValue());
+
+        verify(inventoryServiceMock, times(0)).reserve(anyLong(), anyLong(), anyInt());
+        verify(cartRepositoryMock, times(0)).save(any());
+    }
+
+    @Test
+    public void removeFromCartNegativeQuantity() {
+        // Create the user request that would add stock back
+        ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
+        modifyCartRequest.setQuantity(-100);
+
+        // Call the method under test
+        final ResponseEntity<Cart> response = cartController.removeFromcart(principal, modifyCartRequest);
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(400, response.getStatusCodeValue());
+
+        verify(inventoryServiceMock, times(0)).release(anyLong(), anyLong(), anyInt());
+        verify(cartRepositoryMock, times(0)).save(any());
+    }
+
+    @Test
+    public void addToCartWithoutUsernameUsesTokenCart() {
+        // Stub the call on the mocks
+        User testUser = TestUtils.createTestUserWithEmptyCart();
+        Item testItem = new Item(TestUtils.DEFAULT_ITEM_ID, "Gogoasa", TestUtils.DEFAULT_ITEM_PRICE, "Cu ciocolata");
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
+        when(itemRepositoryMock.findById(TestUtils.DEFAULT_ITEM_ID)).thenReturn(Optional.of(testItem));
+
+        // Create the user request without a username
+        ModifyCartRequest modifyCartRequest = createDefaultTestModifyCartRequest();
+        modifyCartRequest.setUsername(null);
+
+        // Call the method under test
+        final ResponseEntity<Cart> response = cartController.addTocart(principal, modifyCartRequest);
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(TestUtils.DEFAULT_CART_ID, response.getBody().getId());
+
+        verify(cartRepositoryMock, times(1)).save(any());
+    }
 }
@@ -0,0 +1,188 @@
+package com.example.demo.controllers;
+
+import com.example.demo.datasource.StatementAccountingFilter;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the JDBC statements each endpoint prepares, so a lazy load creeping back into a response fails the build.
+ * Every endpoint is measured with a small and a larger object graph; the count must not grow with it.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statement-count;DB_CLOSE_DELAY=-1",
+        "security.rate-limit.ip.capacity=10000",
+        "security.rate-limit.user.capacity=10000",
+        "app.jdbc.accounting.response-header=true"
+})
+@AutoConfigureMockMvc
+public class EndpointStatementCountTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private String username;
+    private String token;
+
+    @Before
+    public void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // A fresh user, and so a fresh cart and order history, for every test
+        username = "statementCountUser" + USERS.incrementAndGet();
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        token = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private long countStatements(RequestBuilder request) throws Exception {
+        long before = statistics.getPrepareStatementCount();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount() - before;
+    }
+
+    private RequestBuilder addToCart(long itemId, int quantity) {
+        return post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}");
+    }
+
+    private RequestBuilder removeFromCart(long itemId, int quantity) {
+        return post("/api/cart/removeFromCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}");
+    }
+
+    private RequestBuilder submit() {
+        return post("/api/order/submit/" + username).header("Authorization", token);
+    }
+
+    private RequestBuilder history() {
+        return get("/api/order/history/" + username).header("Authorization", token);
+    }
+
+    @Test
+    public void addToCartDoesNotGrowWithTheCart() throws Exception {
+        // Warm up the item cache so both measurements see the same cache state
+        countStatements(addToCart(1, 1));
+
+        long small = countStatements(addToCart(1, 1));
+        countStatements(addToCart(2, 10));
+        long large = countStatements(addToCart(1, 1));
+
+        assertEquals(small, large);
+        assertTrue("addToCart prepared " + large + " statements", large <= 4);
+    }
+
+    @Test
+    public void removeFromCartDoesNotGrowWithTheCart() throws Exception {
+        countStatements(addToCart(1, 2));
+
+        long small = countStatements(removeFromCart(1, 1));
+        countStatements(addToCart(2, 10));
+        long large = countStatements(removeFromCart(2, 1));
+
+        assertEquals(small, large);
+        assertTrue("removeFromCart prepared " + large + " statements", large <= 4);
+    }
+
+    @Test
+    public void submitDoesNotGrowWithTheCart() throws Exception {
+        countStatements(addToCart(1, 1));
+        long small = countStatements(submit());
+
+        countStatements(addToCart(2, 10));
+        long large = countStatements(submit());
+
+        assertEquals(small, large);
+        // Cart, order, order items and the summary update
+        assertTrue("submit prepared " + large + " statements", large <= 4);
+    }
+
+    @Test
+    public void historyDoesNotGrowWithTheOrders() throws Exception {
+        countStatements(addToCart(1, 2));
+        countStatements(submit());
+        long small = countStatements(history());
+
+        countStatements(addToCart(2, 3));
+        countStatements(submit());
+        countStatements(submit());
+        long large = countStatements(history());
+
+        assertEquals(small, large);
+        assertTrue("history prepared " + large + " statements", large <= 1);
+    }
+
+    @Test
+    public void summaryDoesNotGrowWithTheOrders() throws Exception {
+        RequestBuilder summary = get("/api/order/summary/" + username).header("Authorization", token);
+        countStatements(addToCart(1, 2));
+        countStatements(submit());
+        long small = countStatements(summary);
+
+        countStatements(submit());
+        countStatements(submit());
+        long large = countStatements(summary);
+
+        assertEquals(small, large);
+        assertTrue("summary prepared " + large + " statements", large <= 1);
+    }
+
+    @Test
+    public void itemEndpointsUseASingleQuery() throws Exception {
+        assertTrue(countStatements(get("/api/item").header("Authorization", token)) <= 1);
+        assertTrue(countStatements(get("/api/item/1").header("Authorization", token)) <= 1);
+        assertTrue(countStatements(get("/api/item/name/Round Widget").header("Authorization", token)) <= 1);
+    }
+
+    @Test
+    public void userLookupUsesAConstantNumberOfQueries() throws Exception {
+        countStatements(addToCart(1, 1));
+        long small = countStatements(get("/api/user/" + username).header("Authorization", token));
+
+        countStatements(addToCart(2, 10));
+        long large = countStatements(get("/api/user/" + username).header("Authorization", token));
+
+        assertEquals(small, large);
+        assertTrue("user lookup prepared " + large + " statements", large <= 1);
+    }
+
+    @Test
+    public void responseHeaderReportsTheStatementsAndRowsOfTheRequest() throws Exception {
+        countStatements(addToCart(1, 2));
+        countStatements(submit());
+
+        String sqlStatistics = mockMvc.perform(history()).andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(StatementAccountingFilter.HEADER);
+
+        // One order with two items, read through one join
+        assertTrue(sqlStatistics, sqlStatistics.startsWith("statements=1, rows=2, time-ms="));
+    }
+}
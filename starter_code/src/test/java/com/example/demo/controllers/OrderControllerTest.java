@@ -1,25 +1,41 @@
 package com.example.demo.controllers;
 
 import com.example.demo.TestUtils;
+import com.example.demo.inventory.InventoryService;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.CartRepository;
 import com.example.demo.model.persistence.repositories.OrderRepository;
-import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.orders.OrderSummaryService;
+import com.example.demo.pricing.CartRepricer;
+import com.example.demo.recommendations.CoOccurrenceIndex;
+import com.example.demo.sales.SalesAggregator;
+import com.example.demo.security.JwtPrincipal;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.http.ResponseEntity;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 public class OrderControllerTest {
     // declare the mocks
-    private final UserRepository userRepositoryMock = mock(UserRepository.class);
+    private final CartRepository cartRepositoryMock = mock(CartRepository.class);
     private final OrderRepository orderRepositoryMock = mock(OrderRepository.class);
+    private final OrderSummaryService orderSummaryServiceMock = mock(OrderSummaryService.class);
+    private final SalesAggregator salesAggregatorMock = mock(SalesAggregator.class);
+    private final InventoryService inventoryServiceMock = mock(InventoryService.class);
+    private final CartRepricer cartRepricerMock = mock(CartRepricer.class);
+    private final CoOccurrenceIndex coOccurrenceIndexMock = mock(CoOccurrenceIndex.class);
+
+    // authenticated caller
+    private final JwtPrincipal principal = TestUtils.createTestPrincipal();
 
     // object under test
     private OrderController orderController;
@@ -28,19 +44,25 @@ public class OrderControllerTest {
     public void setUp() {
         orderController = new OrderController();
         // Inject the mocks
-        TestUtils.injectObjects(orderController, "userRepository", userRepositoryMock);
+        TestUtils.injectObjects(orderController, "cartRepository", cartRepositoryMock);
         TestUtils.injectObjects(orderController, "orderRepository", orderRepositoryMock);
+        TestUtils.injectObjects(orderController, "orderSummaryService", orderSummaryServiceMock);
+        TestUtils.injectObjects(orderController, "salesAggregator", salesAggregatorMock);
+        TestUtils.injectObjects(orderController, "inventoryService", inventoryServiceMock);
+        TestUtils.injectObjects(orderController, "cartRepricer", cartRepricerMock);
+        TestUtils.injectObjects(orderController, "coOccurrenceIndex", coOccurrenceIndexMock);
+        when(inventoryServiceMock.commit(anyLong(), any())).thenReturn(true);
     }
 
     @Test
     public void submitOrderHappyPath() {
         // Stub the call on the mocks
         User testUser = TestUtils.createTestUserWithCart();
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
 
 
         // Call the method under test
-        final ResponseEntity<UserOrder> response = orderController.submit(TestUtils.DEFAULT_USER_NAME);
+        final ResponseEntity<UserOrder> response = orderController.submit(principal, TestUtils.DEFAULT_USER_NAME);
 
         // Assertions
         assertNotNull(response);
@@ -53,15 +75,36 @@ public class OrderControllerTest {
         assertEquals(responseOrder.getTotal(), testUser.getCart().getTotal());
 
         verify(orderRepositoryMock, times(1)).save(any());
+        verify(orderSummaryServiceMock, times(1)).recordOrder(responseOrder);
+        verify(salesAggregatorMock, times(1)).record(responseOrder);
+        verify(coOccurrenceIndexMock, times(1)).record(responseOrder);
+        verify(cartRepricerMock, times(1)).verify(testUser.getCart());
+    }
+
+    @Test
+    public void submitOrderOutOfStock() {
+        // Stub the call on the mocks
+        User testUser = TestUtils.createTestUserWithCart();
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
+        when(inventoryServiceMock.commit(TestUtils.DEFAULT_CART_ID, testUser.getCart().getItems())).thenReturn(false);
+
+        // Call the method under test
+        final ResponseEntity<UserOrder> response = orderController.submit(principal, TestUtils.DEFAULT_USER_NAME);
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(409, response.getStatusCodeValue());
+
+        verify(orderRepositoryMock, times(0)).save(any());
     }
 
     @Test
-    public void submitOrderUserNotFound() {
+    public void submitOrderCartNotFound() {
         // Stub the call on the mocks
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(null);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.empty());
 
         // Call the method under test
-        final ResponseEntity<UserOrder> response = orderController.submit(TestUtils.DEFAULT_USER_NAME);
+        final ResponseEntity<UserOrder> response = orderController.submit(principal, TestUtils.DEFAULT_USER_NAME);
 
         // Assertions
         assertNotNull(response);
@@ -76,10 +119,10 @@ public class OrderControllerTest {
     public void submitOrderCartIsEmpty() {
         // Stub the call on the mocks
         User testUser = TestUtils.createTestUserWithEmptyCart();
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
+        when(cartRepositoryMock.findWithItemsById(TestUtils.DEFAULT_CART_ID)).thenReturn(Optional.of(testUser.getCart()));
 
         // Call the method under test
-        final ResponseEntity<UserOrder> response = orderController.submit(TestUtils.DEFAULT_USER_NAME);
+        final ResponseEntity<UserOrder> response = orderController.submit(principal, TestUtils.DEFAULT_USER_NAME);
 
         // Assertions
         assertNotNull(response);
@@ -96,11 +139,10 @@ public class OrderControllerTest {
         User testUser = TestUtils.createTestUserWithCart();
         List<UserOrder> testOrderList = new ArrayList<>();
         testOrderList.add(UserOrder.createFromCart(testUser.getCart()));
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
-        when(orderRepositoryMock.findByUser(testUser)).thenReturn(testOrderList);
+        when(orderRepositoryMock.findWithItemsByUserId(TestUtils.DEFAULT_USER_ID)).thenReturn(testOrderList);
 
         // Call the method under test
-        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(TestUtils.DEFAULT_USER_NAME);
+        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(principal, TestUtils.DEFAULT_USER_NAME);
 
         // Assertions
         assertNotNull(response);
@@ -111,29 +153,40 @@ public class OrderControllerTest {
     }
 
     @Test
-    public void getOrdersHappyUserNotFound() {
-        // Stub the call on the mocks
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(null);
-
+    public void getOrdersOtherUser() {
         // Call the method under test
-        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(TestUtils.DEFAULT_USER_NAME);
+        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(principal, "otherUser");
 
         // Assertions
         assertNotNull(response);
-        assertEquals(404, response.getStatusCodeValue());
+        assertEquals(403, response.getStatusCodeValue());
         List<UserOrder> responseOrder = response.getBody();
         assertNull(responseOrder);
+
+        verify(orderRepositoryMock, times(0)).findWithItemsByUserId(anyLong());
+    }
+
+    @Test
+    public void submitOrderOtherUser() {
+        // Call the method under test
+        final ResponseEntity<UserOrder> response = orderController.submit(principal, "otherUser");
+
+        // Assertions
+        assertNotNull(response);
+        assertEquals(403, response.getStatusCodeValue());
+        assertNull(response.getBody());
+
+        verify(cartRepositoryMock, times(0)).findWithItemsById(anyLong());
+        verify(orderRepositoryMock, times(0)).save(any());
     }
 
     @Test
     public void getOrdersOrderNotFound() {
         // Stub the call on the mocks
-        User testUser = TestUtils.createTestUserWithCart();
-        when(userRepositoryMock.findByUsername(TestUtils.DEFAULT_USER_NAME)).thenReturn(testUser);
-        when(orderRepositoryMock.findByUser(testUser)).thenReturn(null);
+        when(orderRepositoryMock.findWithItemsByUserId(TestUtils.DEFAULT_USER_ID)).thenReturn(null);
         
         // Call the method under test
-        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(TestUtils.DEFAULT_USER_NAME);
+        final ResponseEntity<List<UserOrder>> response = orderController.getOrdersForUser(principal, TestUtils.DEFAULT_USER_NAME);
 
         // Assertions
         assertNotNull(response);
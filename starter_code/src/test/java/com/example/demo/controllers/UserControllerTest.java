@@ -4,6 +4,7 @@ package com.example.demo.controllers;
 import com.example.demo.TestUtils;
 import com.example.demo.model.persistence.User;
 import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.UserOrderSummaryRepository;
 import com.example.demo.model.persistence.repositories.UserRepository;
 import com.example.demo.model.requests.CreateUserRequest;
 import org.junit.Before;
@@ -25,6 +26,7 @@ public class UserControllerTest {
     // declare the mocks
     private final UserRepository userRepositoryMock = mock(UserRepository.class);
     private final CartRepository cartRepositoryMock = mock(CartRepository.class);
+    private final UserOrderSummaryRepository userOrderSummaryRepositoryMock = mock(UserOrderSummaryRepository.class);
     private final BCryptPasswordEncoder encoderMock = mock(BCryptPasswordEncoder.class);
 
     // object under test
@@ -54,6 +56,7 @@ public class UserControllerTest {
         // Inject the mocks
         TestUtils.injectObjects(userController, "userRepository", userRepositoryMock);
         TestUtils.injectObjects(userController, "cartRepository", cartRepositoryMock);
+        TestUtils.injectObjects(userController, "userOrderSummaryRepository", userOrderSummaryRepositoryMock);
         TestUtils.injectObjects(userController, "passwordEncoder", encoderMock);
     }
 
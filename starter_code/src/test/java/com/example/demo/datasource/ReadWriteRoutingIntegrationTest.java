@@ -0,0 +1,109 @@
+package com.example.demo.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        // Synchronizations are triggered by the tests
+        "app.datasource.routing.replication-interval=1h"
+})
+public class ReadWriteRoutingIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReplicaSynchronizer replicaSynchronizer;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        replicaSynchronizer.replicate();
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private void insertItem(String name) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.execute(status -> jdbcTemplate.update(
+                "insert into item (name, price, description) values (?, 1.00, 'Routed item')", name));
+    }
+
+    private int countItems(String name, boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject(
+                "select count(*) from item where name = ?", Integer.class, name));
+    }
+
+    private void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, Collections.emptyList()));
+    }
+
+    @Test
+    public void readOnlyTransactionsReadFromTheReplica() {
+        insertItem("Replicated Widget");
+
+        // Written to the primary only, the replica has not been synchronized yet
+        assertEquals(1, countItems("Replicated Widget", false));
+        assertEquals(0, countItems("Replicated Widget", true));
+
+        replicaSynchronizer.replicate();
+
+        assertEquals(1, countItems("Replicated Widget", true));
+    }
+
+    @Test
+    public void writerReadsTheirOwnWritesBeforeReplication() {
+        authenticate("alice");
+        insertItem("Alice Widget");
+
+        assertEquals(1, countItems("Alice Widget", true));
+
+        authenticate("bob");
+        assertEquals(0, countItems("Alice Widget", true));
+    }
+
+    @Test
+    public void bothPoolsReportConnectionMetrics() {
+        countItems("Square Widget", true);
+        countItems("Square Widget", false);
+
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "primary").gauge());
+        assertNotNull(meterRegistry.find("hikaricp.connections.active").tag("pool", "replica").gauge());
+        assertNotNull(meterRegistry.find("jdbc.connections.max").tag("name", "replica").gauge());
+        assertTrue(meterRegistry.get("datasource.routing").tag("target", "replica").counter().count() > 0);
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.datasource;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ReplicaConsistencyTrackerTest {
+
+    private ReplicaConsistencyTracker createSyncedTracker(boolean readYourWrites) {
+        ReplicaConsistencyTracker tracker = new ReplicaConsistencyTracker(readYourWrites, new SimpleMeterRegistry());
+        tracker.replicated(tracker.beginReplication());
+        return tracker;
+    }
+
+    @Test
+    public void replicaIsUnavailableUntilTheFirstSynchronization() {
+        ReplicaConsistencyTracker tracker = new ReplicaConsistencyTracker(true, new SimpleMeterRegistry());
+        assertFalse(tracker.canReadFromReplica(null));
+
+        // The first run copies the initial state even though nothing was recorded
+        long version = tracker.beginReplication();
+        assertEquals(0, version);
+        tracker.replicated(version);
+
+        assertTrue(tracker.canReadFromReplica(null));
+        assertEquals(-1, tracker.beginReplication());
+    }
+
+    @Test
+    public void writerReadsFromThePrimaryUntilTheReplicaCatchesUp() {
+        ReplicaConsistencyTracker tracker = createSyncedTracker(true);
+
+        tracker.recordWrite("alice");
+        assertFalse(tracker.canReadFromReplica("alice"));
+        assertTrue(tracker.canReadFromReplica("bob"));
+
+        long version = tracker.beginReplication();
+        // Out of rotation while the copy runs
+        assertFalse(tracker.canReadFromReplica("bob"));
+        tracker.replicated(version);
+
+        assertTrue(tracker.canReadFromReplica("alice"));
+        assertTrue(tracker.canReadFromReplica("bob"));
+    }
+
+    @Test
+    public void writesDuringASynchronizationWaitForTheNextOne() {
+        ReplicaConsistencyTracker tracker = createSyncedTracker(true);
+        tracker.recordWrite("alice");
+
+        long version = tracker.beginReplication();
+        tracker.recordWrite("alice");
+        tracker.replicated(version);
+
+        assertFalse(tracker.canReadFromReplica("alice"));
+        tracker.replicated(tracker.beginReplication());
+        assertTrue(tracker.canReadFromReplica("alice"));
+    }
+
+    @Test
+    public void failedSynchronizationKeepsReadsOnThePrimary() {
+        ReplicaConsistencyTracker tracker = createSyncedTracker(true);
+        tracker.recordWrite(null);
+
+        tracker.beginReplication();
+        tracker.replicationFailed();
+
+        assertFalse(tracker.canReadFromReplica(null));
+        assertNotEquals(-1, tracker.beginReplication());
+    }
+
+    @Test
+    public void readYourWritesCanBeDisabled() {
+        ReplicaConsistencyTracker tracker = createSyncedTracker(false);
+
+        tracker.recordWrite("alice");
+
+        assertTrue(tracker.canReadFromReplica("alice"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.datasource;
+
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StatementAccountingDataSourceTest {
+
+    private StatementAccountingDataSource dataSource;
+    // Keeps the in-memory database alive between connections
+    private Connection keepAlive;
+
+    @Before
+    public void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statement-accounting");
+        keepAlive = h2.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("create table widget (id bigint primary key, name varchar(255))");
+        }
+        dataSource = new StatementAccountingDataSource(h2);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        StatementStatistics.stop();
+        keepAlive.close();
+    }
+
+    @Test
+    public void statementsRowsAndRepetitionsAreAccounted() throws SQLException {
+        StatementStatistics statistics = StatementStatistics.start();
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement insert = connection.prepareStatement("insert into widget (id, name) values (?, ?)")) {
+                for (int id = 1; id <= 3; id++) {
+                    insert.setLong(1, id);
+                    insert.setString(2, "Widget " + id);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            // The N+1 pattern: one lookup per id
+            for (int id = 1; id <= 3; id++) {
+                try (Statement select = connection.createStatement();
+                     ResultSet resultSet = select.executeQuery("select name from widget where id = " + id)) {
+                    assertTrue(resultSet.next());
+                    assertFalse(resultSet.next());
+                }
+            }
+        }
+
+        assertEquals(4, statistics.getStatements());
+        assertEquals(6, statistics.getRows());
+        assertTrue(statistics.getNanos() > 0);
+        assertEquals(Collections.singletonMap("select name from widget where id = ?", 3), statistics.getRepeatedStatements(3));
+        Map<String, Integer> all = statistics.getRepeatedStatements(1);
+        assertEquals(Integer.valueOf(1), all.get("insert into widget (id, name) values (?, ?)"));
+        assertEquals("statements=4, rows=6, time-ms=", StatementAccountingFilter.format(statistics).replaceAll("[0-9.]+$", ""));
+    }
+
+    @Test
+    public void connectionsOutsideARequestAreNotWrapped() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection instanceof JdbcConnection);
+        }
+    }
+
+    @Test
+    public void proxiesKeepTheirIdentity() throws SQLException {
+        StatementStatistics.start();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("select count(*) from widget");
+             PreparedStatement other = connection.prepareStatement("select count(*) from widget")) {
+            // Hibernate keeps statements in hash maps
+            assertEquals(statement, statement);
+            assertEquals(System.identityHashCode(statement), statement.hashCode());
+            assertNotEquals(statement, other);
+        }
+    }
+}
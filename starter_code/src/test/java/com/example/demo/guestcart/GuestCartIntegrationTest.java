@@ -0,0 +1,116 @@
+package com.example.demo.guestcart;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.example.demo.security.SecurityConstants;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:guestcart;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class GuestCartIntegrationTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private MvcResult add(String guestToken, long itemId, int quantity) throws Exception {
+        return mockMvc.perform(post("/api/guest-cart/addToCart").header(SecurityConstants.GUEST_CART_HEADER, guestToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}"))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    @Test
+    public void anonymousCartIsMergedAtLogin() throws Exception {
+        String token = add("", 1, 2).getResponse().getHeader(SecurityConstants.GUEST_CART_HEADER);
+        MvcResult second = add(token, 2, 1);
+        token = second.getResponse().getHeader(SecurityConstants.GUEST_CART_HEADER);
+        JsonNode cart = objectMapper.readTree(second.getResponse().getContentAsString());
+        assertEquals(2, cart.get("items").size());
+        assertEquals(0, new BigDecimal("7.97").compareTo(cart.get("total").decimalValue()));
+
+        String shown = mockMvc.perform(get("/api/guest-cart").header(SecurityConstants.GUEST_CART_HEADER, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(2, objectMapper.readTree(shown).get("items").get(0).get("quantity").asInt());
+
+        String username = "guestShopper" + USERS.incrementAndGet();
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        MvcResult login = mockMvc.perform(post("/login").header(SecurityConstants.GUEST_CART_HEADER, token)
+                .contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertEquals("3", login.getResponse().getHeader(SecurityConstants.GUEST_CART_MERGED_HEADER));
+        Cart merged = transactionTemplate.execute(status -> {
+            Cart stored = cartRepository.findWithItemsById(userRepository.findByUsername(username).getCart().getId()).get();
+            stored.getItems().size();
+            return stored;
+        });
+        assertEquals(3, merged.getItems().size());
+        assertEquals(0, new BigDecimal("7.97").compareTo(merged.getTotal()));
+
+        // A retried login with the same token adds nothing
+        MvcResult retried = mockMvc.perform(post("/login").header(SecurityConstants.GUEST_CART_HEADER, token)
+                .contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals("0", retried.getResponse().getHeader(SecurityConstants.GUEST_CART_MERGED_HEADER));
+        int items = transactionTemplate.execute(status ->
+                cartRepository.findWithItemsById(userRepository.findByUsername(username).getCart().getId()).get().getItems().size());
+        assertEquals(3, items);
+    }
+
+    @Test
+    public void tamperedOrOverfullCartsAreRefused() throws Exception {
+        String token = add("", 1, 1).getResponse().getHeader(SecurityConstants.GUEST_CART_HEADER);
+        mockMvc.perform(get("/api/guest-cart").header(SecurityConstants.GUEST_CART_HEADER, token + "x"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/guest-cart/addToCart").header(SecurityConstants.GUEST_CART_HEADER, token)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"itemId\":1,\"quantity\":" + GuestCart.MAX_QUANTITY + "}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/guest-cart/removeFromCart").header(SecurityConstants.GUEST_CART_HEADER, token)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"itemId\":999,\"quantity\":-" + GuestCart.MAX_QUANTITY + "}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/guest-cart/addToCart")
+                .contentType(MediaType.APPLICATION_JSON).content("{\"itemId\":999,\"quantity\":1}"))
+                .andExpect(status().isNotFound());
+    }
+}
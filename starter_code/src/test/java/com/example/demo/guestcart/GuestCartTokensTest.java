@@ -0,0 +1,103 @@
+package com.example.demo.guestcart;
+
+import com.auth0.jwt.JWT;
+import com.auth0.jwt.algorithms.Algorithm;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.exceptions.TokenExpiredException;
+import com.example.demo.security.SecurityConstants;
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class GuestCartTokensTest {
+
+    private final AtomicLong clock = new AtomicLong(1_600_000_000_000L);
+    private final GuestCartTokens tokens = new GuestCartTokens(TimeUnit.DAYS.toMillis(1), clock::get);
+
+    @Test
+    public void cartsSurviveTheRoundTrip() {
+        GuestCart cart = new GuestCart();
+        assertTrue(cart.add(2, 3));
+        assertTrue(cart.add(1, 1));
+        assertTrue(cart.add(2, 1));
+
+        Map<Long, Integer> expected = new LinkedHashMap<>();
+        expected.put(2L, 4);
+        expected.put(1L, 1);
+        assertEquals(expected, tokens.verify(tokens.sign(cart)).getQuantities());
+        assertTrue(tokens.verify(tokens.sign(new GuestCart())).isEmpty());
+    }
+
+    @Test
+    public void everyTokenHasItsOwnId() {
+        GuestCart cart = cartOf(1, 1);
+        GuestCart first = tokens.verify(tokens.sign(cart));
+        GuestCart second = tokens.verify(tokens.sign(cart));
+
+        assertNotNull(first.getTokenId());
+        assertNotEquals(first.getTokenId(), second.getTokenId());
+        assertEquals(clock.get() + TimeUnit.DAYS.toMillis(1), first.getTokenExpiresAt());
+    }
+
+    @Test
+    public void limitsAreKept() {
+        GuestCart cart = new GuestCart();
+        assertFalse(cart.add(1, 0));
+        assertTrue(cart.add(1, GuestCart.MAX_QUANTITY));
+        assertFalse(cart.add(1, 1));
+        for (long itemId = 2; itemId <= GuestCart.MAX_LINES; itemId++) {
+            assertTrue(cart.add(itemId, 1));
+        }
+        assertFalse(cart.add(GuestCart.MAX_LINES + 1, 1));
+        // A negative removal would be an add around the limits
+        assertFalse(cart.remove(GuestCart.MAX_LINES + 1, -1));
+        assertFalse(cart.getQuantities().containsKey((long) GuestCart.MAX_LINES + 1));
+        assertTrue(cart.remove(1, GuestCart.MAX_QUANTITY + 5));
+        assertTrue(cart.add(GuestCart.MAX_LINES + 1, 1));
+    }
+
+    @Test(expected = TokenExpiredException.class)
+    public void expiredCartsAreRefused() {
+        GuestCart cart = new GuestCart();
+        cart.add(1, 1);
+        String token = tokens.sign(cart);
+        clock.addAndGet(TimeUnit.DAYS.toMillis(2));
+        tokens.verify(token);
+    }
+
+    @Test
+    public void tamperedAndLoginTokensAreRefused() {
+        GuestCart cart = new GuestCart();
+        cart.add(1, 1);
+        String[] parts = tokens.sign(cart).split("\\.");
+        String otherPayload = tokens.sign(cartOf(1, 99)).split("\\.")[1];
+        assertRefused(parts[0] + "." + otherPayload + "." + parts[2]);
+
+        String loginToken = JWT.create()
+                .withArrayClaim("i", new Long[]{1L})
+                .withArrayClaim("q", new Integer[]{1})
+                .withExpiresAt(new Date(clock.get() + 1000))
+                .sign(Algorithm.HMAC512(SecurityConstants.SECRET.getBytes()));
+        assertRefused(loginToken);
+    }
+
+    private static GuestCart cartOf(long itemId, int quantity) {
+        GuestCart cart = new GuestCart();
+        cart.add(itemId, quantity);
+        return cart;
+    }
+
+    private void assertRefused(String token) {
+        try {
+            tokens.verify(token);
+            fail("accepted " + token);
+        } catch (JWTVerificationException expected) {
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.demo.inventory;
+
+import com.example.demo.model.persistence.repositories.ItemStockRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventory;DB_CLOSE_DELAY=-1",
+        "security.admin-users=inventoryAdmin"
+})
+@AutoConfigureMockMvc
+public class InventoryIntegrationTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    // Created by the first test and kept for the others, like the database
+    private static String adminToken;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private ItemStockRepository itemStockRepository;
+
+    @Before
+    public void setUp() throws Exception {
+        if (adminToken == null) {
+            adminToken = signUp("inventoryAdmin");
+        }
+    }
+
+    private String signUp(String username) throws Exception {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        return mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private void addToCart(String token, long itemId, int quantity, ResultMatcher expected) throws Exception {
+        mockMvc.perform(post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}"))
+                .andExpect(expected);
+    }
+
+    private long available(long itemId) throws Exception {
+        String body = mockMvc.perform(get("/api/admin/inventory/" + itemId).header("Authorization", adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("available").asLong();
+    }
+
+    @Test
+    public void stockIsReservedByCartsAndSoldByOrders() throws Exception {
+        assertEquals(-1, available(2));
+        mockMvc.perform(post("/api/admin/inventory/2/restock").header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":3}"))
+                .andExpect(status().isOk());
+
+        String first = "inventoryBuyer" + USERS.incrementAndGet();
+        String firstToken = signUp(first);
+        String secondToken = signUp("inventoryBuyer" + USERS.incrementAndGet());
+        addToCart(firstToken, 2, 2, status().isOk());
+        addToCart(secondToken, 2, 2, status().isConflict());
+        addToCart(secondToken, 2, 1, status().isOk());
+        assertEquals(0, available(2));
+
+        mockMvc.perform(post("/api/order/submit/" + first).header("Authorization", firstToken))
+                .andExpect(status().isOk());
+        // The cart still holds both units, there are none left to sell it again
+        mockMvc.perform(post("/api/order/submit/" + first).header("Authorization", firstToken))
+                .andExpect(status().isConflict());
+
+        inventoryService.reconcile();
+        assertEquals(1, itemStockRepository.findById(2L).get().getQuantity());
+    }
+
+    @Test
+    public void removingFromTheCartReleasesStock() throws Exception {
+        mockMvc.perform(post("/api/admin/inventory/1/restock").header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":5}"))
+                .andExpect(status().isOk());
+        long before = available(1);
+        String token = signUp("inventoryBuyer" + USERS.incrementAndGet());
+
+        addToCart(token, 1, 2, status().isOk());
+        assertEquals(before - 2, available(1));
+        // A negative removal is refused instead of putting units back that were never reserved
+        mockMvc.perform(post("/api/cart/removeFromCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":1,\"quantity\":-100}"))
+                .andExpect(status().isBadRequest());
+        assertEquals(before - 2, available(1));
+        mockMvc.perform(post("/api/cart/removeFromCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":1,\"quantity\":2}"))
+                .andExpect(status().isOk());
+        assertEquals(before, available(1));
+    }
+
+    @Test
+    public void restockIsForAdminsOnly() throws Exception {
+        String token = signUp("inventoryBuyer" + USERS.incrementAndGet());
+        mockMvc.perform(post("/api/admin/inventory/1/restock").header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":5}"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/api/admin/inventory/1/restock").header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":0}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/admin/inventory/999/restock").header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"quantity\":5}"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.demo.inventory;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.ItemStock;
+import com.example.demo.model.persistence.repositories.ItemStockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class InventoryServiceTest {
+
+    private static final long HOT_ITEM = 1L;
+    private static final long OTHER_ITEM = 2L;
+    private static final long UNTRACKED_ITEM = 3L;
+
+    private final ItemStockRepository itemStockRepositoryMock = mock(ItemStockRepository.class);
+    private final TransactionTemplate transactionsMock = mock(TransactionTemplate.class);
+    private final AtomicLong clock = new AtomicLong();
+
+    private InventoryService inventory;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        when(transactionsMock.execute(any())).thenAnswer(call -> ((TransactionCallback<Object>) call.getArgument(0)).doInTransaction(null));
+        when(itemStockRepositoryMock.findAll()).thenReturn(Arrays.asList(new ItemStock(HOT_ITEM, 1_000), new ItemStock(OTHER_ITEM, 5)));
+        InventoryProperties properties = new InventoryProperties();
+        properties.setReservationTtl(Duration.ofMinutes(15));
+        // Left to the tests
+        properties.setReconcileInterval(Duration.ofHours(1));
+        inventory = new InventoryService(itemStockRepositoryMock, transactionsMock, properties, new SimpleMeterRegistry(), clock::get);
+        inventory.start();
+    }
+
+    private static List<Item> items(long... ids) {
+        List<Item> items = new ArrayList<>();
+        for (long id : ids) {
+            items.add(new Item(id, "Item " + id, BigDecimal.ONE, "An item"));
+        }
+        return items;
+    }
+
+    private long reserveInParallel(int attempts, boolean randomQuantities) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Long>> reservations = new ArrayList<>();
+        try {
+            for (int i = 0; i < attempts; i++) {
+                long cartId = i;
+                int quantity = randomQuantities ? ThreadLocalRandom.current().nextInt(1, 4) : 1;
+                reservations.add(executor.submit(() -> {
+                    go.await();
+                    return inventory.reserve(cartId, HOT_ITEM, quantity) ? (long) quantity : 0L;
+                }));
+            }
+            go.countDown();
+            long reserved = 0;
+            for (Future<Long> reservation : reservations) {
+                reserved += reservation.get(10, TimeUnit.SECONDS);
+            }
+            return reserved;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelReservationsOfOneItemNeverOversell() throws Exception {
+        assertEquals(1_000, reserveInParallel(5_000, false));
+        assertEquals(0, inventory.getAvailable(HOT_ITEM));
+        assertFalse(inventory.reserve(-1, HOT_ITEM, 1));
+    }
+
+    @Test
+    public void parallelReservationsOfSeveralUnitsNeverOversell() throws Exception {
+        long reserved = reserveInParallel(2_000, true);
+
+        assertTrue("reserved " + reserved, reserved <= 1_000);
+        assertEquals(1_000 - reserved, inventory.getAvailable(HOT_ITEM));
+        // Whatever is left is less than the biggest request that was refused
+        assertTrue(inventory.getAvailable(HOT_ITEM) < 3);
+    }
+
+    @Test
+    public void untrackedItemsAreAlwaysAvailable() {
+        assertTrue(inventory.reserve(1, UNTRACKED_ITEM, 1_000_000));
+        assertEquals(-1, inventory.getAvailable(UNTRACKED_ITEM));
+        assertTrue(inventory.commit(1, items(UNTRACKED_ITEM)));
+    }
+
+    @Test
+    public void expiredReservationsAreGivenBack() {
+        assertTrue(inventory.reserve(1, OTHER_ITEM, 4));
+        clock.addAndGet(Duration.ofMinutes(10).toMillis());
+        assertTrue(inventory.reserve(2, OTHER_ITEM, 1));
+        assertFalse(inventory.reserve(3, OTHER_ITEM, 1));
+
+        // Cart 1 expires, cart 2 has been touched since
+        clock.addAndGet(Duration.ofMinutes(6).toMillis());
+        inventory.expireReservations();
+        assertEquals(4, inventory.getAvailable(OTHER_ITEM));
+
+        // Its units gone, cart 1 takes what is left when submitted
+        assertTrue(inventory.commit(1, items(OTHER_ITEM, OTHER_ITEM, OTHER_ITEM, OTHER_ITEM)));
+        assertEquals(0, inventory.getAvailable(OTHER_ITEM));
+        assertTrue(inventory.commit(2, items(OTHER_ITEM)));
+    }
+
+    @Test
+    public void commitUsesTheReservationAndTakesTheRestOrNothing() {
+        assertTrue(inventory.reserve(1, OTHER_ITEM, 2));
+        assertTrue(inventory.reserve(2, HOT_ITEM, 1));
+
+        // Two reserved, three more wanted but only three left
+        assertFalse(inventory.commit(1, items(OTHER_ITEM, OTHER_ITEM, OTHER_ITEM, OTHER_ITEM, OTHER_ITEM, OTHER_ITEM, HOT_ITEM)));
+        assertEquals(3, inventory.getAvailable(OTHER_ITEM));
+        assertEquals(999, inventory.getAvailable(HOT_ITEM));
+
+        assertTrue(inventory.commit(1, items(OTHER_ITEM, OTHER_ITEM, OTHER_ITEM, HOT_ITEM)));
+        assertEquals(2, inventory.getAvailable(OTHER_ITEM));
+        assertEquals(998, inventory.getAvailable(HOT_ITEM));
+
+        // The reservation was used up, releasing it gives nothing back
+        inventory.release(1, OTHER_ITEM, 2);
+        assertEquals(2, inventory.getAvailable(OTHER_ITEM));
+    }
+
+    @Test
+    public void releasedUnitsCanBeReservedAgain() {
+        assertTrue(inventory.reserve(1, OTHER_ITEM, 5));
+        inventory.release(1, OTHER_ITEM, 2);
+        assertEquals(2, inventory.getAvailable(OTHER_ITEM));
+        assertTrue(inventory.reserve(2, OTHER_ITEM, 2));
+    }
+
+    @Test
+    public void negativeReleasesCreateNoStock() {
+        assertTrue(inventory.reserve(1, OTHER_ITEM, 2));
+        inventory.release(1, OTHER_ITEM, -100);
+        assertEquals(3, inventory.getAvailable(OTHER_ITEM));
+
+        // Only the two units really reserved come back
+        inventory.release(1, OTHER_ITEM, 100);
+        assertEquals(5, inventory.getAvailable(OTHER_ITEM));
+        clock.addAndGet(Duration.ofHours(1).toMillis());
+        inventory.expireReservations();
+        assertEquals(5, inventory.getAvailable(OTHER_ITEM));
+    }
+
+    @Test
+    public void releaseWaitsForTheCommit() {
+        assertTrue(inventory.reserve(1, OTHER_ITEM, 2));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            inventory.release(1, OTHER_ITEM, 2);
+            assertEquals(3, inventory.getAvailable(OTHER_ITEM));
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertEquals(5, inventory.getAvailable(OTHER_ITEM));
+    }
+
+    @Test
+    public void failedOrdersGiveTheirUnitsBack() {
+        assertTrue(inventory.commit(1, items(OTHER_ITEM, OTHER_ITEM, UNTRACKED_ITEM)));
+        assertEquals(3, inventory.getAvailable(OTHER_ITEM));
+
+        inventory.restoreItemIds(Arrays.asList(OTHER_ITEM, OTHER_ITEM, UNTRACKED_ITEM));
+        assertEquals(5, inventory.getAvailable(OTHER_ITEM));
+        // Nothing was sold in the end
+        inventory.reconcile();
+        verify(itemStockRepositoryMock, never()).addQuantity(anyLong(), anyLong());
+    }
+
+    @Test
+    public void salesAreReconciledToTheDatabase() {
+        assertTrue(inventory.commit(1, items(HOT_ITEM, HOT_ITEM, OTHER_ITEM)));
+        assertTrue(inventory.commit(2, items(HOT_ITEM)));
+        List<Item> rejected = items(OTHER_ITEM);
+        assertTrue(inventory.commit(3, rejected));
+        // The third order was not placed after all
+        inventory.restore(rejected);
+
+        inventory.reconcile();
+
+        verify(itemStockRepositoryMock).addQuantity(HOT_ITEM, -3);
+        verify(itemStockRepositoryMock).addQuantity(OTHER_ITEM, -1);
+        assertEquals(4, inventory.getAvailable(OTHER_ITEM));
+
+        // Nothing new to write
+        inventory.reconcile();
+        verify(itemStockRepositoryMock, times(2)).addQuantity(anyLong(), anyLong());
+    }
+
+    @Test
+    public void restockStartsTracking() {
+        inventory.restock(UNTRACKED_ITEM, 2);
+
+        verify(itemStockRepositoryMock).save(any(ItemStock.class));
+        assertEquals(2, inventory.getAvailable(UNTRACKED_ITEM));
+        assertFalse(inventory.commit(1, items(UNTRACKED_ITEM, UNTRACKED_ITEM, UNTRACKED_ITEM)));
+        assertTrue(inventory.commit(1, Collections.singletonList(items(UNTRACKED_ITEM).get(0))));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.loadtest;
+
+import java.time.Duration;
+
+/**
+ * The endpoints the virtual users call, with the latency objectives they are held to unless overridden through
+ * {@code loadtest.slo.<key>.p99} and {@code loadtest.slo.<key>.p999}. Sign-up and login hash a password with the
+ * calibrated BCrypt strength, so they get a budget of their own; the tail of the other endpoints allows for a request
+ * queued behind one such hash.
+ */
+enum Endpoint {
+
+    SIGN_UP("signup", "POST /api/user/create", Duration.ofSeconds(2), Duration.ofSeconds(3)),
+    LOGIN("login", "POST /login", Duration.ofSeconds(2), Duration.ofSeconds(3)),
+    ITEMS("items", "GET /api/item", Duration.ofMillis(300), Duration.ofMillis(500)),
+    ITEM_BY_ID("item", "GET /api/item/{id}", Duration.ofMillis(300), Duration.ofMillis(500)),
+    ITEMS_BY_NAME("itemsByName", "GET /api/item/name/{name}", Duration.ofMillis(300), Duration.ofMillis(500)),
+    ADD_TO_CART("addToCart", "POST /api/cart/addToCart", Duration.ofMillis(300), Duration.ofMillis(500)),
+    REMOVE_FROM_CART("removeFromCart", "POST /api/cart/removeFromCart", Duration.ofMillis(300), Duration.ofMillis(500)),
+    SUBMIT_ORDER("submit", "POST /api/order/submit/{username}", Duration.ofMillis(300), Duration.ofMillis(500)),
+    ORDER_HISTORY("history", "GET /api/order/history/{username}", Duration.ofMillis(300), Duration.ofMillis(500));
+
+    private final String key;
+    private final String label;
+    private final Duration defaultP99;
+    private final Duration defaultP999;
+
+    Endpoint(String key, String label, Duration defaultP99, Duration defaultP999) {
+        this.key = key;
+        this.label = label;
+        this.defaultP99 = defaultP99;
+        this.defaultP999 = defaultP999;
+    }
+
+    String getKey() {
+        return key;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    Duration getDefaultP99() {
+        return defaultP99;
+    }
+
+    Duration getDefaultP999() {
+        return defaultP999;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per endpoint for the requests completed inside the measurement window. Latency
+ * runs from the time a request was due, not from when it was sent, so a server falling behind the schedule shows up
+ * in the percentiles instead of just slowing the virtual users down.
+ */
+class LoadReport {
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final long measureStart;
+    private final long measureEnd;
+
+    LoadReport(long measureStart, long measureEnd) {
+        this.measureStart = measureStart;
+        this.measureEnd = measureEnd;
+        for (Endpoint endpoint : Endpoint.values()) {
+            // Microseconds with three significant digits, auto-resizing for whatever the slowest request takes
+            latencies.put(endpoint, new ConcurrentHistogram(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    void record(Endpoint endpoint, long dueAt, long completedAt, boolean success) {
+        if (completedAt < measureStart || completedAt >= measureEnd) {
+            return;
+        }
+        latencies.get(endpoint).recordValue(TimeUnit.NANOSECONDS.toMicros(completedAt - dueAt));
+        if (!success) {
+            errors.get(endpoint).increment();
+        }
+    }
+
+    private double measuredSeconds() {
+        return (measureEnd - measureStart) / 1e9;
+    }
+
+    private long totalRequests() {
+        return latencies.values().stream().mapToLong(Histogram::getTotalCount).sum();
+    }
+
+    private long totalErrors() {
+        return errors.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    String render() {
+        StringBuilder report = new StringBuilder(String.format("%n%-36s %8s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            report.append(String.format("%-36s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint.getLabel(),
+                    histogram.getTotalCount(), errors.get(endpoint).sum(), histogram.getTotalCount() / measuredSeconds(),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue())));
+        }
+        report.append(String.format("%-36s %8d %7d %9.1f%n", "total", totalRequests(), totalErrors(),
+                totalRequests() / measuredSeconds()));
+        return report.toString();
+    }
+
+    List<String> violations(LoadTestSettings settings) {
+        List<String> violations = new ArrayList<>();
+        double throughput = totalRequests() / measuredSeconds();
+        if (throughput < settings.minThroughput) {
+            violations.add(String.format("throughput %.1f req/s is below %.1f req/s", throughput, settings.minThroughput));
+        }
+        long requests = totalRequests();
+        double errorRate = requests == 0 ? 0 : (double) totalErrors() / requests;
+        if (errorRate > settings.maxErrorRate) {
+            violations.add(String.format("error rate %.4f is above %.4f", errorRate, settings.maxErrorRate));
+        }
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            checkPercentile(violations, endpoint, histogram, "p99", 99, settings.p99(endpoint));
+            checkPercentile(violations, endpoint, histogram, "p999", 99.9, settings.p999(endpoint));
+        }
+        return violations;
+    }
+
+    private static void checkPercentile(List<String> violations, Endpoint endpoint, Histogram histogram, String name,
+                                        double percentile, Duration objective) {
+        long valueMicros = histogram.getValueAtPercentile(percentile);
+        if (valueMicros > TimeUnit.NANOSECONDS.toMicros(objective.toNanos())) {
+            violations.add(String.format("%s %s %.2f ms is above %d ms", endpoint.getLabel(), name,
+                    millis(valueMicros), objective.toMillis()));
+        }
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
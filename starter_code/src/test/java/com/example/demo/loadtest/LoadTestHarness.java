@@ -0,0 +1,76 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.repositories.ItemRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * End-to-end load test: boots the application on a random port and drives it with {@link VirtualUser}s over real
+ * HTTP, then reports throughput and latency percentiles per endpoint and fails on any missed objective. Not part of
+ * the regular build; run it with {@code mvn test -Pload-test} and shape it with the properties in
+ * {@link LoadTestSettings}.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+        // Every virtual user signs up and logs in from the loopback address
+        "security.rate-limit.ip.capacity=1000000",
+        "security.rate-limit.user.capacity=1000000"
+})
+public class LoadTestHarness {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestHarness.class);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Test
+    public void mixedTrafficMeetsTheServiceLevelObjectives() throws InterruptedException {
+        LoadTestSettings settings = new LoadTestSettings();
+        List<Item> items = itemRepository.findAll();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(settings.requestTimeout)
+                .build();
+
+        long start = System.nanoTime();
+        long measureStart = start + settings.warmup.toNanos();
+        long end = measureStart + settings.duration.toNanos();
+        LoadReport report = new LoadReport(measureStart, end);
+
+        log.info("Load test: " + settings.users + " users at " + (settings.rate > 0 ? settings.rate + " req/s" : "full speed")
+                + ", " + settings.warmup.getSeconds() + "s warmup, " + settings.duration.getSeconds() + "s measured");
+        ExecutorService users = Executors.newFixedThreadPool(settings.users);
+        for (int id = 0; id < settings.users; id++) {
+            users.execute(new VirtualUser(id, client, "http://localhost:" + port, items, report, settings, start, end));
+        }
+        users.shutdown();
+        Duration grace = settings.requestTimeout.multipliedBy(2);
+        if (!users.awaitTermination(settings.warmup.plus(settings.duration).plus(grace).toMillis(), TimeUnit.MILLISECONDS)) {
+            users.shutdownNow();
+        }
+
+        log.info("Load test results:" + report.render());
+        List<String> violations = report.violations(settings);
+        assertTrue("Service level objectives missed:\n" + String.join("\n", violations), violations.isEmpty());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+
+/**
+ * Load shape and service level objectives, read from {@code loadtest.*} system properties so a run can be reshaped
+ * from the command line, e.g. {@code mvn test -Pload-test -Dloadtest.users=64 -Dloadtest.rate=400}.
+ */
+class LoadTestSettings {
+
+    /** Virtual users, each on its own thread with its own account and cart. */
+    final int users = Integer.getInteger("loadtest.users", 16);
+
+    /** Requests per second across all users; 0 lets every user send as fast as responses come back. */
+    final double rate = Double.parseDouble(System.getProperty("loadtest.rate", "100"));
+
+    /** Traffic before the measurement starts, to get the JIT, the pools and the caches warm. */
+    final Duration warmup = duration("loadtest.warmup", "10s");
+
+    final Duration duration = duration("loadtest.duration", "30s");
+
+    /** Fraction of failed requests, including rejections and timeouts, the run may have. */
+    final double maxErrorRate = Double.parseDouble(System.getProperty("loadtest.slo.max-error-rate", "0.001"));
+
+    /** Overall throughput the run has to reach; by default 90% of the requested rate. */
+    final double minThroughput = Double.parseDouble(System.getProperty("loadtest.slo.min-throughput",
+            String.valueOf(rate * 0.9)));
+
+    final Duration requestTimeout = duration("loadtest.request-timeout", "10s");
+
+    Duration p99(Endpoint endpoint) {
+        return duration("loadtest.slo." + endpoint.getKey() + ".p99", DurationStyle.SIMPLE.print(endpoint.getDefaultP99()));
+    }
+
+    Duration p999(Endpoint endpoint) {
+        return duration("loadtest.slo." + endpoint.getKey() + ".p999", DurationStyle.SIMPLE.print(endpoint.getDefaultP999()));
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.demo.loadtest;
+
+import com.example.demo.model.persistence.Item;
+import com.example.demo.security.SecurityConstants;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One customer: signs up, logs in, then browses, fills and empties the cart, submits orders and checks the order
+ * history in a weighted mix until the run ends. Now and then the session ends and a new customer signs up in its
+ * place. With a rate set, requests are due on a fixed schedule and are sent late rather than skipped when the
+ * previous one took too long.
+ */
+class VirtualUser implements Runnable {
+
+    private static final String PASSWORD = "loadTestPassword";
+
+    private final int id;
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<Item> items;
+    private final LoadReport report;
+    private final Duration requestTimeout;
+    private final long interval;
+    private final long end;
+
+    private long nextDue;
+    private int session;
+    private String username;
+    private String token;
+    // Quantity of each catalog item in the cart, as far as the successful responses tell
+    private int[] cart;
+    private int cartSize;
+
+    VirtualUser(int id, HttpClient client, String baseUrl, List<Item> items, LoadReport report, LoadTestSettings settings,
+                long start, long end) {
+        this.id = id;
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.items = items;
+        this.report = report;
+        this.requestTimeout = settings.requestTimeout;
+        this.interval = settings.rate > 0 ? (long) (1e9 * settings.users / settings.rate) : 0;
+        this.end = end;
+        // Spread the users over one interval so they do not all fire at the same instant
+        this.nextDue = start + interval * id / settings.users;
+    }
+
+    @Override
+    public void run() {
+        newSession();
+        while (System.nanoTime() < end && !Thread.currentThread().isInterrupted()) {
+            if (token == null) {
+                login();
+                continue;
+            }
+            int roll = ThreadLocalRandom.current().nextInt(1000);
+            if (roll < 250) {
+                send(Endpoint.ITEMS, get("/api/item"));
+            } else if (roll < 400) {
+                send(Endpoint.ITEM_BY_ID, get("/api/item/" + randomItem().getId()));
+            } else if (roll < 500) {
+                send(Endpoint.ITEMS_BY_NAME, get("/api/item/name/" + encode(randomItem().getName())));
+            } else if (roll < 720 || cartSize == 0) {
+                addToCart();
+            } else if (roll < 820) {
+                removeFromCart();
+            } else if (roll < 890) {
+                send(Endpoint.SUBMIT_ORDER, post("/api/order/submit/" + encode(username), ""));
+            } else if (roll < 985) {
+                send(Endpoint.ORDER_HISTORY, get("/api/order/history/" + encode(username)));
+            } else if (roll < 995) {
+                // Token refresh
+                login();
+            } else {
+                newSession();
+            }
+        }
+    }
+
+    private void newSession() {
+        username = "loadUser" + id + "s" + session++;
+        token = null;
+        cart = new int[items.size()];
+        cartSize = 0;
+        send(Endpoint.SIGN_UP, post(SecurityConstants.SIGNUP_URL, "{\"username\":\"" + username + "\",\"password\":\""
+                + PASSWORD + "\",\"confirmPassword\":\"" + PASSWORD + "\"}"));
+        login();
+    }
+
+    private void login() {
+        HttpResponse<String> response = send(Endpoint.LOGIN, post(SecurityConstants.LOGIN_URL,
+                "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"));
+        token = response == null ? null : response.headers().firstValue(SecurityConstants.HEADER_STRING).orElse(null);
+    }
+
+    private void addToCart() {
+        int index = ThreadLocalRandom.current().nextInt(items.size());
+        int quantity = 1 + ThreadLocalRandom.current().nextInt(3);
+        if (send(Endpoint.ADD_TO_CART, post("/api/cart/addToCart", modifyCart(index, quantity))) != null) {
+            cart[index] += quantity;
+            cartSize += quantity;
+        }
+    }
+
+    private void removeFromCart() {
+        int index = ThreadLocalRandom.current().nextInt(items.size());
+        while (cart[index] == 0) {
+            index = (index + 1) % items.size();
+        }
+        if (send(Endpoint.REMOVE_FROM_CART, post("/api/cart/removeFromCart", modifyCart(index, 1))) != null) {
+            cart[index]--;
+            cartSize--;
+        }
+    }
+
+    private String modifyCart(int index, int quantity) {
+        return "{\"itemId\":" + items.get(index).getId() + ",\"quantity\":" + quantity + "}";
+    }
+
+    private Item randomItem() {
+        return items.get(ThreadLocalRandom.current().nextInt(items.size()));
+    }
+
+    private HttpRequest.Builder get(String path) {
+        return request(path).GET();
+    }
+
+    private HttpRequest.Builder post(String path, String json) {
+        return request(path).header("Content-Type", "application/json").POST(HttpRequest.BodyPublishers.ofString(json));
+    }
+
+    private HttpRequest.Builder request(String path) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(requestTimeout);
+        if (token != null) {
+            request.header(SecurityConstants.HEADER_STRING, token);
+        }
+        return request;
+    }
+
+    private static String encode(String pathSegment) {
+        return URLEncoder.encode(pathSegment, StandardCharsets.UTF_8).replace("+", "%20");
+    }
+
+    /**
+     * Sends the request once it is due and records it. Returns the response if it was successful, null otherwise.
+     */
+    private HttpResponse<String> send(Endpoint endpoint, HttpRequest.Builder request) {
+        long due = awaitDue();
+        HttpResponse<String> response = null;
+        try {
+            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            // Timeouts and refused connections count as errors
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean success = response != null && response.statusCode() / 100 == 2;
+        report.record(endpoint, due, System.nanoTime(), success);
+        return success ? response : null;
+    }
+
+    private long awaitDue() {
+        if (interval == 0) {
+            return System.nanoTime();
+        }
+        long due = nextDue;
+        nextDue += interval;
+        long wait;
+        while ((wait = due - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+        return due;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.metrics;
+
+import io.prometheus.client.Collector.MetricFamilySamples;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class EndpointLatencyMetricsTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final EndpointLatencyMetrics metrics = new EndpointLatencyMetrics(Duration.ofMinutes(1), clock::get);
+
+    private double sample(String name, String uri, String outcome, String quantile) {
+        List<MetricFamilySamples> families = metrics.collect();
+        return families.stream()
+                .flatMap(family -> family.samples.stream())
+                .filter(sample -> sample.name.equals(name) && sample.labelValues.get(1).equals(uri)
+                        && sample.labelValues.get(2).equals(outcome)
+                        && (quantile == null || sample.labelValues.size() == 4 && sample.labelValues.get(3).equals(quantile)))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No " + name + " for " + uri + " " + outcome))
+                .value;
+    }
+
+    @Test
+    public void quantilesCountAndSumArePublishedPerEndpointAndOutcome() {
+        for (int i = 1; i <= 1000; i++) {
+            metrics.record("GET", "/api/item", 200, TimeUnit.MICROSECONDS.toNanos(i * 10));
+        }
+        metrics.record("GET", "/api/item", 404, TimeUnit.MILLISECONDS.toNanos(1));
+
+        assertEquals(0.005, sample(EndpointLatencyMetrics.METRIC_NAME, "/api/item", "SUCCESS", "0.5"), 0.0001);
+        assertEquals(0.0099, sample(EndpointLatencyMetrics.METRIC_NAME, "/api/item", "SUCCESS", "0.99"), 0.0001);
+        assertEquals(1000, sample(EndpointLatencyMetrics.METRIC_NAME + "_count", "/api/item", "SUCCESS", null), 0);
+        assertEquals(5.005, sample(EndpointLatencyMetrics.METRIC_NAME + "_sum", "/api/item", "SUCCESS", null), 0.000001);
+        assertEquals(1, sample(EndpointLatencyMetrics.METRIC_NAME + "_count", "/api/item", "CLIENT_ERROR", null), 0);
+    }
+
+    @Test
+    public void quantilesForgetRequestsOlderThanTwoWindowsButCountsDoNot() {
+        metrics.record("POST", "/login", 200, TimeUnit.SECONDS.toNanos(2));
+        assertEquals(2, sample(EndpointLatencyMetrics.METRIC_NAME + "_max", "/login", "SUCCESS", null), 0.02);
+
+        // Still part of the previous window
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(70));
+        metrics.record("POST", "/login", 200, TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals(2, sample(EndpointLatencyMetrics.METRIC_NAME + "_max", "/login", "SUCCESS", null), 0.02);
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(60));
+        metrics.record("POST", "/login", 200, TimeUnit.MILLISECONDS.toNanos(300));
+        assertEquals(0.3, sample(EndpointLatencyMetrics.METRIC_NAME + "_max", "/login", "SUCCESS", null), 0.003);
+        assertEquals(3, sample(EndpointLatencyMetrics.METRIC_NAME + "_count", "/login", "SUCCESS", null), 0);
+    }
+
+    @Test
+    public void valuesOutsideTheTrackableRangeAreClamped() {
+        metrics.record("GET", "/api/item", 200, 0);
+        metrics.record("GET", "/api/item", 200, TimeUnit.HOURS.toNanos(1));
+
+        assertEquals(2, sample(EndpointLatencyMetrics.METRIC_NAME + "_count", "/api/item", "SUCCESS", null), 0);
+        assertEquals(60, sample(EndpointLatencyMetrics.METRIC_NAME + "_max", "/api/item", "SUCCESS", null), 0.6);
+    }
+
+    @Test
+    public void unknownMethodsShareOneSeries() {
+        metrics.record("BREW", "UNKNOWN", 405, 1_000_000);
+        metrics.record("PROPFIND", "UNKNOWN", 405, 1_000_000);
+
+        List<MetricFamilySamples> families = metrics.collect();
+        assertTrue(families.get(0).samples.stream().allMatch(sample -> sample.labelValues.get(0).equals("OTHER")));
+        assertEquals(2, sample(EndpointLatencyMetrics.METRIC_NAME + "_count", "UNKNOWN", "CLIENT_ERROR", null), 0);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.demo.metrics;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+// Items read through Hibernate rather than the catalog snapshot, for the repository meters
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prometheus-scrape;DB_CLOSE_DELAY=-1",
+        "app.catalog.enabled=false"
+})
+@AutoConfigureMockMvc
+public class PrometheusScrapeIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void scrapeExposesEndpointLatencyAndSecurityAndRepositoryMeters() throws Exception {
+        String credentials = "{\"username\":\"scrapeUser\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        String token = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+        mockMvc.perform(get("/api/item").header("Authorization", token)).andExpect(status().isOk());
+        // A tampered token is counted and leaves the request unauthenticated
+        mockMvc.perform(get("/api/item").header("Authorization", token + "x")).andExpect(status().isForbidden());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape, scrape.contains("http_server_requests_latency_seconds{method=\"GET\",uri=\"/api/item\",outcome=\"SUCCESS\",quantile=\"0.999\",}"));
+        assertTrue(scrape, scrape.contains("http_server_requests_latency_seconds_count{method=\"GET\",uri=\"/api/item\",outcome=\"SUCCESS\",} 1.0"));
+        assertTrue(scrape, scrape.contains("http_server_requests_latency_seconds_count{method=\"GET\",uri=\"UNKNOWN\",outcome=\"CLIENT_ERROR\",} 1.0"));
+        assertTrue(scrape, scrape.contains("http_server_requests_latency_seconds_count{method=\"POST\",uri=\"/api/user/create\",outcome=\"SUCCESS\",} 1.0"));
+        assertTrue(scrape, scrape.contains("auth_login_total{outcome=\"success\",} 1.0"));
+        assertTrue(scrape, scrape.contains("auth_token_verification_total{outcome=\"valid\",} 1.0"));
+        assertTrue(scrape, scrape.contains("auth_token_verification_total{outcome=\"invalid\",} 1.0"));
+        assertTrue(scrape, scrape.contains("http_server_requests_jdbc_statements_count{uri=\"/api/item\",} 1.0"));
+        assertTrue(scrape, scrape.matches("(?s).*spring_data_repository_invocations_seconds_count\\{[^}]*method=\"findAll\",repository=\"ItemRepository\",state=\"SUCCESS\",} 1\\.0.*"));
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.demo.orders;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-export;DB_CLOSE_DELAY=-1",
+        "security.admin-users=exportAdmin"
+})
+@AutoConfigureMockMvc
+public class OrderExportIntegrationTest {
+
+    private static final String ADMIN = "exportAdmin";
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Created by the first test and kept for the others, like the database
+    private static String adminToken;
+
+    @Before
+    public void setUp() throws Exception {
+        if (adminToken == null) {
+            adminToken = signUp(ADMIN);
+        }
+    }
+
+    private String signUp(String username) throws Exception {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        return mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private JsonNode order(String username, String token, long itemId, int quantity) throws Exception {
+        mockMvc.perform(post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(post("/api/order/submit/" + username).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private List<JsonNode> export(String query) throws Exception {
+        String body = mockMvc.perform(get("/api/admin/orders/export" + query).header("Authorization", adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private static List<Long> ids(List<JsonNode> lines) {
+        return lines.stream().map(line -> line.get("id").asLong()).collect(Collectors.toList());
+    }
+
+    @Test
+    public void exportStreamsEveryOrderWithItsItems() throws Exception {
+        String username = "exportBuyer" + USERS.incrementAndGet();
+        String token = signUp(username);
+        JsonNode first = order(username, token, 1, 2);
+        JsonNode second = order(username, token, 2, 1);
+
+        List<JsonNode> lines = export("?afterId=" + (first.get("id").asLong() - 1));
+
+        assertEquals(2, lines.size());
+        JsonNode line = lines.get(0);
+        assertEquals(first.get("id").asLong(), line.get("id").asLong());
+        assertEquals(username, line.get("username").asText());
+        assertEquals(0, first.get("total").decimalValue().compareTo(line.get("total").decimalValue()));
+        assertNotNull(Instant.parse(line.get("createdAt").asText()));
+        assertEquals(2, line.get("items").size());
+        assertEquals(1, line.get("items").get(0).get("id").asLong());
+        assertEquals(second.get("id").asLong(), lines.get(1).get("id").asLong());
+        assertEquals(second.get("items").size(), lines.get(1).get("items").size());
+    }
+
+    @Test
+    public void idAndDateFiltersSelectARange() throws Exception {
+        String username = "exportBuyer" + USERS.incrementAndGet();
+        String token = signUp(username);
+        long first = order(username, token, 1, 1).get("id").asLong();
+        Instant between = Instant.now();
+        Thread.sleep(5);
+        long second = order(username, token, 1, 1).get("id").asLong();
+        long third = order(username, token, 2, 1).get("id").asLong();
+
+        assertEquals(Arrays.asList(second, third), ids(export("?afterId=" + first)));
+        assertEquals(Collections.singletonList(second), ids(export("?afterId=" + first + "&upToId=" + second)));
+        List<Long> sinceBetween = ids(export("?from=" + between));
+        assertTrue(sinceBetween.contains(second) && sinceBetween.contains(third) && !sinceBetween.contains(first));
+        assertTrue(ids(export("?to=" + between)).contains(first));
+        assertFalse(ids(export("?to=" + between)).contains(second));
+
+        mockMvc.perform(get("/api/admin/orders/export?afterId=5&upToId=5").header("Authorization", adminToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void exportIsGzippedWhenAccepted() throws Exception {
+        String username = "exportBuyer" + USERS.incrementAndGet();
+        String token = signUp(username);
+        long id = order(username, token, 1, 3).get("id").asLong();
+
+        MockHttpServletResponse response = mockMvc.perform(get("/api/admin/orders/export?afterId=" + (id - 1))
+                .header("Authorization", adminToken).header("Accept-Encoding", "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray())), StandardCharsets.UTF_8))) {
+            JsonNode line = objectMapper.readTree(reader.readLine());
+            assertEquals(id, line.get("id").asLong());
+            assertEquals(3, line.get("items").size());
+            assertNull(reader.readLine());
+        }
+    }
+
+    @Test
+    public void exportIsForAdminsOnly() throws Exception {
+        String token = signUp("exportBuyer" + USERS.incrementAndGet());
+        mockMvc.perform(get("/api/admin/orders/export").header("Authorization", token))
+                .andExpect(status().isForbidden());
+    }
+}
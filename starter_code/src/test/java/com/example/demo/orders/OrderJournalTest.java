@@ -0,0 +1,182 @@
+package com.example.demo.orders;
+
+import com.example.demo.TestUtils;
+import com.example.demo.model.persistence.UserOrder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class OrderJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<OrderJournal> opened = new ArrayList<>();
+
+    private UserOrder order;
+    private Path directory;
+
+    @Before
+    public void setUp() {
+        order = UserOrder.createFromCart(TestUtils.createTestUserWithCart().getCart());
+        directory = folder.getRoot().toPath();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (OrderJournal journal : opened) {
+            journal.close();
+        }
+    }
+
+    private OrderJournal open(int segmentSize, Duration syncInterval) throws IOException {
+        OrderJournal journal = new OrderJournal(directory, segmentSize, syncInterval, Duration.ofHours(1), meterRegistry);
+        journal.open(0);
+        opened.add(journal);
+        return journal;
+    }
+
+    private long appendDurably(OrderJournal journal) throws IOException {
+        long sequence = journal.append(OrderSubmission.of(order));
+        journal.awaitDurable(sequence);
+        return sequence;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void ordersPastTheCheckpointAreRecovered() throws IOException {
+        OrderJournal journal = open(4096, Duration.ofMillis(1));
+        for (int i = 0; i < 3; i++) {
+            appendDurably(journal);
+        }
+        journal.persisted(1);
+        journal.checkpoint();
+        journal.close();
+        assertEquals(1, journal.getCheckpointSequence());
+
+        OrderJournal reopened = open(4096, Duration.ofMillis(1));
+        List<OrderSubmission> recovered = reopened.drainRecovered();
+
+        assertEquals(2, recovered.size());
+        OrderSubmission first = recovered.get(0);
+        assertEquals(2, first.sequence());
+        assertEquals(3, recovered.get(1).sequence());
+        assertTrue(first.belongsTo(TestUtils.DEFAULT_USER_ID));
+        assertEquals(TestUtils.DEFAULT_USER_NAME, first.username());
+        assertEquals(order.getTotal(), first.total());
+        assertEquals(Long.valueOf(TestUtils.DEFAULT_ITEM_ID), first.itemIds().get(0));
+        assertTrue(reopened.drainRecovered().isEmpty());
+        // Numbering carries on after the recovered orders
+        assertEquals(4, appendDurably(reopened));
+    }
+
+    @Test
+    public void segmentsRollAndAreDeletedAtCheckpoints() throws IOException {
+        // Room for two records per segment
+        OrderJournal journal = open(160, Duration.ofMillis(1));
+        for (long sequence = 1; sequence <= 5; sequence++) {
+            assertEquals(sequence, appendDurably(journal));
+        }
+        assertEquals(3, segments().size());
+
+        for (long sequence = 1; sequence <= 4; sequence++) {
+            journal.persisted(sequence);
+        }
+        journal.checkpoint();
+
+        // The active segment holds the unwritten fifth order
+        assertEquals(4, journal.getCheckpointSequence());
+        assertEquals(1, segments().size());
+        assertEquals(5.0, meterRegistry.get("orders.journal.appends").counter().count(), 0);
+    }
+
+    @Test
+    public void abandonedOrdersAreNotReplayed() throws IOException {
+        OrderJournal journal = open(4096, Duration.ofMillis(1));
+        appendDurably(journal);
+        // An append whose sync the client gave up waiting for
+        journal.abandon(journal.append(OrderSubmission.of(order)));
+        appendDurably(journal);
+        journal.close();
+        // The first order is still pending, the checkpoint cannot cover the abandoned one
+        assertEquals(0, journal.getCheckpointSequence());
+
+        OrderJournal reopened = open(4096, Duration.ofMillis(1));
+        List<OrderSubmission> recovered = reopened.drainRecovered();
+        assertEquals(2, recovered.size());
+        assertEquals(1, recovered.get(0).sequence());
+        assertEquals(3, recovered.get(1).sequence());
+
+        reopened.persisted(1);
+        reopened.persisted(3);
+        reopened.checkpoint();
+        assertEquals(3, reopened.getCheckpointSequence());
+        assertFalse(Files.exists(directory.resolve("abandoned")));
+    }
+
+    @Test
+    public void tornRecordEndsTheSegment() throws IOException {
+        OrderJournal journal = open(4096, Duration.ofMillis(1));
+        appendDurably(journal);
+        appendDurably(journal);
+        journal.close();
+
+        // A crash in the middle of writing the second record
+        Path segment = segments().get(0);
+        byte[] content = Files.readAllBytes(segment);
+        int second = 2 * Integer.BYTES + ByteBuffer.wrap(content).getInt();
+        content[second + 2 * Integer.BYTES + Long.BYTES] ^= 0x7f;
+        Files.write(segment, content);
+
+        OrderJournal reopened = open(4096, Duration.ofMillis(1));
+        List<OrderSubmission> recovered = reopened.drainRecovered();
+        assertEquals(1, recovered.size());
+        assertEquals(1, recovered.get(0).sequence());
+    }
+
+    @Test
+    public void concurrentAppendsShareAnFsync() throws Exception {
+        OrderJournal journal = open(4096, Duration.ofMillis(200));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Long>> appends = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                appends.add(executor.submit(() -> appendDurably(journal)));
+            }
+            for (Future<Long> append : appends) {
+                append.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long syncs = meterRegistry.get("orders.journal.sync").timer().count();
+        assertTrue("syncs=" + syncs, syncs < 8);
+        assertEquals(8.0, meterRegistry.get("orders.journal.sync.records").summary().totalAmount(), 0);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.orders;
+
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-submission;DB_CLOSE_DELAY=-1",
+        "app.orders.submission.journal.enabled=true",
+        "app.orders.submission.journal.directory=" + OrderSubmissionIntegrationTest.JOURNAL
+})
+@AutoConfigureMockMvc
+public class OrderSubmissionIntegrationTest {
+
+    static final String JOURNAL = "target/order-submission-journal";
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    private String username;
+    private String token;
+
+    @BeforeClass
+    public static void clearJournal() throws IOException {
+        // Orders left by an earlier run would be replayed into this fresh database
+        FileSystemUtils.deleteRecursively(Paths.get(JOURNAL));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        username = "asyncOrderUser" + USERS.incrementAndGet();
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        token = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private JsonNode getJson(String path) throws Exception {
+        String body = mockMvc.perform(get(path).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @Test
+    public void acceptedOrderIsWrittenAndCanBePolled() throws Exception {
+        mockMvc.perform(post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":1,\"quantity\":2}"))
+                .andExpect(status().isOk());
+
+        MockHttpServletResponse accepted = mockMvc.perform(post("/api/order/submissions/" + username).header("Authorization", token))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse();
+        String handle = objectMapper.readTree(accepted.getContentAsString()).get("handle").asText();
+        assertEquals("/api/order/submissions/" + username + "/" + handle, accepted.getHeader("Location"));
+
+        JsonNode submission = getJson(accepted.getHeader("Location"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while ("QUEUED".equals(submission.get("status").asText()) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+            submission = getJson(accepted.getHeader("Location"));
+        }
+        assertEquals("COMPLETED", submission.get("status").asText());
+
+        JsonNode history = getJson("/api/order/history/" + username);
+        assertEquals(1, history.size());
+        assertEquals(submission.get("orderId").asLong(), history.get(0).get("id").asLong());
+        assertEquals(2, history.get(0).get("items").size());
+        // Journaled first, the order carries its journal sequence
+        assertNotNull(orderRepository.findById(submission.get("orderId").asLong()).get().getIntakeSequence());
+    }
+
+    @Test
+    public void emptyCartIsNotAccepted() throws Exception {
+        mockMvc.perform(post("/api/order/submissions/" + username).header("Authorization", token))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void unknownHandleIsNotFound() throws Exception {
+        mockMvc.perform(get("/api/order/submissions/" + username + "/no-such-handle").header("Authorization", token))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/order/submissions/someoneElse/no-such-handle").header("Authorization", token))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.demo.orders;
+
+import com.example.demo.TestUtils;
+import com.example.demo.model.persistence.User;
+import com.example.demo.model.persistence.UserOrder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class OrderSubmissionQueueTest {
+
+    private final OrderBatchWriter writerMock = mock(OrderBatchWriter.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final OrderSubmissionProperties properties = new OrderSubmissionProperties();
+    // Sizes of the batches handed to the writer
+    private final List<Integer> batches = new CopyOnWriteArrayList<>();
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private UserOrder order;
+    private OrderSubmissionQueue queue;
+
+    @Before
+    public void setUp() {
+        User testUser = TestUtils.createTestUserWithCart();
+        order = UserOrder.createFromCart(testUser.getCart());
+
+        properties.setQueueCapacity(2);
+        properties.setWorkers(1);
+        properties.setBatchSize(3);
+        properties.setRetryAfter(Duration.ofMillis(1500));
+
+        // Stub the writer: it waits to be released, then gives every order an id
+        doAnswer(invocation -> {
+            List<OrderSubmission> batch = invocation.getArgument(0);
+            batches.add(batch.size());
+            released.await(5, TimeUnit.SECONDS);
+            for (OrderSubmission submission : batch) {
+                submission.completed(100 + batches.size());
+            }
+            return null;
+        }).when(writerMock).write(any());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        released.countDown();
+        if (queue != null) {
+            queue.stop();
+        }
+    }
+
+    private static void awaitStatus(OrderSubmission submission, OrderSubmission.Status status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (submission.getStatus() != status && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, submission.getStatus());
+    }
+
+    private void awaitBatches(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (batches.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, batches.size());
+    }
+
+    @Test
+    public void fullQueueRejectsSubmissions() throws InterruptedException {
+        queue = new OrderSubmissionQueue(writerMock, null, properties, meterRegistry);
+        queue.start();
+
+        // The worker holds the first one, the next two fill the queue
+        OrderSubmission first = queue.submit(order);
+        awaitBatches(1);
+        assertNotNull(queue.submit(order));
+        assertNotNull(queue.submit(order));
+
+        assertNull(queue.submit(order));
+        assertEquals(2, queue.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("orders.submission").tag("outcome", "rejected").counter().count(), 0);
+        assertEquals(OrderSubmission.Status.QUEUED, queue.get(first.getHandle()).getStatus());
+
+        released.countDown();
+        awaitStatus(first, OrderSubmission.Status.COMPLETED);
+    }
+
+    @Test
+    public void queuedOrdersAreWrittenInMicroBatches() throws InterruptedException {
+        properties.setQueueCapacity(10);
+        queue = new OrderSubmissionQueue(writerMock, null, properties, meterRegistry);
+        queue.start();
+
+        // A lone order is written on its own; the five queued behind it go in batches of at most three
+        OrderSubmission first = queue.submit(order);
+        awaitBatches(1);
+        List<OrderSubmission> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            queued.add(queue.submit(order));
+        }
+        released.countDown();
+        // Waits for the worker to empty the queue
+        queue.stop();
+
+        for (OrderSubmission submission : queued) {
+            assertEquals(OrderSubmission.Status.COMPLETED, submission.getStatus());
+        }
+        assertEquals(Arrays.asList(1, 3, 2), batches);
+        assertEquals(Long.valueOf(101), first.getOrderId());
+        assertEquals(Long.valueOf(103), queued.get(4).getOrderId());
+        assertEquals(6.0, meterRegistry.get("orders.submission").tag("outcome", "completed").counter().count(), 0);
+    }
+
+    @Test
+    public void writerFailureFailsTheBatch() throws InterruptedException {
+        doAnswer(invocation -> {
+            throw new IllegalStateException("database is down");
+        }).when(writerMock).write(any());
+        // Marks the submission failed, there is no inventory to give stock back to
+        doCallRealMethod().when(writerMock).failed(any());
+        queue = new OrderSubmissionQueue(writerMock, null, properties, meterRegistry);
+        queue.start();
+
+        OrderSubmission submission = queue.submit(order);
+
+        awaitStatus(submission, OrderSubmission.Status.FAILED);
+        verify(writerMock).failed(submission);
+        assertNull(submission.getOrderId());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.demo.orders;
+
+import com.example.demo.model.persistence.UserOrderSummary;
+import com.example.demo.model.persistence.repositories.UserOrderSummaryRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:order-summary;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+public class OrderSummaryIntegrationTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserOrderSummaryRepository summaryRepository;
+
+    @Autowired
+    private OrderSummaryEndpoint orderSummaryEndpoint;
+
+    private String username;
+    private String token;
+
+    @Before
+    public void setUp() throws Exception {
+        username = "summaryUser" + USERS.incrementAndGet();
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        token = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private JsonNode submit(long itemId, int quantity) throws Exception {
+        mockMvc.perform(post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}"))
+                .andExpect(status().isOk());
+        String body = mockMvc.perform(post("/api/order/submit/" + username).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private JsonNode summary() throws Exception {
+        String body = mockMvc.perform(get("/api/order/summary/" + username).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    private void assertSummary(JsonNode summary, JsonNode first, JsonNode last) {
+        assertEquals(2, summary.get("orderCount").asLong());
+        assertEquals(first.get("total").decimalValue().add(last.get("total").decimalValue()).compareTo(
+                summary.get("totalSpent").decimalValue()), 0);
+        assertEquals(last.get("id").asLong(), summary.get("lastOrderId").asLong());
+        assertEquals(0, last.get("total").decimalValue().compareTo(summary.get("lastOrderTotal").decimalValue()));
+        assertFalse(summary.get("lastOrderAt").isNull());
+    }
+
+    @Test
+    public void summaryFollowsTheOrders() throws Exception {
+        JsonNode empty = summary();
+        assertEquals(0, empty.get("orderCount").asLong());
+        assertTrue(empty.get("lastOrderId").isNull());
+
+        JsonNode first = submit(1, 2);
+        JsonNode last = submit(2, 1);
+
+        assertSummary(summary(), first, last);
+    }
+
+    @Test
+    public void rebuildRestoresMissingAndStaleSummaries() throws Exception {
+        JsonNode first = submit(1, 1);
+        JsonNode last = submit(2, 3);
+        long userId = userRepository.findByUsername(username).getId();
+
+        // As for a user from before the summaries: computed from the orders on read
+        summaryRepository.deleteById(userId);
+        assertSummary(summary(), first, last);
+
+        orderSummaryEndpoint.rebuild();
+        UserOrderSummary rebuilt = summaryRepository.findById(userId).get();
+        assertEquals(2, rebuilt.getOrderCount());
+        assertEquals(last.get("id").asLong(), rebuilt.getLastOrderId().longValue());
+
+        rebuilt.setOrderCount(7);
+        rebuilt.setTotalSpent(BigDecimal.TEN);
+        summaryRepository.save(rebuilt);
+        orderSummaryEndpoint.rebuild();
+        assertSummary(summary(), first, last);
+    }
+
+    @Test
+    public void otherUsersSummaryIsForbidden() throws Exception {
+        mockMvc.perform(get("/api/order/summary/someoneElse").header("Authorization", token))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.pricing;
+
+import com.example.demo.TestUtils;
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CartRepricerTest {
+
+    private final CartRepository cartRepositoryMock = mock(CartRepository.class);
+    private final TransactionTemplate transactionsMock = mock(TransactionTemplate.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CartRepricer repricer = new CartRepricer(cartRepositoryMock, transactionsMock, 2, meterRegistry);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void cartsHoldingTheItemAreRepricedInChunks() {
+        when(transactionsMock.execute(any())).thenAnswer(call -> ((TransactionCallback<Object>) call.getArgument(0)).doInTransaction(null));
+        when(cartRepositoryMock.findIdsHoldingItem(7L, 0L, PageRequest.of(0, 2))).thenReturn(Arrays.asList(3L, 5L));
+        when(cartRepositoryMock.findIdsHoldingItem(7L, 5L, PageRequest.of(0, 2))).thenReturn(Collections.singletonList(9L));
+        when(cartRepositoryMock.findIdsHoldingItem(7L, 9L, PageRequest.of(0, 2))).thenReturn(Collections.emptyList());
+
+        assertEquals(3, repricer.reprice(7L));
+
+        verify(cartRepositoryMock).recomputeTotals(Arrays.asList(3L, 5L));
+        verify(cartRepositoryMock).recomputeTotals(Collections.singletonList(9L));
+        verify(transactionsMock, times(2)).execute(any());
+        assertEquals(3.0, meterRegistry.get("carts.repriced").counter().count(), 0);
+    }
+
+    @Test
+    public void checkoutCorrectsAStaleTotal() {
+        Cart cart = TestUtils.createTestUserWithCart().getCart();
+        assertTrue(repricer.verify(cart));
+
+        // The price of the first item went up from 4 after it was added
+        cart.getItems().get(0).setPrice(new BigDecimal("4.50"));
+        assertFalse(repricer.verify(cart));
+
+        assertEquals(0, new BigDecimal("5.50").compareTo(cart.getTotal()));
+        assertTrue(repricer.verify(cart));
+        assertEquals(1.0, meterRegistry.get("carts.checkout.total.mismatch").counter().count(), 0);
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.demo.pricing;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.repositories.CartRepository;
+import com.example.demo.model.persistence.repositories.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:repricing;DB_CLOSE_DELAY=-1",
+        "security.admin-users=pricingAdmin",
+        "app.pricing.reprice-chunk-size=2",
+        "app.catalog.snapshot=target/repricing/catalog.bin"
+})
+@AutoConfigureMockMvc
+public class RepricingIntegrationTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    // Created by the first test and kept for the others, like the database
+    private static String adminToken;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        if (adminToken == null) {
+            adminToken = signUp("pricingAdmin");
+        }
+    }
+
+    private String signUp(String username) throws Exception {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        return mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private void addToCart(String token, long itemId, int quantity) throws Exception {
+        mockMvc.perform(post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":" + itemId + ",\"quantity\":" + quantity + "}"))
+                .andExpect(status().isOk());
+    }
+
+    private void setPrice(long itemId, String price) throws Exception {
+        mockMvc.perform(put("/api/admin/items/" + itemId + "/price").header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"price\":" + price + "}"))
+                .andExpect(status().isOk());
+    }
+
+    private BigDecimal cartTotal(String username) {
+        return cartRepository.findById(userRepository.findByUsername(username).getCart().getId()).get().getTotal();
+    }
+
+    private BigDecimal submit(String username, String token) throws Exception {
+        String body = mockMvc.perform(post("/api/order/submit/" + username).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("total").decimalValue();
+    }
+
+    @Test
+    public void schemaGeneratedByHibernateIndexesCartLinesByItem() {
+        // The same index the V6 migration creates
+        assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject(
+                "select count(*) from information_schema.indexes where index_name = 'IDX_CART_ITEMS_ITEM'", Integer.class));
+    }
+
+    @Test
+    public void openCartsAreRepricedAfterAPriceChange() throws Exception {
+        String[] usernames = new String[5];
+        String[] tokens = new String[5];
+        for (int i = 0; i < usernames.length; i++) {
+            usernames[i] = "pricingBuyer" + USERS.incrementAndGet();
+            tokens[i] = signUp(usernames[i]);
+            addToCart(tokens[i], 1, i + 1);
+            addToCart(tokens[i], 2, 1);
+        }
+
+        setPrice(1, "10.00");
+        BigDecimal itemTwo = new BigDecimal("1.99");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (cartTotal(usernames[4]).compareTo(new BigDecimal("50").add(itemTwo)) != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        for (int i = 0; i < usernames.length; i++) {
+            assertEquals(0, new BigDecimal(10 * (i + 1)).add(itemTwo).compareTo(cartTotal(usernames[i])));
+        }
+        assertEquals(0, new BigDecimal("30").add(itemTwo).compareTo(submit(usernames[2], tokens[2])));
+
+        // Served from the catalog snapshot published with the change
+        String item = mockMvc.perform(get("/api/item/1").header("Authorization", tokens[0]))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals(0, new BigDecimal("10.00").compareTo(objectMapper.readTree(item).get("price").decimalValue()));
+    }
+
+    @Test
+    public void checkoutChargesCurrentPricesBeforeTheCartIsRepriced() throws Exception {
+        String username = "pricingBuyer" + USERS.incrementAndGet();
+        String token = signUp(username);
+        addToCart(token, 2, 2);
+
+        // As if the price changed and the repricer has not reached this cart yet
+        Cart cart = cartRepository.findById(userRepository.findByUsername(username).getCart().getId()).get();
+        cart.setTotal(new BigDecimal("0.01"));
+        cartRepository.save(cart);
+
+        assertEquals(0, new BigDecimal("3.98").compareTo(submit(username, token)));
+    }
+
+    @Test
+    public void asyncCheckoutStoresTheCorrectedTotal() throws Exception {
+        String username = "pricingBuyer" + USERS.incrementAndGet();
+        String token = signUp(username);
+        addToCart(token, 2, 2);
+        Cart cart = cartRepository.findById(userRepository.findByUsername(username).getCart().getId()).get();
+        cart.setTotal(new BigDecimal("0.01"));
+        cartRepository.save(cart);
+
+        mockMvc.perform(post("/api/order/submissions/" + username).header("Authorization", token))
+                .andExpect(status().isAccepted());
+
+        // Flushed with the submission, like the synchronous checkout does
+        assertEquals(0, new BigDecimal("3.98").compareTo(cartTotal(username)));
+    }
+
+    @Test
+    public void negativeOrUnknownPricesAreRefused() throws Exception {
+        mockMvc.perform(put("/api/admin/items/2/price").header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"price\":-1}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(put("/api/admin/items/999/price").header("Authorization", adminToken)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"price\":1}"))
+                .andExpect(status().isNotFound());
+        String token = signUp("pricingBuyer" + USERS.incrementAndGet());
+        mockMvc.perform(put("/api/admin/items/2/price").header("Authorization", token)
+                .contentType(MediaType.APPLICATION_JSON).content("{\"price\":1}"))
+                .andExpect(status().isForbidden());
+    }
+}
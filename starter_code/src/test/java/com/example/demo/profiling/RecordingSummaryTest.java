@@ -0,0 +1,77 @@
+package com.example.demo.profiling;
+
+import com.example.demo.model.persistence.Cart;
+import com.example.demo.model.persistence.Item;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.security.CalibratedBCryptPasswordEncoder;
+import jdk.jfr.Recording;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+public class RecordingSummaryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Cart cart(int size) {
+        Cart cart = new Cart();
+        for (int i = 0; i < size; i++) {
+            Item item = new Item();
+            item.setId((long) i);
+            item.setPrice(BigDecimal.ONE);
+            cart.addItem(item);
+        }
+        return cart;
+    }
+
+    @Test
+    public void eventsAreSummarizedPerOperationWithTheirPausesAndWaits() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("operations.jfr");
+        try (Recording recording = new Recording(FlightRecorderConfiguration.settings())) {
+            recording.start();
+
+            CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(4);
+            encoder.matches("password1", encoder.encode("password1"));
+            encoder.matches("wrong", encoder.encode("password1"));
+            UserOrder.createFromCart(cart(3));
+
+            CartUpdateEvent update = CartUpdateEvent.start("add", 2);
+            // Stub: the request thread parks on a contended lock
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(30));
+            update.end(ResponseEntity.ok(cart(2)));
+
+            JwtEvent verification = JwtEvent.start(JwtEvent.VERIFY);
+            System.gc();
+            verification.end(120, true);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        Map<String, RecordingSummary.Operation> operations = RecordingSummary.read(file);
+
+        assertEquals(2, operations.get("PasswordHash encode").getCount());
+        assertEquals(2, operations.get("PasswordHash matches").getCount());
+        assertEquals(3, operations.get("OrderCreation").getItems());
+        assertEquals(2, operations.get("CartUpdate add").getItems());
+        assertEquals(1, operations.get("CartUpdate add").getWaiting());
+        assertTrue(operations.get("CartUpdate add").percentileNanos(1) >= TimeUnit.MILLISECONDS.toNanos(30));
+        assertEquals(120, operations.get("Jwt verify").getPayloadBytes());
+        assertEquals(1, operations.get("Jwt verify").getInGc());
+        assertEquals(0, operations.get("OrderCreation").getInGc());
+
+        String summary = RecordingSummary.format(operations);
+        assertTrue(summary, summary.startsWith("Operation"));
+        assertTrue(summary, summary.contains("\nCartUpdate add "));
+    }
+}
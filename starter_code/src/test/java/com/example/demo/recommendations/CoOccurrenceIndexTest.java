@@ -0,0 +1,121 @@
+package com.example.demo.recommendations;
+
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CoOccurrenceIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final OrderRepository orderRepositoryMock = mock(OrderRepository.class);
+
+    private CoOccurrenceIndex index(Path snapshot) {
+        return new CoOccurrenceIndex(orderRepositoryMock, snapshot, Duration.ofHours(1));
+    }
+
+    private static List<Long> ids(List<RelatedItem> related) {
+        return related.stream().map(RelatedItem::getItemId).collect(Collectors.toList());
+    }
+
+    @Test
+    public void itemsAreRankedByOrdersTogether() throws Exception {
+        CoOccurrenceIndex index = index(folder.getRoot().toPath().resolve("cooccurrence.bin"));
+        index.add(1, new long[]{1, 2, 3});
+        index.add(2, new long[]{1, 3, 3});
+        index.add(3, new long[]{1, 4});
+        index.add(4, new long[]{1, 3});
+        index.add(5, new long[]{2});
+
+        List<RelatedItem> related = index.related(1, 10);
+
+        assertEquals(Arrays.asList(3L, 2L, 4L), ids(related));
+        // An item twice in an order is one order with both
+        assertEquals(3, related.get(0).getOrders());
+        assertEquals(0.75, related.get(0).getConfidence(), 1e-9);
+        assertEquals(Arrays.asList(3L, 2L), ids(index.related(1, 2)));
+        assertEquals(Collections.singletonList(1L), ids(index.related(4, 10)));
+        assertEquals(0.5, index.related(2, 1).get(0).getConfidence(), 1e-9);
+        assertTrue(index.related(99, 10).isEmpty());
+    }
+
+    @Test
+    public void topItemsAreFoundAmongMany() {
+        CoOccurrenceIndex index = index(folder.getRoot().toPath().resolve("cooccurrence.bin"));
+        // Item 1 is bought with item n in n orders
+        long orderId = 0;
+        for (long other = 2; other <= 500; other++) {
+            for (int i = 0; i < other; i++) {
+                index.add(++orderId, new long[]{1, other});
+            }
+        }
+
+        assertEquals(Arrays.asList(500L, 499L, 498L, 497L, 496L), ids(index.related(1, 5)));
+        assertEquals(499, index.related(1, 1000).size());
+        assertEquals(500, index.itemCount());
+    }
+
+    @Test
+    public void restartsFromTheSnapshotAndReadsOnlyNewerOrders() throws Exception {
+        Path snapshot = folder.getRoot().toPath().resolve("data").resolve("cooccurrence.bin");
+        when(orderRepositoryMock.findIdsAfter(anyLong(), any())).thenReturn(Collections.emptyList());
+        CoOccurrenceIndex first = index(snapshot);
+        first.start();
+        first.add(1, new long[]{1, 2});
+        first.add(2, new long[]{1, 2, 3});
+        first.stop();
+        assertTrue(Files.exists(snapshot));
+
+        when(orderRepositoryMock.findMaxId()).thenReturn(3L);
+        when(orderRepositoryMock.findIdsAfter(anyLong(), any())).thenAnswer(call ->
+                call.<Long>getArgument(0) < 3 ? Collections.singletonList(3L) : Collections.emptyList());
+        when(orderRepositoryMock.findItemIdsByOrderIds(Collections.singletonList(3L))).thenReturn(Arrays.asList(
+                new Object[]{3L, 1L}, new Object[]{3L, 3L}));
+        CoOccurrenceIndex second = index(snapshot);
+        second.start();
+
+        List<RelatedItem> related = second.related(1, 10);
+        assertEquals(Arrays.asList(2L, 3L), ids(related));
+        assertEquals(2, related.get(0).getOrders());
+        assertEquals(2, related.get(1).getOrders());
+        assertEquals(2.0 / 3, related.get(0).getConfidence(), 1e-9);
+        second.stop();
+    }
+
+    @Test
+    public void aSnapshotAheadOfTheDatabaseIsNotUsed() throws Exception {
+        Path snapshot = folder.getRoot().toPath().resolve("cooccurrence.bin");
+        when(orderRepositoryMock.findIdsAfter(anyLong(), any())).thenReturn(Collections.emptyList());
+        CoOccurrenceIndex first = index(snapshot);
+        first.add(7, new long[]{1, 2});
+        assertTrue(first.snapshot());
+        assertFalse(first.snapshot());
+
+        // A new, empty database
+        CoOccurrenceIndex second = index(snapshot);
+        second.start();
+        assertTrue(second.related(1, 10).isEmpty());
+        second.stop();
+
+        CoOccurrenceIndex third = index(snapshot);
+        third.start();
+        assertEquals(0, third.itemCount());
+        third.stop();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.recommendations;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:recommendations;DB_CLOSE_DELAY=-1",
+        "app.recommendations.snapshot=target/recommendations/cooccurrence.bin"
+})
+@AutoConfigureMockMvc
+public class RecommendationIntegrationTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String signUp(String username) throws Exception {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        return mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    @Test
+    public void itemsOrderedTogetherAreRelated() throws Exception {
+        String username = "recommendationBuyer" + USERS.incrementAndGet();
+        String token = signUp(username);
+        JsonNode before = related(token, "1");
+        for (long itemId : new long[]{1, 2}) {
+            mockMvc.perform(post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"itemId\":" + itemId + ",\"quantity\":2}"))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(post("/api/order/submit/" + username).header("Authorization", token))
+                .andExpect(status().isOk());
+
+        JsonNode related = related(token, "1");
+        assertEquals(2, related.get(0).get("itemId").asLong());
+        long ordersBefore = before.size() == 0 ? 0 : before.get(0).get("orders").asLong();
+        assertEquals(ordersBefore + 1, related.get(0).get("orders").asLong());
+        assertEquals(1, related(token, "2?limit=1").size());
+    }
+
+    @Test
+    public void limitIsBounded() throws Exception {
+        String token = signUp("recommendationBuyer" + USERS.incrementAndGet());
+        mockMvc.perform(get("/api/item/1/related?limit=0").header("Authorization", token))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/item/1/related?limit=101").header("Authorization", token))
+                .andExpect(status().isBadRequest());
+        assertEquals(0, related(token, "999").size());
+    }
+
+    private JsonNode related(String token, String itemAndQuery) throws Exception {
+        String body = mockMvc.perform(get("/api/item/" + itemAndQuery.replaceFirst("^(\\d+)", "$1/related")).header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.sales;
+
+import com.example.demo.TestUtils;
+import com.example.demo.model.persistence.UserOrder;
+import com.example.demo.model.persistence.repositories.OrderRepository;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SalesAggregatorTest {
+
+    private static final long MINUTE = TimeUnit.MINUTES.toMillis(1);
+
+    private final OrderRepository orderRepositoryMock = mock(OrderRepository.class);
+    // Half past minute 1000
+    private final AtomicLong clock = new AtomicLong(1000 * MINUTE + MINUTE / 2);
+    private final SalesAggregator aggregator = new SalesAggregator(orderRepositoryMock, Duration.ofMinutes(5), clock::get);
+
+    private static UserOrder order() {
+        // Items 15 at 4 and 16 at 1
+        return UserOrder.createFromCart(TestUtils.createTestUserWithCart().getCart());
+    }
+
+    @Test
+    public void ordersAreCountedPerMinute() {
+        aggregator.record(order());
+        clock.addAndGet(MINUTE);
+        aggregator.record(order());
+        aggregator.record(order());
+
+        SalesWindow window = aggregator.query(5, 10);
+
+        assertEquals(3, window.getOrders());
+        assertEquals(0, new BigDecimal("15").compareTo(window.getRevenue()));
+        assertEquals(6, window.getItems());
+        assertEquals(2.0, window.getAverageBasketSize(), 0);
+        assertEquals(new BigDecimal("5.00"), window.getAverageBasketValue());
+        assertEquals(5, window.getMinutes().size());
+        assertEquals(Instant.ofEpochMilli(1001 * MINUTE), window.getMinutes().get(4).getStart());
+        assertEquals(2, window.getMinutes().get(4).getOrders());
+        assertEquals(1, window.getMinutes().get(3).getOrders());
+        assertEquals(0, window.getMinutes().get(0).getOrders());
+        assertEquals(2, aggregator.query(1, 10).getOrders());
+    }
+
+    @Test
+    public void minutesOlderThanTheRetentionAreForgotten() {
+        aggregator.record(order());
+        clock.addAndGet(4 * MINUTE);
+        assertEquals(1, aggregator.query(5, 10).getOrders());
+
+        // The slot of minute 1000 now belongs to minute 1005
+        clock.addAndGet(MINUTE);
+        aggregator.record(order());
+        SalesWindow window = aggregator.query(5, 10);
+        assertEquals(1, window.getOrders());
+        assertEquals(Instant.ofEpochMilli(1001 * MINUTE), window.getFrom());
+
+        // Too old to be counted
+        aggregator.add(1000 * MINUTE, 500, new long[0], new long[0]);
+        assertEquals(1, aggregator.query(5, 10).getOrders());
+    }
+
+    @Test
+    public void topItemsAreOrderedByQuantity() {
+        aggregator.add(clock.get(), 700, new long[]{1, 2, 2}, new long[]{100, 300, 300});
+        aggregator.add(clock.get(), 500, new long[]{2, 3}, new long[]{300, 200});
+
+        SalesWindow window = aggregator.query(5, 2);
+
+        assertEquals(2, window.getTopItems().size());
+        assertEquals(2, window.getTopItems().get(0).getItemId());
+        assertEquals(3, window.getTopItems().get(0).getQuantity());
+        assertEquals(new BigDecimal("9.00"), window.getTopItems().get(0).getRevenue());
+        // Ties are broken by item id
+        assertEquals(1, window.getTopItems().get(1).getItemId());
+    }
+
+    @Test
+    public void rebuildReadsTheOrdersOfTheRetention() {
+        Instant placed = Instant.ofEpochMilli(999 * MINUTE);
+        when(orderRepositoryMock.findSalesSince(any())).thenReturn(Arrays.asList(
+                new Object[]{1L, new BigDecimal("5"), placed, 15L, new BigDecimal("4")},
+                new Object[]{1L, new BigDecimal("5"), placed, 16L, new BigDecimal("1")},
+                new Object[]{2L, new BigDecimal("4"), placed.plusSeconds(60), 15L, new BigDecimal("4")}));
+        aggregator.record(order());
+
+        aggregator.rebuild();
+
+        // The live order is replaced by what the database holds
+        SalesWindow window = aggregator.query(5, 10);
+        assertEquals(2, window.getOrders());
+        assertEquals(0, new BigDecimal("9").compareTo(window.getRevenue()));
+        assertEquals(15, window.getTopItems().get(0).getItemId());
+        assertEquals(2, window.getTopItems().get(0).getQuantity());
+        assertEquals(1, window.getMinutes().get(3).getOrders());
+    }
+
+    @Test
+    public void concurrentOrdersAreAllCounted() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8_000; i++) {
+            executor.execute(() -> aggregator.add(clock.get(), 250, new long[]{1, 2}, new long[]{100, 150}));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        SalesWindow window = aggregator.query(1, 10);
+        assertEquals(8_000, window.getOrders());
+        assertEquals(new BigDecimal("20000.00"), window.getRevenue());
+        assertEquals(8_000, window.getTopItems().get(0).getQuantity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void windowsLongerThanTheRetentionAreRefused() {
+        aggregator.query(6, 10);
+    }
+}
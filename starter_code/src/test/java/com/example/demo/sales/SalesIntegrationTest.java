@@ -0,0 +1,107 @@
+package com.example.demo.sales;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sales;DB_CLOSE_DELAY=-1",
+        "security.admin-users=salesAdmin"
+})
+@AutoConfigureMockMvc
+public class SalesIntegrationTest {
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    // Created by the first test and kept for the others, like the database
+    private static String adminToken;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SalesAggregator salesAggregator;
+
+    @Before
+    public void setUp() throws Exception {
+        if (adminToken == null) {
+            adminToken = signUp("salesAdmin");
+        }
+    }
+
+    private String signUp(String username) throws Exception {
+        String credentials = "{\"username\":\"" + username + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        return mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private JsonNode sales(String query) throws Exception {
+        String body = mockMvc.perform(get("/api/admin/sales" + query).header("Authorization", adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+
+    @Test
+    public void submittedOrdersShowUpAndSurviveARebuild() throws Exception {
+        long before = sales("?minutes=5").get("orders").asLong();
+        String username = "salesBuyer" + USERS.incrementAndGet();
+        String token = signUp(username);
+        mockMvc.perform(post("/api/cart/addToCart").header("Authorization", token).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"itemId\":1,\"quantity\":3}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/order/submit/" + username).header("Authorization", token))
+                .andExpect(status().isOk());
+
+        JsonNode live = sales("?minutes=5&top=1");
+        assertEquals(before + 1, live.get("orders").asLong());
+        assertEquals(5, live.get("minutes").size());
+        assertEquals(1, live.get("topItems").size());
+        assertEquals(1, live.get("topItems").get(0).get("itemId").asLong());
+
+        // Rebuilt from the orders, as at startup
+        salesAggregator.rebuild();
+        JsonNode rebuilt = sales("?minutes=5&top=1");
+        assertEquals(live.get("orders").asLong(), rebuilt.get("orders").asLong());
+        assertEquals(0, live.get("revenue").decimalValue().compareTo(rebuilt.get("revenue").decimalValue()));
+        assertEquals(live.get("topItems").get(0).get("quantity").asLong(), rebuilt.get("topItems").get(0).get("quantity").asLong());
+    }
+
+    @Test
+    public void windowMustFitTheRetention() throws Exception {
+        mockMvc.perform(get("/api/admin/sales?minutes=0").header("Authorization", adminToken))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/admin/sales?minutes=61").header("Authorization", adminToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void salesAreForAdminsOnly() throws Exception {
+        String token = signUp("salesBuyer" + USERS.incrementAndGet());
+        mockMvc.perform(get("/api/admin/sales").header("Authorization", token))
+                .andExpect(status().isForbidden());
+    }
+}
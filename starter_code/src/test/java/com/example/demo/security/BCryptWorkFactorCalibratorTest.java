@@ -0,0 +1,64 @@
+package com.example.demo.security;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BCryptWorkFactorCalibratorTest {
+
+    // Simulated hardware: 1 ms at strength 4, doubling with every extra round
+    private static long simulatedHashNanos(int strength) {
+        return TimeUnit.MILLISECONDS.toNanos(1L << (strength - 4));
+    }
+
+    @Test
+    public void picksHighestStrengthWithinBudget() {
+        // strength 10 takes 64 ms, 11 would take 128 ms
+        int strength = BCryptWorkFactorCalibrator.calibrate(TimeUnit.MILLISECONDS.toNanos(100), 4, 16,
+                BCryptWorkFactorCalibratorTest::simulatedHashNanos);
+
+        assertEquals(10, strength);
+    }
+
+    @Test
+    public void respectsConfiguredBounds() {
+        assertEquals(8, BCryptWorkFactorCalibrator.calibrate(TimeUnit.SECONDS.toNanos(10), 4, 8,
+                BCryptWorkFactorCalibratorTest::simulatedHashNanos));
+        // Never below the minimum, even when the machine is too slow for the budget
+        assertEquals(10, BCryptWorkFactorCalibrator.calibrate(1, 10, 12,
+                BCryptWorkFactorCalibratorTest::simulatedHashNanos));
+    }
+
+    @Test
+    public void stepsBackWhenMeasurementOvershoots() {
+        // strength 5 is unexpectedly slow
+        int strength = BCryptWorkFactorCalibrator.calibrate(TimeUnit.MILLISECONDS.toNanos(3), 4, 16,
+                s -> s == 5 ? TimeUnit.MILLISECONDS.toNanos(5) : simulatedHashNanos(s));
+
+        assertEquals(4, strength);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidRange() {
+        BCryptWorkFactorCalibrator.calibrate(1, 12, 10, BCryptWorkFactorCalibratorTest::simulatedHashNanos);
+    }
+
+    @Test
+    public void readsStrengthFromHash() {
+        assertEquals(10, BCryptWorkFactorCalibrator.strengthOf("$2a$10$fFx6JHgMUbK61DS3ZHbIf.FB8U6kt/JpV6TesXA9uDZR/bpLyX7xm"));
+        assertEquals(4, BCryptWorkFactorCalibrator.strengthOf(new CalibratedBCryptPasswordEncoder(4).encode("password")));
+        assertEquals(-1, BCryptWorkFactorCalibrator.strengthOf("hashedPassword"));
+        assertEquals(-1, BCryptWorkFactorCalibrator.strengthOf(null));
+    }
+
+    @Test
+    public void encoderFlagsHashesWithAnotherCost() {
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+        assertTrue(encoder.upgradeEncoding(new CalibratedBCryptPasswordEncoder(4).encode("password")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertFalse(encoder.upgradeEncoding("not a bcrypt hash"));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.demo.security;
+
+import com.example.demo.TestUtils;
+import com.example.demo.guestcart.GuestCartService;
+import com.example.demo.guestcart.GuestCartTokens;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class JWTAuthenticationFilterTest {
+    // declare the mocks
+    private final AuthenticationManager authenticationManagerMock = mock(AuthenticationManager.class);
+    private final GuestCartService guestCartServiceMock = mock(GuestCartService.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // object under test
+    private JWTAuthenticationFilter filter;
+
+    @Before
+    public void setUp() {
+        TokenBucketRateLimiter userRateLimiter = new TokenBucketRateLimiter("user", 2, Duration.ofMinutes(1), 10, new SimpleMeterRegistry());
+        filter = new JWTAuthenticationFilter(authenticationManagerMock, userRateLimiter, new GuestCartTokens(),
+                guestCartServiceMock, meterRegistry);
+    }
+
+    private double loginCount(String outcome) {
+        return meterRegistry.get("auth.login").tag("outcome", outcome).counter().count();
+    }
+
+    private static MockHttpServletRequest createLoginRequest(String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", SecurityConstants.LOGIN_URL);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+
+    private static String defaultCredentials() {
+        return "{\"username\":\"" + TestUtils.DEFAULT_USER_NAME + "\",\"password\":\"" + TestUtils.DEFAULT_PLAIN_PASSWORD + "\"}";
+    }
+
+    @Test
+    public void credentialsArePassedToTheAuthenticationManager() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.attemptAuthentication(createLoginRequest(defaultCredentials()), response);
+
+        ArgumentCaptor<Authentication> captor = ArgumentCaptor.forClass(Authentication.class);
+        verify(authenticationManagerMock, times(1)).authenticate(captor.capture());
+        assertEquals(TestUtils.DEFAULT_USER_NAME, captor.getValue().getPrincipal());
+        assertEquals(TestUtils.DEFAULT_PLAIN_PASSWORD, captor.getValue().getCredentials());
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void malformedPayloadsAreRejected() {
+        for (String body : Arrays.asList("", "{\"username\":", "[]", "null", "{\"username\":\"a\"}",
+                "{\"username\":\"a\",\"password\":\"b\",\"cart\":{}}", "{\"username\":\"a\",\"password\":\"b\"} {}",
+                "{\"username\":\"a\",\"username\":\"b\",\"password\":\"c\"}")) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+
+            assertNull(filter.attemptAuthentication(createLoginRequest(body), response));
+            assertEquals("Body: " + body, 400, response.getStatus());
+        }
+        verify(authenticationManagerMock, times(0)).authenticate(any());
+        assertEquals(8, loginCount("malformed"), 0);
+    }
+
+    @Test
+    public void oversizedBodiesAreRejected() {
+        char[] padding = new char[JWTAuthenticationFilter.MAX_LOGIN_BODY_BYTES];
+        Arrays.fill(padding, 'x');
+        String body = "{\"username\":\"" + new String(padding) + "\",\"password\":\"b\"}";
+
+        // Declared length
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertNull(filter.attemptAuthentication(createLoginRequest(body), response));
+        assertEquals(413, response.getStatus());
+
+        // Length only known while streaming
+        MockHttpServletRequest chunked = new MockHttpServletRequest("POST", SecurityConstants.LOGIN_URL) {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunked.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse chunkedResponse = new MockHttpServletResponse();
+        assertNull(filter.attemptAuthentication(chunked, chunkedResponse));
+        assertEquals(413, chunkedResponse.getStatus());
+
+        verify(authenticationManagerMock, times(0)).authenticate(any());
+        assertEquals(2, loginCount("too_large"), 0);
+    }
+
+    @Test
+    public void attemptsOverTheUserBudgetAreRejected() {
+        filter.attemptAuthentication(createLoginRequest(defaultCredentials()), new MockHttpServletResponse());
+        filter.attemptAuthentication(createLoginRequest(defaultCredentials()), new MockHttpServletResponse());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(filter.attemptAuthentication(createLoginRequest(defaultCredentials()), response));
+        assertEquals(429, response.getStatus());
+        verify(authenticationManagerMock, times(2)).authenticate(any());
+        assertEquals(1, loginCount("throttled"), 0);
+    }
+}
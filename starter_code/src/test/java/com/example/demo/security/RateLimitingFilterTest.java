@@ -0,0 +1,70 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class RateLimitingFilterTest {
+
+    // object under test
+    private RateLimitingFilter rateLimitingFilter;
+
+    @Before
+    public void setUp() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("ip", 1, Duration.ofMinutes(1), 10, new SimpleMeterRegistry());
+        rateLimitingFilter = new RateLimitingFilter(limiter);
+    }
+
+    private static MockHttpServletRequest createRequest(String method, String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        request.setRemoteAddr("192.168.0.10");
+        return request;
+    }
+
+    @Test
+    public void loginOverLimitIsRejected() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockFilterChain firstChain = new MockFilterChain();
+        rateLimitingFilter.doFilter(createRequest("POST", SecurityConstants.LOGIN_URL), first, firstChain);
+
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        MockFilterChain secondChain = new MockFilterChain();
+        rateLimitingFilter.doFilter(createRequest("POST", SecurityConstants.LOGIN_URL), second, secondChain);
+
+        assertEquals(200, first.getStatus());
+        assertNotNull(firstChain.getRequest());
+        assertEquals(429, second.getStatus());
+        assertEquals("60", second.getHeader("Retry-After"));
+        assertNull(secondChain.getRequest());
+    }
+
+    @Test
+    public void signUpSharesTheAddressBudget() throws Exception {
+        rateLimitingFilter.doFilter(createRequest("POST", SecurityConstants.LOGIN_URL), new MockHttpServletResponse(), new MockFilterChain());
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        rateLimitingFilter.doFilter(createRequest("POST", SecurityConstants.SIGNUP_URL), response, new MockFilterChain());
+
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    public void otherEndpointsAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+            rateLimitingFilter.doFilter(createRequest("GET", "/api/item"), response, chain);
+
+            assertEquals(200, response.getStatus());
+            assertNotNull(chain.getRequest());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.demo.security;
+
+import com.example.demo.TestUtils;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RehashingAuthenticationProviderTest {
+    // declare the mocks
+    private final UserDetailsService userDetailsServiceMock = mock(UserDetailsService.class);
+    private final PasswordRehashService rehashServiceMock = mock(PasswordRehashService.class);
+
+    private final CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(5);
+
+    // object under test
+    private RehashingAuthenticationProvider provider;
+
+    @Before
+    public void setUp() {
+        provider = new RehashingAuthenticationProvider(userDetailsServiceMock, encoder, rehashServiceMock);
+    }
+
+    private Authentication login() {
+        return provider.authenticate(new UsernamePasswordAuthenticationToken(TestUtils.DEFAULT_USER_NAME, TestUtils.DEFAULT_PLAIN_PASSWORD));
+    }
+
+    @Test
+    public void staleCostIsRehashedInBackground() {
+        String staleHash = new CalibratedBCryptPasswordEncoder(4).encode(TestUtils.DEFAULT_PLAIN_PASSWORD);
+        when(userDetailsServiceMock.loadUserByUsername(TestUtils.DEFAULT_USER_NAME))
+                .thenReturn(new User(TestUtils.DEFAULT_USER_NAME, staleHash, Collections.emptyList()));
+
+        Authentication result = login();
+
+        assertTrue(result.isAuthenticated());
+        verify(rehashServiceMock, times(1)).scheduleRehash(TestUtils.DEFAULT_USER_NAME, TestUtils.DEFAULT_PLAIN_PASSWORD, staleHash);
+    }
+
+    @Test
+    public void currentCostIsLeftAlone() {
+        String currentHash = encoder.encode(TestUtils.DEFAULT_PLAIN_PASSWORD);
+        when(userDetailsServiceMock.loadUserByUsername(TestUtils.DEFAULT_USER_NAME))
+                .thenReturn(new User(TestUtils.DEFAULT_USER_NAME, currentHash, Collections.emptyList()));
+
+        Authentication result = login();
+
+        assertTrue(result.isAuthenticated());
+        verify(rehashServiceMock, times(0)).scheduleRehash(any(), any(), any());
+    }
+}
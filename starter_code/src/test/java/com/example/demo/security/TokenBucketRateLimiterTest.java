@@ -0,0 +1,82 @@
+package com.example.demo.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class TokenBucketRateLimiterTest {
+    // Manual clock so refills are deterministic
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+    private SimpleMeterRegistry meterRegistry;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    private TokenBucketRateLimiter createLimiter(int capacity, int maxKeys) {
+        return new TokenBucketRateLimiter("test", capacity, Duration.ofSeconds(1), maxKeys, meterRegistry, clock::get);
+    }
+
+    @Test
+    public void burstUpToCapacityThenReject() {
+        TokenBucketRateLimiter limiter = createLimiter(3, 10);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertTrue(limiter.tryAcquire("10.0.0.1"));
+        assertFalse(limiter.tryAcquire("10.0.0.1"));
+
+        // Other keys have their own bucket
+        assertTrue(limiter.tryAcquire("10.0.0.2"));
+
+        assertEquals(4, meterRegistry.get("auth.rate.limit").tag("outcome", "admitted").counter().count(), 0);
+        assertEquals(1, meterRegistry.get("auth.rate.limit").tag("outcome", "rejected").counter().count(), 0);
+    }
+
+    @Test
+    public void refillsOneTokenPerPeriod() {
+        TokenBucketRateLimiter limiter = createLimiter(2, 10);
+        assertTrue(limiter.tryAcquire("user"));
+        assertTrue(limiter.tryAcquire("user"));
+        assertFalse(limiter.tryAcquire("user"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(limiter.tryAcquire("user"));
+        assertFalse(limiter.tryAcquire("user"));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertTrue(limiter.tryAcquire("user"));
+        assertTrue(limiter.tryAcquire("user"));
+        assertFalse(limiter.tryAcquire("user"));
+    }
+
+    @Test
+    public void mapStaysBounded() {
+        TokenBucketRateLimiter limiter = createLimiter(1, 100);
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("key-" + i);
+        }
+
+        assertTrue(limiter.size() <= 100);
+        assertTrue(meterRegistry.get("auth.rate.limit.evictions").counter().count() > 0);
+    }
+
+    @Test
+    public void retryAfterIsRoundedUp() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter("test", 1, Duration.ofMillis(1500), 10, meterRegistry, clock::get);
+
+        assertEquals(2, limiter.getRetryAfterSeconds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidCapacity() {
+        createLimiter(0, 10);
+    }
+}
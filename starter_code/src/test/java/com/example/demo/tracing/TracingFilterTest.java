@@ -0,0 +1,52 @@
+package com.example.demo.tracing;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TracingFilterTest {
+
+    private final List<Trace> exported = new ArrayList<>();
+
+    @Test
+    public void unsampledRequestsGetATraceIdButNoSpans() throws ServletException, IOException {
+        TracingFilter filter = new TracingFilter(0, exported::add);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/item"), response, (request, servletResponse) -> {
+            // Stub: code running in the request gets the shared no-op span
+            assertFalse(Tracing.isSampled());
+            assertSame(Span.NOOP, Tracing.start("bcrypt.matches").tag("key", "value"));
+        });
+
+        assertEquals(16, response.getHeader(TracingFilter.TRACE_ID_HEADER).length());
+        assertTrue(exported.isEmpty());
+    }
+
+    @Test
+    public void failedRequestsAreExportedWithTheErrorAndLeaveNoSpanBehind() {
+        TracingFilter filter = new TracingFilter(1, exported::add);
+
+        try {
+            filter.doFilter(new MockHttpServletRequest("POST", "/login"), new MockHttpServletResponse(), (request, response) -> {
+                // Stub: a span the failure leaves open
+                Tracing.start("login.authenticate");
+                throw new IllegalStateException("Database unavailable");
+            });
+            fail();
+        } catch (IllegalStateException | ServletException | IOException e) {
+            assertFalse(Tracing.isSampled());
+        }
+
+        Span root = exported.get(0).getSpans().get(0);
+        assertEquals("post", root.getName());
+        assertEquals("Database unavailable", root.getTags().get("error"));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.tracing;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@RunWith(SpringRunner.class)
+// Items read through Hibernate rather than the catalog snapshot, for the repository spans
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:tracing;DB_CLOSE_DELAY=-1",
+        "app.tracing.sample-rate=1",
+        "app.catalog.enabled=false"
+})
+@AutoConfigureMockMvc
+public class TracingIntegrationTest {
+
+    @TestConfiguration
+    static class CapturingExporterConfiguration {
+
+        @Bean
+        @Primary
+        public CapturingExporter capturingExporter() {
+            return new CapturingExporter();
+        }
+    }
+
+    static class CapturingExporter implements SpanExporter {
+
+        final List<Trace> traces = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void export(Trace trace) {
+            traces.add(trace);
+        }
+    }
+
+    private static final AtomicInteger USERS = new AtomicInteger();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CapturingExporter exporter;
+
+    private String credentials;
+    private String token;
+
+    @Before
+    public void setUp() throws Exception {
+        credentials = "{\"username\":\"tracedUser" + USERS.incrementAndGet() + "\",\"password\":\"password1\"";
+        mockMvc.perform(post("/api/user/create").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + ",\"confirmPassword\":\"password1\"}"))
+                .andExpect(status().isOk());
+        token = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON).content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Authorization");
+    }
+
+    private Map<String, Span> lastTrace(MockHttpServletResponse response) {
+        Trace trace = exporter.traces.get(exporter.traces.size() - 1);
+        assertEquals(response.getHeader(TracingFilter.TRACE_ID_HEADER), ZipkinSpanExporter.hex(trace.getTraceId()));
+        return trace.getSpans().stream().collect(Collectors.toMap(Span::getName, Function.identity()));
+    }
+
+    @Test
+    public void loginSpansTheUserLookupBCryptAndTheTokenSigning() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(post("/login").contentType(MediaType.APPLICATION_JSON)
+                .content(credentials + "}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        Map<String, Span> spans = lastTrace(response);
+        Span root = spans.get("post");
+        Span authenticate = spans.get("login.authenticate");
+        assertEquals(0, root.getParentId());
+        assertEquals(root.getId(), authenticate.getParentId());
+        assertEquals(authenticate.getId(), spans.get("UserRepository.findByUsername").getParentId());
+        assertEquals(authenticate.getId(), spans.get("bcrypt.matches").getParentId());
+        assertEquals(root.getId(), spans.get("jwt.sign").getParentId());
+        assertEquals("200", root.getTags().get("http.status_code"));
+    }
+
+    @Test
+    public void controllerAndRepositorySpansNestUnderTheRequest() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/item/1").header("Authorization", token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+
+        Map<String, Span> spans = lastTrace(response);
+        Span root = spans.get("get /api/item/{id}");
+        Span controller = spans.get("ItemController.getItemById");
+        Span repository = spans.get("ItemRepository.findById");
+        assertEquals(root.getId(), spans.get("jwt.verify").getParentId());
+        assertEquals(root.getId(), controller.getParentId());
+        assertEquals(controller.getId(), repository.getParentId());
+        assertTrue(root.getDurationNanos() >= controller.getDurationNanos());
+        assertTrue(controller.getDurationNanos() >= repository.getDurationNanos());
+        assertFalse(Tracing.isSampled());
+    }
+
+    @Test
+    public void spansAreEncodedAsZipkinJson() throws Exception {
+        MockHttpServletResponse response = mockMvc.perform(get("/api/item/1").header("Authorization", token))
+                .andReturn().getResponse();
+        Trace trace = exporter.traces.get(exporter.traces.size() - 1);
+        Span root = lastTrace(response).get("get /api/item/{id}");
+        String traceId = response.getHeader(TracingFilter.TRACE_ID_HEADER);
+
+        String json = new ZipkinSpanExporter("auth-course").encode(trace, root);
+
+        assertTrue(json, json.startsWith("{\"traceId\":\"" + traceId + "\",\"id\":\"" + traceId + "\",\"kind\":\"SERVER\","
+                + "\"name\":\"get /api/item/{id}\",\"timestamp\":"));
+        assertTrue(json, json.endsWith(",\"localEndpoint\":{\"serviceName\":\"auth-course\"},\"tags\":{\"http.method\":\"GET\","
+                + "\"http.path\":\"/api/item/1\",\"http.status_code\":\"200\"}}"));
+    }
+}